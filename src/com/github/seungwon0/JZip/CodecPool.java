@@ -0,0 +1,210 @@
+/**
+ * CodecPool : Deflater, Inflater와 버퍼를 재사용하는 스레드별 풀
+ */
+package com.github.seungwon0.JZip;
+
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * {@link Deflater}, {@link Inflater}와 일정한 크기의 버퍼를 빌려주고 돌려받아 재사용하는 클래스
+ * 
+ * 풀은 스레드마다 하나씩 있으며 {@link #get()}으로 현재 스레드의 풀을 얻습니다. 빌린 객체는
+ * 빌린 스레드에서 돌려주는 것이 원칙이지만, 다른 스레드에서 돌려주면 그 스레드의 풀로 들어갑니다.
+ * 풀마다 종류별로 일정한 숫자까지만 보관하고 넘치는 것은 바로 해제합니다. 빌릴 때 풀에 있던 것을
+ * 쓴 횟수(적중)와 새로 만든 횟수(실패)는 모든 스레드에 대해 합쳐서 셉니다.
+ * 
+ * @author Seungwon Jeong
+ * 
+ */
+public class CodecPool {
+	public static final int BUFFER_SIZE = 64 * 1024; // 버퍼 크기 : 64 KB
+
+	private static final int MAX_IDLE = 4; // 종류별로 보관할 최대 숫자
+
+	private static final AtomicLong hits = new AtomicLong(); // 적중 횟수
+
+	private static final AtomicLong misses = new AtomicLong(); // 실패 횟수
+
+	// 스레드마다의 풀
+	private static final ThreadLocal<CodecPool> pools = new ThreadLocal<CodecPool>() {
+
+		@Override
+		protected CodecPool initialValue() {
+			return new CodecPool();
+		}
+
+	};
+
+	/**
+	 * 현재 스레드의 {@link CodecPool}을 반환하는 메소드
+	 * 
+	 * @return 현재 스레드의 {@link CodecPool}
+	 */
+	public static CodecPool get() {
+		return pools.get();
+	}
+
+	/**
+	 * 모든 스레드에서 풀에 있던 것을 빌려준 횟수를 반환하는 메소드
+	 * 
+	 * @return 적중 횟수
+	 */
+	public static long getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * 모든 스레드에서 풀이 비어 새로 만든 횟수를 반환하는 메소드
+	 * 
+	 * @return 실패 횟수
+	 */
+	public static long getMisses() {
+		return misses.get();
+	}
+
+	/**
+	 * 풀 통계를 문자열로 반환하는 메소드
+	 * 
+	 * @return 적중 횟수, 실패 횟수와 적중률을 표현하는 문자열
+	 */
+	public static String getStatistics() {
+		final long hit = hits.get();
+		final long miss = misses.get();
+
+		NumberFormat nf = NumberFormat.getPercentInstance();
+		nf.setMaximumFractionDigits(1);
+
+		final double ratio = (hit + miss == 0) ? 0 : (double) hit
+				/ (hit + miss);
+
+		return "적중 " + hit + "회, 실패 " + miss + "회 (" + nf.format(ratio)
+				+ ")";
+	}
+
+	// 압축 수준마다의 Deflater들
+	private final HashMap<Integer, ArrayList<Deflater>> deflaters = new HashMap<Integer, ArrayList<Deflater>>();
+
+	private final ArrayList<Inflater> inflaters = new ArrayList<Inflater>();
+
+	private final ArrayList<byte[]> buffers = new ArrayList<byte[]>();
+
+	/**
+	 * {@link CodecPool} 클래스의 생성자
+	 * 
+	 * {@link #get()}으로만 얻을 수 있습니다.
+	 */
+	private CodecPool() {
+	}
+
+	/**
+	 * 버퍼를 빌리는 메소드
+	 * 
+	 * @return {@link #BUFFER_SIZE} 크기의 버퍼
+	 */
+	public byte[] getBuffer() {
+		if (buffers.isEmpty()) {
+			misses.incrementAndGet();
+
+			return new byte[BUFFER_SIZE];
+		}
+
+		hits.incrementAndGet();
+
+		return buffers.remove(buffers.size() - 1);
+	}
+
+	/**
+	 * nowrap 모드의 {@link Deflater}를 빌리는 메소드
+	 * 
+	 * 압축 수준을 바꾸면 다음 압축 때 설정이 적용되면서 미리 넣은 사전이 무시될 수 있으므로 같은
+	 * 압축 수준으로 만든 {@link Deflater}만 다시 사용합니다.
+	 * 
+	 * @param level
+	 *            압축 수준
+	 * @return {@link Deflater}
+	 */
+	public Deflater getDeflater(int level) {
+		ArrayList<Deflater> list = deflaters.get(level);
+
+		if (list == null || list.isEmpty()) {
+			misses.incrementAndGet();
+
+			return new Deflater(level, true);
+		}
+
+		hits.incrementAndGet();
+
+		return list.remove(list.size() - 1);
+	}
+
+	/**
+	 * nowrap 모드의 {@link Inflater}를 빌리는 메소드
+	 * 
+	 * @return {@link Inflater}
+	 */
+	public Inflater getInflater() {
+		if (inflaters.isEmpty()) {
+			misses.incrementAndGet();
+
+			return new Inflater(true);
+		}
+
+		hits.incrementAndGet();
+
+		return inflaters.remove(inflaters.size() - 1);
+	}
+
+	/**
+	 * 빌린 버퍼를 돌려주는 메소드
+	 * 
+	 * @param buffer
+	 *            {@link #getBuffer()}로 빌린 버퍼
+	 */
+	public void release(byte[] buffer) {
+		if (buffer.length == BUFFER_SIZE && buffers.size() < MAX_IDLE)
+			buffers.add(buffer);
+	}
+
+	/**
+	 * 빌린 {@link Deflater}를 돌려주는 메소드
+	 * 
+	 * @param deflater
+	 *            {@link #getDeflater(int)}로 빌린 {@link Deflater}
+	 * @param level
+	 *            빌릴 때의 압축 수준
+	 */
+	public void release(Deflater deflater, int level) {
+		ArrayList<Deflater> list = deflaters.get(level);
+		if (list == null) {
+			list = new ArrayList<Deflater>();
+			deflaters.put(level, list);
+		}
+
+		if (list.size() < MAX_IDLE) {
+			deflater.reset();
+			list.add(deflater);
+		} else {
+			deflater.end();
+		}
+	}
+
+	/**
+	 * 빌린 {@link Inflater}를 돌려주는 메소드
+	 * 
+	 * @param inflater
+	 *            {@link #getInflater()}로 빌린 {@link Inflater}
+	 */
+	public void release(Inflater inflater) {
+		if (inflaters.size() < MAX_IDLE) {
+			inflater.reset();
+			inflaters.add(inflater);
+		} else {
+			inflater.end();
+		}
+	}
+}
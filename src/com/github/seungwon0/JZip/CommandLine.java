@@ -0,0 +1,282 @@
+/**
+ * CommandLine : 창을 띄우지 않고 명령행에서 Zip 파일을 다루는 클래스
+ */
+package com.github.seungwon0.JZip;
+
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.zip.Deflater;
+
+/**
+ * 명령행 옵션으로 Zip 파일을 만들거나 항목을 보여주거나 압축을 푸는 클래스
+ * 
+ * Zip 파일은 {@link ZipStreamReader}로 앞에서부터 차례대로 읽으므로 파일 이름 대신 "-"를
+ * 주거나 생략하면 표준 입력(파이프)에서 읽을 수 있습니다. 마찬가지로 Zip 파일을 만들 때 "-"를
+ * 주면 임시 파일 없이 표준 출력에 바로 씁니다.
+ * 
+ * @author Seungwon Jeong
+ * 
+ */
+public class CommandLine {
+	private static final String defaultEncoding = "MS949"; // 기본 인코딩 : MS949
+
+	/**
+	 * 명령행 옵션을 처리하는 메소드
+	 * 
+	 * @param args
+	 *            명령행 인자들 (첫 번째 인자는 '-'로 시작하는 옵션)
+	 * @return 종료 코드 (성공하면 0)
+	 */
+	public static int run(String[] args) {
+		String encoding = defaultEncoding;
+
+		int i = 0;
+		if (args.length >= 2 && args[0].equals("-e")) {
+			// 항목 이름의 인코딩
+			encoding = args[1];
+			i = 2;
+		}
+
+		if (i >= args.length) {
+			printUsage();
+
+			return 2;
+		}
+
+		final String option = args[i++];
+		final String zipName = (i < args.length) ? args[i++] : "-";
+
+		try {
+			if (option.equals("-c")) {
+				if (i >= args.length) {
+					printUsage();
+
+					return 2;
+				}
+
+				String[] fileNames = new String[args.length - i];
+				System.arraycopy(args, i, fileNames, 0, fileNames.length);
+
+				create(zipName, encoding, fileNames);
+			} else if (option.equals("-l")) {
+				list(open(zipName, encoding));
+			} else if (option.equals("-x")) {
+				final File directory = new File((i < args.length) ? args[i++]
+						: ".");
+
+				extract(open(zipName, encoding), directory);
+			} else {
+				printUsage();
+
+				return 2;
+			}
+		} catch (IOException e) {
+			System.err.println("JZip: " + e.getMessage());
+
+			return 1;
+		}
+
+		return 0;
+	}
+
+	/**
+	 * 파일과 디렉토리들을 압축하여 새로운 Zip 파일을 만드는 메소드
+	 * 
+	 * @param zipName
+	 *            만들 Zip 파일 이름, "-"이면 표준 출력
+	 * @param encoding
+	 *            항목 이름의 인코딩
+	 * @param fileNames
+	 *            압축할 파일과 디렉토리들의 이름
+	 * @throws IOException
+	 */
+	private static void create(String zipName, String encoding,
+			String[] fileNames) throws IOException {
+		ZipWriter writer = zipName.equals("-") ? new ZipWriter(
+				new FileOutputStream(FileDescriptor.out), encoding)
+				: new ZipWriter(new File(zipName), encoding);
+
+		try {
+			ZipCompressor compressor = new ZipCompressor(writer,
+					new Transfer(), Deflater.DEFAULT_COMPRESSION);
+
+			try {
+				for (String fileName : fileNames)
+					add(compressor, new File(fileName), "");
+			} finally {
+				compressor.finish();
+			}
+		} finally {
+			writer.finish();
+		}
+	}
+
+	/**
+	 * 파일이나 디렉토리를 {@link ZipCompressor}에 더하는 메소드
+	 * 
+	 * 디렉토리는 하위 디렉토리와 파일까지 모두 더합니다.
+	 * 
+	 * @param compressor
+	 *            {@link ZipCompressor}
+	 * @param file
+	 *            더할 파일이나 디렉토리
+	 * @param parent
+	 *            부모 엔트리 이름
+	 * @throws IOException
+	 */
+	private static void add(ZipCompressor compressor, File file, String parent)
+			throws IOException {
+		if (!file.canRead())
+			throw new IOException(file.getPath()
+					+ " 파일 또는 디렉토리에 대한 읽기 권한이 없습니다.");
+
+		final String name = parent + file.getName();
+
+		if (file.isDirectory()) {
+			compressor.addDirectory(name + "/", file.lastModified());
+
+			for (File child : file.listFiles())
+				add(compressor, child, name + "/");
+		} else {
+			compressor.addFile(file, name);
+		}
+	}
+
+	/**
+	 * Zip 파일의 모든 항목의 압축을 푸는 메소드
+	 * 
+	 * 압축을 풀 디렉토리 밖을 가리키는 항목은 건너뜁니다.
+	 * 
+	 * @param reader
+	 *            {@link ZipStreamReader}
+	 * @param directory
+	 *            압축을 풀 디렉토리
+	 * @throws IOException
+	 */
+	private static void extract(ZipStreamReader reader, File directory)
+			throws IOException {
+		final String root = directory.getCanonicalPath() + File.separator;
+
+		CodecPool pool = CodecPool.get();
+		byte[] buffer = pool.getBuffer();
+
+		try {
+			ZipRecord record;
+			while ((record = reader.getNextEntry()) != null) {
+				File target = new File(directory, record.getName());
+
+				if (!(target.getCanonicalPath() + File.separator)
+						.startsWith(root)) {
+					System.err.println("JZip: " + record.getName()
+							+ " 항목은 압축을 풀 디렉토리 밖을 가리키므로 건너뜁니다.");
+
+					continue;
+				}
+
+				if (record.isDirectory()) {
+					target.mkdirs();
+
+					continue;
+				}
+
+				target.getParentFile().mkdirs();
+
+				OutputStream os = new FileOutputStream(target);
+				try {
+					int n;
+					while ((n = reader.read(buffer, 0, buffer.length)) != -1)
+						os.write(buffer, 0, n);
+				} finally {
+					os.close();
+				}
+
+				if (record.getTime() != -1)
+					target.setLastModified(record.getTime());
+
+				System.out.println(record.getName());
+			}
+		} finally {
+			pool.release(buffer);
+
+			reader.close();
+		}
+	}
+
+	/**
+	 * Zip 파일의 모든 항목의 정보를 출력하는 메소드
+	 * 
+	 * @param reader
+	 *            {@link ZipStreamReader}
+	 * @throws IOException
+	 */
+	private static void list(ZipStreamReader reader) throws IOException {
+		SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm");
+
+		long totalSize = 0;
+		int count = 0;
+
+		try {
+			ZipRecord record;
+			while ((record = reader.getNextEntry()) != null) {
+				// 데이터 설명자에 있는 크기를 읽기 위해 항목 끝까지 읽음
+				reader.closeEntry();
+
+				final String time = (record.getTime() == -1) ? "                "
+						: sdf.format(new Date(record.getTime()));
+
+				System.out.println(String.format("%12d  %s  %s", record
+						.getSize(), time, record.getName()));
+
+				totalSize += record.getSize();
+				count++;
+			}
+		} finally {
+			reader.close();
+		}
+
+		System.out.println(String.format("%12d  %16s  %d개 항목", totalSize, "",
+				count));
+	}
+
+	/**
+	 * Zip 파일을 여는 메소드
+	 * 
+	 * @param zipName
+	 *            Zip 파일 이름, "-"이면 표준 입력
+	 * @param encoding
+	 *            항목 이름의 인코딩
+	 * @return {@link ZipStreamReader}
+	 * @throws IOException
+	 */
+	private static ZipStreamReader open(String zipName, String encoding)
+			throws IOException {
+		InputStream is = zipName.equals("-") ? System.in
+				: new FileInputStream(zipName);
+
+		return new ZipStreamReader(is, encoding);
+	}
+
+	/**
+	 * 사용법을 출력하는 메소드
+	 */
+	private static void printUsage() {
+		System.err.println("사용법: JZip [-e 인코딩] -c Zip 파일|- 파일...");
+		System.err.println("        JZip [-e 인코딩] -l [Zip 파일|-]");
+		System.err.println("        JZip [-e 인코딩] -x [Zip 파일|-] [디렉토리]");
+		System.err.println();
+		System.err.println("  -c  파일과 디렉토리들을 압축하여 Zip 파일을 만듭니다.");
+		System.err.println("  -l  항목들을 보여줍니다.");
+		System.err.println("  -x  항목들의 압축을 풉니다.");
+		System.err.println("  -e  항목 이름의 인코딩 (기본값 : " + defaultEncoding + ")");
+		System.err.println();
+		System.err.println("Zip 파일을 생략하거나 -로 주면 표준 입력에서 차례대로 읽고,");
+		System.err.println("-c에서 -로 주면 표준 출력에 씁니다.");
+	}
+}
@@ -0,0 +1,635 @@
+/**
+ * EntryCache : 압축한 항목의 데이터를 디스크에 보관하는 캐시
+ */
+package com.github.seungwon0.JZip;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.NumberFormat;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * 파일을 압축한 데이터와 CRC-32를 디스크에 보관해 두었다가 같은 파일을 다시 압축할 때 그대로
+ * 돌려주는 클래스
+ * 
+ * 캐시 항목의 키는 원본 파일의 경로, 크기, 바뀐 시간과 압축 수준이므로 파일이 바뀌면 자연히 다른
+ * 키가 됩니다. 캐시 항목은 사용자 홈 디렉토리의 .jzip/cache 디렉토리에 키의 SHA-1 지문을 이름으로
+ * 하는 파일 하나씩으로 저장되며, 전체 크기가 {@link #MAX_SIZE}를 넘으면 가장 오래 쓰지 않은
+ * 항목부터 지웁니다. 쓴 순서는 캐시 파일의 바뀐 시간으로 기록하므로 프로그램을 다시 실행해도
+ * 유지됩니다.
+ * 
+ * 저장만 할 파일은 압축 방법만 기록하여 다음에 엔트로피를 다시 재지 않도록 합니다. 캐시를 읽거나
+ * 쓰다가 생긴 문제는 압축에 영향을 주지 않고 그 항목을 캐시에서 빼는 것으로 끝냅니다.
+ * 
+ * @author Seungwon Jeong
+ * 
+ */
+public class EntryCache {
+
+	/**
+	 * 캐시에서 찾은 항목
+	 * 
+	 * @author Seungwon Jeong
+	 * 
+	 */
+	static class Hit {
+		private final int method; // 압축 방법
+
+		private final long crc; // 압축하기 전 데이터의 CRC-32
+
+		private final long size; // 압축하기 전 크기
+
+		private final long compressedSize; // 압축된 크기
+
+		private final InputStream input; // 압축된 데이터, 저장만 할 파일이면 null
+
+		public Hit(int method, long crc, long size, long compressedSize,
+				InputStream input) {
+			this.method = method;
+			this.crc = crc;
+			this.size = size;
+			this.compressedSize = compressedSize;
+			this.input = input;
+		}
+
+		/**
+		 * 압축 방법을 반환하는 메소드
+		 * 
+		 * @return {@link ZipRecord#STORED} 또는 {@link ZipRecord#DEFLATED}
+		 */
+		public int getMethod() {
+			return method;
+		}
+
+		/**
+		 * 캐시에 있던 CRC-32와 크기를 항목 정보에 설정하는 메소드
+		 * 
+		 * @param record
+		 *            {@link ZipRecord}
+		 */
+		public void apply(ZipRecord record) {
+			record.setMethod(method);
+			record.setCrc(crc);
+			record.setSize(size);
+			record.setCompressedSize(compressedSize);
+		}
+
+		/**
+		 * 압축된 데이터를 읽는 {@link InputStream}을 반환하는 메소드
+		 * 
+		 * @return 압축된 데이터를 읽는 {@link InputStream}, 저장만 할 파일이면 null
+		 */
+		public InputStream getInputStream() {
+			return input;
+		}
+	}
+
+	/**
+	 * 압축된 데이터를 받아 캐시 항목을 만드는 {@link OutputStream}
+	 * 
+	 * 데이터는 캐시 디렉토리의 임시 파일에 쓰고 {@link #commit(int, long, long)}에서 헤더를
+	 * 채운 다음 캐시 파일 이름으로 바꿉니다. 쓰다가 실패해도 예외를 던지지 않고 캐시 항목만
+	 * 만들지 않습니다.
+	 * 
+	 * @author Seungwon Jeong
+	 * 
+	 */
+	class Writer extends OutputStream {
+		private final File source; // 원본 파일
+
+		private final long length; // 키를 만들 때의 원본 파일 크기
+
+		private final long time; // 키를 만들 때의 원본 파일의 바뀐 시간
+
+		private final byte[] key; // 키
+
+		private final String name; // 캐시 파일 이름
+
+		private final CRC32 crc = new CRC32(); // 압축된 데이터의 CRC-32
+
+		private File tempFile; // 임시 파일
+
+		private OutputStream os; // 임시 파일의 출력 스트림
+
+		private long count; // 압축된 데이터의 바이트 수
+
+		private boolean failed; // 실패했는지의 여부
+
+		public Writer(File source, long length, long time, byte[] key,
+				String name) {
+			this.source = source;
+			this.length = length;
+			this.time = time;
+			this.key = key;
+			this.name = name;
+		}
+
+		/**
+		 * 캐시 항목을 만들지 않고 임시 파일을 지우는 메소드
+		 */
+		public void abort() {
+			failed = true;
+
+			try {
+				if (os != null)
+					os.close();
+			} catch (IOException e) {
+				// 지우기만 하면 됨
+			}
+
+			os = null;
+
+			if (tempFile != null)
+				tempFile.delete();
+		}
+
+		@Override
+		public void close() {
+			// 캐시 항목은 commit()이나 abort()로 끝냄
+		}
+
+		/**
+		 * 헤더를 채워서 캐시 항목을 만드는 메소드
+		 * 
+		 * 압축하는 동안 원본 파일이 바뀌었으면 캐시 항목을 만들지 않습니다.
+		 * 
+		 * @param method
+		 *            압축 방법
+		 * @param dataCrc
+		 *            압축하기 전 데이터의 CRC-32
+		 * @param size
+		 *            압축하기 전 크기
+		 */
+		public void commit(int method, long dataCrc, long size) {
+			if (failed || source.length() != length
+					|| source.lastModified() != time) {
+				abort();
+
+				return;
+			}
+
+			try {
+				if (os == null)
+					open();
+
+				os.close();
+				os = null;
+
+				RandomAccessFile raf = new RandomAccessFile(tempFile, "rw");
+				try {
+					raf.writeInt(MAGIC);
+					raf.writeShort(method);
+					raf.writeShort(key.length);
+					raf.writeInt((int) dataCrc);
+					raf.writeInt((int) crc.getValue());
+					raf.writeLong(size);
+					raf.writeLong(count);
+				} finally {
+					raf.close();
+				}
+
+				File cacheFile = new File(directory, name);
+				cacheFile.delete();
+
+				if (!tempFile.renameTo(cacheFile))
+					throw new IOException(cacheFile.getPath()
+							+ " 캐시 파일을 만들 수 없습니다.");
+
+				put(name, cacheFile.length());
+			} catch (IOException e) {
+				e.printStackTrace();
+
+				abort();
+			}
+		}
+
+		/**
+		 * 임시 파일을 만들고 헤더 자리를 비워 두는 메소드
+		 * 
+		 * @throws IOException
+		 */
+		private void open() throws IOException {
+			tempFile = File.createTempFile("JZip", TEMP_SUFFIX, directory);
+			os = new BufferedOutputStream(new FileOutputStream(tempFile));
+			os.write(new byte[HEADER_LENGTH]);
+			os.write(key);
+		}
+
+		@Override
+		public void write(int b) {
+			write(new byte[] { (byte) b }, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			if (failed)
+				return;
+
+			if (count + len > maxSize) {
+				// 캐시보다 큰 항목은 보관하지 않음
+				abort();
+
+				return;
+			}
+
+			try {
+				if (os == null)
+					open();
+
+				os.write(b, off, len);
+			} catch (IOException e) {
+				e.printStackTrace();
+
+				abort();
+
+				return;
+			}
+
+			crc.update(b, off, len);
+			count += len;
+		}
+	}
+
+	// 캐시의 최대 크기 : 256 MB
+	public static final long MAX_SIZE = 256L * 1024 * 1024;
+
+	private static final int MAGIC = 0x4a5a4331; // 캐시 파일의 시그니처 : "JZC1"
+
+	private static final int HEADER_LENGTH = 32; // 키를 뺀 헤더 길이
+
+	private static final String SUFFIX = ".jzc"; // 캐시 파일의 확장자
+
+	private static final String TEMP_SUFFIX = ".tmp"; // 임시 파일의 확장자
+
+	// 남은 임시 파일을 지울 나이 : 1시간 (다른 JZip이 쓰고 있을 수 있음)
+	private static final long TEMP_AGE = 60L * 60 * 1000;
+
+	private static final AtomicLong hits = new AtomicLong(); // 적중 횟수
+
+	private static final AtomicLong misses = new AtomicLong(); // 실패 횟수
+
+	// 캐시에서 읽은 압축된 데이터의 바이트 수
+	private static final AtomicLong servedBytes = new AtomicLong();
+
+	private static EntryCache instance; // 기본 캐시
+
+	private static boolean initialized; // 기본 캐시를 만들어 보았는지의 여부
+
+	/**
+	 * 기본 캐시를 반환하는 메소드
+	 * 
+	 * @return 사용자 홈 디렉토리의 {@link EntryCache}, 캐시 디렉토리를 만들 수 없으면 null
+	 */
+	public static synchronized EntryCache get() {
+		if (!initialized) {
+			initialized = true;
+
+			File directory = new File(System.getProperty("user.home"),
+					".jzip" + File.separator + "cache");
+
+			if (directory.isDirectory() || directory.mkdirs())
+				instance = new EntryCache(directory, MAX_SIZE);
+		}
+
+		return instance;
+	}
+
+	/**
+	 * 캐시 통계를 문자열로 반환하는 메소드
+	 * 
+	 * @return 적중 횟수, 실패 횟수, 적중률과 캐시에서 읽은 양을 표현하는 문자열
+	 */
+	public static String getStatistics() {
+		final long hit = hits.get();
+		final long miss = misses.get();
+
+		NumberFormat nf = NumberFormat.getPercentInstance();
+		nf.setMaximumFractionDigits(1);
+
+		final double ratio = (hit + miss == 0) ? 0 : (double) hit
+				/ (hit + miss);
+
+		return "적중 " + hit + "회, 실패 " + miss + "회 (" + nf.format(ratio)
+				+ "), 캐시에서 " + Zip.getSizeString(servedBytes.get()) + " 읽음";
+	}
+
+	private final File directory; // 캐시 디렉토리
+
+	private final long maxSize; // 최대 크기
+
+	// 가장 오래 쓰지 않은 것부터의 캐시 파일 이름마다의 크기
+	private final LinkedHashMap<String, Long> lengthMap = new LinkedHashMap<String, Long>(
+			16, 0.75f, true);
+
+	private long totalSize; // 캐시 파일들의 전체 크기
+
+	/**
+	 * {@link EntryCache} 클래스의 생성자
+	 * 
+	 * 캐시 디렉토리의 캐시 파일들을 바뀐 시간 순서로 읽어 들이고, 오래된 임시 파일은 지웁니다.
+	 * 
+	 * @param directory
+	 *            캐시 디렉토리
+	 * @param maxSize
+	 *            최대 크기
+	 */
+	private EntryCache(File directory, long maxSize) {
+		this.directory = directory;
+		this.maxSize = maxSize;
+
+		File[] files = directory.listFiles();
+		if (files == null)
+			return;
+
+		Arrays.sort(files, new Comparator<File>() {
+
+			public int compare(File file1, File file2) {
+				final long time1 = file1.lastModified();
+				final long time2 = file2.lastModified();
+
+				return (time1 < time2) ? -1 : ((time1 == time2) ? 0 : 1);
+			}
+
+		});
+
+		final long now = System.currentTimeMillis();
+
+		for (File file : files) {
+			final String name = file.getName();
+
+			if (name.endsWith(SUFFIX)) {
+				lengthMap.put(name, file.length());
+				totalSize += file.length();
+			} else if (name.endsWith(TEMP_SUFFIX)
+					&& now - file.lastModified() > TEMP_AGE) {
+				file.delete();
+			}
+		}
+
+		evict();
+	}
+
+	/**
+	 * 파일을 압축한 데이터를 캐시에서 찾는 메소드
+	 * 
+	 * 찾은 캐시 파일은 압축된 데이터의 CRC-32를 확인한 다음 데이터 앞에 위치시켜 열어 둡니다.
+	 * 그래서 그 사이에 캐시 파일이 지워져도 데이터를 끝까지 읽을 수 있습니다.
+	 * 
+	 * @param file
+	 *            원본 파일
+	 * @param level
+	 *            압축 수준
+	 * @return 찾은 항목, 없으면 null
+	 */
+	Hit get(File file, int level) {
+		final byte[] key = getKey(file, file.length(), file.lastModified(),
+				level);
+		final String name = getName(key);
+
+		synchronized (this) {
+			if (lengthMap.get(name) == null) {
+				misses.incrementAndGet();
+
+				return null;
+			}
+		}
+
+		File cacheFile = new File(directory, name);
+
+		Hit hit = null;
+		try {
+			hit = read(cacheFile, key);
+		} catch (IOException e) {
+			// 다른 JZip이 지웠거나 깨진 경우
+		}
+
+		if (hit == null) {
+			remove(name);
+
+			misses.incrementAndGet();
+
+			return null;
+		}
+
+		// 가장 최근에 쓴 것으로 기록
+		cacheFile.setLastModified(System.currentTimeMillis());
+
+		hits.incrementAndGet();
+		servedBytes.addAndGet(hit.compressedSize);
+
+		return hit;
+	}
+
+	/**
+	 * 파일을 압축한 데이터로 캐시 항목을 만들 {@link Writer}를 반환하는 메소드
+	 * 
+	 * 원본 파일의 크기와 바뀐 시간은 압축을 시작하기 전에 구해야 압축하는 동안 파일이 바뀐 것을
+	 * 알아챌 수 있습니다.
+	 * 
+	 * @param file
+	 *            원본 파일
+	 * @param length
+	 *            압축을 시작하기 전의 원본 파일 크기
+	 * @param time
+	 *            압축을 시작하기 전의 원본 파일의 바뀐 시간
+	 * @param level
+	 *            압축 수준
+	 * @return {@link Writer}
+	 */
+	Writer getWriter(File file, long length, long time, int level) {
+		final byte[] key = getKey(file, length, time, level);
+
+		return new Writer(file, length, time, key, getName(key));
+	}
+
+	/**
+	 * 캐시 파일을 읽는 메소드
+	 * 
+	 * @param cacheFile
+	 *            캐시 파일
+	 * @param key
+	 *            키
+	 * @return 찾은 항목, 헤더나 데이터가 맞지 않으면 null
+	 * @throws IOException
+	 */
+	private static Hit read(File cacheFile, byte[] key) throws IOException {
+		FileInputStream fis = new FileInputStream(cacheFile);
+		boolean valid = false;
+
+		try {
+			DataInputStream dis = new DataInputStream(fis);
+
+			if (dis.readInt() != MAGIC)
+				return null;
+
+			final int method = dis.readUnsignedShort();
+			final int keyLength = dis.readUnsignedShort();
+			final long crc = dis.readInt() & 0xffffffffL;
+			final long dataCrc = dis.readInt() & 0xffffffffL;
+			final long size = dis.readLong();
+			final long compressedSize = dis.readLong();
+
+			byte[] storedKey = new byte[keyLength];
+			dis.readFully(storedKey);
+
+			if (!Arrays.equals(key, storedKey))
+				return null;
+
+			if (method == ZipRecord.STORED)
+				return new Hit(method, crc, size, 0, null);
+
+			if (method != ZipRecord.DEFLATED)
+				return null;
+
+			// 압축된 데이터 확인
+			CodecPool pool = CodecPool.get();
+			byte[] buffer = pool.getBuffer();
+
+			CRC32 check = new CRC32();
+			long count = 0;
+
+			try {
+				int n;
+				while ((n = fis.read(buffer, 0, buffer.length)) != -1) {
+					check.update(buffer, 0, n);
+					count += n;
+				}
+			} finally {
+				pool.release(buffer);
+			}
+
+			if (count != compressedSize || check.getValue() != dataCrc)
+				return null;
+
+			fis.getChannel().position(HEADER_LENGTH + keyLength);
+
+			valid = true;
+
+			return new Hit(method, crc, size, compressedSize, fis);
+		} finally {
+			if (!valid)
+				fis.close();
+		}
+	}
+
+	/**
+	 * 캐시 항목의 키를 만드는 메소드
+	 * 
+	 * @param file
+	 *            원본 파일
+	 * @param length
+	 *            원본 파일 크기
+	 * @param time
+	 *            원본 파일의 바뀐 시간
+	 * @param level
+	 *            압축 수준
+	 * @return UTF-8로 인코딩한 키
+	 */
+	private static byte[] getKey(File file, long length, long time, int level) {
+		final String key = file.getAbsolutePath() + "\0" + length + "\0"
+				+ time + "\0" + level;
+
+		try {
+			return key.getBytes("UTF-8");
+		} catch (UnsupportedEncodingException e) {
+			// UTF-8은 항상 지원됨
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * 키에 대한 캐시 파일 이름을 만드는 메소드
+	 * 
+	 * @param key
+	 *            키
+	 * @return 키의 SHA-1 지문을 16진수로 쓴 캐시 파일 이름
+	 */
+	private static String getName(byte[] key) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-1").digest(key);
+
+			StringBuilder name = new StringBuilder();
+			for (byte b : digest)
+				name.append(String.format("%02x", b & 0xff));
+
+			return name.append(SUFFIX).toString();
+		} catch (NoSuchAlgorithmException e) {
+			// SHA-1은 항상 지원됨
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * 새로 만든 캐시 파일을 기록하고 최대 크기를 넘으면 오래된 것부터 지우는 메소드
+	 * 
+	 * @param name
+	 *            캐시 파일 이름
+	 * @param length
+	 *            캐시 파일 크기
+	 */
+	private synchronized void put(String name, long length) {
+		final Long oldLength = lengthMap.put(name, length);
+		if (oldLength != null)
+			totalSize -= oldLength;
+
+		totalSize += length;
+
+		evict();
+	}
+
+	/**
+	 * 캐시 파일을 기록에서 빼고 지우는 메소드
+	 * 
+	 * @param name
+	 *            캐시 파일 이름
+	 */
+	private synchronized void remove(String name) {
+		final Long length = lengthMap.remove(name);
+		if (length != null)
+			totalSize -= length;
+
+		new File(directory, name).delete();
+	}
+
+	/**
+	 * 전체 크기가 최대 크기 이하가 될 때까지 가장 오래 쓰지 않은 캐시 파일부터 지우는 메소드
+	 */
+	private synchronized void evict() {
+		Iterator<Map.Entry<String, Long>> it = lengthMap.entrySet()
+				.iterator();
+
+		while (totalSize > maxSize && it.hasNext()) {
+			Map.Entry<String, Long> entry = it.next();
+
+			new File(directory, entry.getKey()).delete();
+			totalSize -= entry.getValue();
+
+			it.remove();
+		}
+	}
+
+	/**
+	 * 캐시 파일들의 전체 크기를 반환하는 메소드
+	 * 
+	 * @return 전체 크기
+	 */
+	public synchronized long getSize() {
+		return totalSize;
+	}
+}
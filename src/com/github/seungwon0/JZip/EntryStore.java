@@ -0,0 +1,384 @@
+/**
+ * EntryStore : Zip 파일 항목들의 정보를 기본형 배열로 담는 저장소
+ */
+package com.github.seungwon0.JZip;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Zip 파일 항목들의 정보를 항목 번호로 찾는 기본형 배열들에 담고 있는 클래스
+ * 
+ * 항목마다 크기, 압축된 크기, 바뀐 시간, 부모 디렉토리 노드 번호를 각각의 배열에, 디렉토리 여부를
+ * {@link BitSet}에, 모든 항목 이름의 바이트를 하나의 배열에 이어서 담습니다. 항목이 아주 많아도
+ * 항목마다 객체를 만들지 않으므로 정렬이나 합계 계산이 배열만 훑고, 가비지 컬렉션의 부담이
+ * 적습니다. 항목 번호는 중앙 디렉토리의 순서이고, 빠진 디렉토리 항목은 그 뒤에 붙습니다.
+ * 압축을 풀거나 옮길 때 쓰는 {@link ZipEntry}도 중앙 디렉토리 헤더의 위치만 배열에 두었다가
+ * 필요할 때 만듭니다.
+ * 
+ * 항목 이름은 바이트로 들고 있다가 처음 필요할 때 현재 인코딩으로 한 번만 읽어 둡니다. 인코딩을
+ * 바꾸면 읽어 둔 이름만 지우므로 Zip 파일을 다시 읽지 않아도 됩니다.
+ * 
+ * @author Seungwon Jeong
+ * 
+ */
+class EntryStore {
+	private final ZipReader reader; // 중앙 디렉토리를 가진 ZipReader (없으면 null)
+
+	private Charset charset; // 항목 이름의 인코딩
+
+	private CharsetDecoder decoder; // 항목 이름을 읽는 디코더 (인코딩을 바꿀 때 새로 만듦)
+
+	private String[] names; // 읽어 둔 항목 이름 (인코딩을 바꾸면 지움)
+
+	private int count; // 항목의 숫자
+
+	private int[] headerOffsets; // 중앙 디렉토리 헤더의 위치 (빠진 디렉토리 항목은 -1)
+
+	private long[] sizes; // 실제 크기
+
+	private long[] compressedSizes; // 압축된 크기
+
+	private long[] dosTimes; // DOS 형식의 바뀐 시간 (알 수 없으면 0)
+
+	private int[] parents; // 부모 디렉토리 노드 번호
+
+	private int[] nodes; // 디렉토리 항목의 디렉토리 트리 노드 번호
+
+	private final BitSet dirFlags = new BitSet(); // 디렉토리 여부
+
+	private byte[] nameBytes; // 모든 항목 이름의 바이트
+
+	private int nameLength; // nameBytes에서 쓰고 있는 바이트 수
+
+	private int[] nameOffsets; // 항목 이름이 nameBytes에서 시작하는 위치
+
+	/**
+	 * 빈 {@link EntryStore} 클래스의 생성자
+	 * 
+	 * @param encoding
+	 *            항목 이름의 인코딩
+	 */
+	public EntryStore(String encoding) {
+		this(null, encoding);
+	}
+
+	/**
+	 * {@link EntryStore} 클래스의 생성자
+	 * 
+	 * @param reader
+	 *            항목들을 읽을 {@link ZipReader}, 빈 저장소이면 null
+	 * @param encoding
+	 *            항목 이름의 인코딩
+	 */
+	public EntryStore(ZipReader reader, String encoding) {
+		this.reader = reader;
+
+		setEncoding(encoding);
+
+		final int entryCount = (reader == null) ? 0 : reader.size();
+		final int capacity = Math.max(entryCount, 16);
+
+		headerOffsets = new int[capacity];
+		names = new String[capacity];
+		sizes = new long[capacity];
+		compressedSizes = new long[capacity];
+		dosTimes = new long[capacity];
+		parents = new int[capacity];
+		nodes = new int[capacity];
+		nameOffsets = new int[capacity + 1];
+
+		// 이름 바이트 수의 합을 먼저 구해서 한 번만 할당함
+		int totalLength = 0;
+		for (int i = 0; i < entryCount; i++)
+			totalLength += reader.getNameLength(reader.getHeaderOffset(i));
+
+		nameBytes = new byte[Math.max(totalLength, 256)];
+
+		for (int i = 0; i < entryCount; i++) {
+			final int off = reader.getHeaderOffset(i);
+
+			reader.getNameBytes(off, nameBytes, nameLength);
+			nameLength += reader.getNameLength(off);
+
+			headerOffsets[count] = off;
+			sizes[count] = reader.getSize(off);
+			compressedSizes[count] = reader.getCompressedSize(off);
+			dosTimes[count] = reader.getDosTime(off);
+			dirFlags.set(count, reader.isDirectory(off));
+
+			count++;
+			nameOffsets[count] = nameLength;
+		}
+	}
+
+	/**
+	 * 중앙 디렉토리에 없는(빠진) 디렉토리 항목을 추가하는 메소드
+	 * 
+	 * @param name
+	 *            디렉토리 항목 이름
+	 * @return 추가한 항목의 번호
+	 */
+	public int addDirectory(String name) {
+		final byte[] b = name.getBytes(charset);
+
+		if (count == headerOffsets.length) {
+			// 빠진 디렉토리 항목은 보통 많지 않으므로 조금씩 늘림
+			final int capacity = count + Math.max(count >> 3, 16);
+
+			headerOffsets = Arrays.copyOf(headerOffsets, capacity);
+			names = Arrays.copyOf(names, capacity);
+			sizes = Arrays.copyOf(sizes, capacity);
+			compressedSizes = Arrays.copyOf(compressedSizes, capacity);
+			dosTimes = Arrays.copyOf(dosTimes, capacity);
+			parents = Arrays.copyOf(parents, capacity);
+			nodes = Arrays.copyOf(nodes, capacity);
+			nameOffsets = Arrays.copyOf(nameOffsets, capacity + 1);
+		}
+
+		if (nameLength + b.length > nameBytes.length)
+			nameBytes = Arrays.copyOf(nameBytes, nameLength + b.length
+					+ Math.max(nameLength >> 3, 256));
+
+		System.arraycopy(b, 0, nameBytes, nameLength, b.length);
+		nameLength += b.length;
+
+		headerOffsets[count] = -1;
+		names[count] = name;
+		dirFlags.set(count);
+
+		count++;
+		nameOffsets[count] = nameLength;
+
+		return count - 1;
+	}
+
+	/**
+	 * 항목 이름의 인코딩을 바꾸는 메소드
+	 * 
+	 * @param encoding
+	 *            항목 이름의 인코딩
+	 */
+	public synchronized void setEncoding(String encoding) {
+		charset = Charset.forName(encoding);
+
+		decoder = charset.newDecoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+		if (names != null)
+			Arrays.fill(names, 0, count, null);
+	}
+
+	/**
+	 * 뒤에 추가한 항목들을 지우는 메소드
+	 * 
+	 * 빠진 디렉토리 항목은 인코딩에 따라 이름이 달라지므로 인코딩을 바꿀 때 지우고 다시 추가합니다.
+	 * 
+	 * @param size
+	 *            남길 항목의 숫자
+	 */
+	public void truncate(int size) {
+		Arrays.fill(names, size, count, null);
+		dirFlags.clear(size, count);
+
+		count = size;
+		nameLength = nameOffsets[size];
+	}
+
+	/**
+	 * 항목의 숫자를 반환하는 메소드
+	 * 
+	 * @return 항목의 숫자
+	 */
+	public int size() {
+		return count;
+	}
+
+	/**
+	 * 항목의 {@link ZipEntry}를 만들어 반환하는 메소드
+	 * 
+	 * @param id
+	 *            항목 번호
+	 * @return {@link ZipEntry}
+	 */
+	public ZipEntry getEntry(int id) {
+		final int off = headerOffsets[id];
+
+		if (off == -1)
+			return new ZipEntry(getName(id));
+
+		return new ZipEntry(reader, off);
+	}
+
+	/**
+	 * 항목 이름을 반환하는 메소드
+	 * 
+	 * 정렬이나 트리를 만들 때 같은 이름을 여러 번 찾으므로 처음 읽은 이름을 현재 인코딩의 이름으로
+	 * 들고 있습니다.
+	 * 
+	 * @param id
+	 *            항목 번호
+	 * @return 항목 이름
+	 */
+	public String getName(int id) {
+		String name = names[id];
+
+		if (name == null) {
+			name = decode(id);
+			names[id] = name;
+		}
+
+		return name;
+	}
+
+	/**
+	 * 다른 {@link EntryStore}에서 읽어 둔 항목 이름을 가져오는 메소드
+	 * 
+	 * 제자리에서 고친 Zip 파일을 다시 읽을 때 이름이 그대로인 항목의 이름을 다시 읽지 않도록
+	 * 합니다. 두 저장소의 인코딩은 같아야 합니다.
+	 * 
+	 * @param id
+	 *            항목 번호
+	 * @param store
+	 *            예전 {@link EntryStore}
+	 * @param storeId
+	 *            예전 {@link EntryStore}에서의 항목 번호
+	 */
+	public void copyName(int id, EntryStore store, int storeId) {
+		names[id] = store.names[storeId];
+	}
+
+	/**
+	 * 항목 이름의 바이트를 현재 인코딩으로 읽는 메소드
+	 * 
+	 * @param id
+	 *            항목 번호
+	 * @return 항목 이름
+	 */
+	private synchronized String decode(int id) {
+		final int off = nameOffsets[id];
+
+		try {
+			return decoder.decode(
+					ByteBuffer.wrap(nameBytes, off, nameOffsets[id + 1] - off))
+					.toString();
+		} catch (CharacterCodingException e) {
+			// 잘못된 바이트는 대체 문자로 바꾸므로 일어나지 않음
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * 항목의 실제 크기를 반환하는 메소드
+	 * 
+	 * @param id
+	 *            항목 번호
+	 * @return 실제 크기
+	 */
+	public long getSize(int id) {
+		return sizes[id];
+	}
+
+	/**
+	 * 항목의 압축된 크기를 반환하는 메소드
+	 * 
+	 * @param id
+	 *            항목 번호
+	 * @return 압축된 크기
+	 */
+	public long getCompressedSize(int id) {
+		return compressedSizes[id];
+	}
+
+	/**
+	 * 항목의 DOS 형식의 바뀐 시간을 반환하는 메소드
+	 * 
+	 * DOS 형식은 연, 월, 일, 시, 분, 초 순서로 비트를 채우므로 그대로 비교해도 시간 순서와
+	 * 같습니다.
+	 * 
+	 * @param id
+	 *            항목 번호
+	 * @return DOS 형식의 바뀐 시간, 알 수 없으면 0
+	 */
+	public long getDosTime(int id) {
+		return dosTimes[id];
+	}
+
+	/**
+	 * 항목의 바뀐 시간을 반환하는 메소드
+	 * 
+	 * @param id
+	 *            항목 번호
+	 * @return 바뀐 시간, 알 수 없으면 -1
+	 */
+	public long getTime(int id) {
+		final long dosTime = dosTimes[id];
+
+		return (dosTime == 0) ? -1 : ZipRecord.fromDosTime(dosTime);
+	}
+
+	/**
+	 * 디렉토리 항목인지의 여부를 반환하는 메소드
+	 * 
+	 * @param id
+	 *            항목 번호
+	 * @return 디렉토리 여부
+	 */
+	public boolean isDirectory(int id) {
+		return dirFlags.get(id);
+	}
+
+	/**
+	 * 항목의 부모 디렉토리 노드 번호를 반환하는 메소드
+	 * 
+	 * @param id
+	 *            항목 번호
+	 * @return 부모 디렉토리 노드 번호
+	 */
+	public int getParent(int id) {
+		return parents[id];
+	}
+
+	/**
+	 * 항목의 부모 디렉토리 노드 번호를 설정하는 메소드
+	 * 
+	 * @param id
+	 *            항목 번호
+	 * @param parent
+	 *            부모 디렉토리 노드 번호
+	 */
+	public void setParent(int id, int parent) {
+		parents[id] = parent;
+	}
+
+	/**
+	 * 디렉토리 항목의 디렉토리 트리 노드 번호를 반환하는 메소드
+	 * 
+	 * 이름이 같은 디렉토리 항목들은 같은 노드를 가리킵니다.
+	 * 
+	 * @param id
+	 *            디렉토리 항목 번호
+	 * @return 디렉토리 트리 노드 번호
+	 */
+	public int getNode(int id) {
+		return nodes[id];
+	}
+
+	/**
+	 * 디렉토리 항목의 디렉토리 트리 노드 번호를 설정하는 메소드
+	 * 
+	 * @param id
+	 *            디렉토리 항목 번호
+	 * @param node
+	 *            디렉토리 트리 노드 번호
+	 */
+	public void setNode(int id, int node) {
+		nodes[id] = node;
+	}
+}
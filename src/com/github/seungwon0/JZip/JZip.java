@@ -14,11 +14,12 @@ package com.github.seungwon0.JZip;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UnsupportedEncodingException;
 import java.text.DateFormat;
 import java.text.NumberFormat;
 import java.util.Stack;
+import java.util.zip.Deflater;
 
-import org.apache.tools.zip.ZipFile;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.dnd.DND;
 import org.eclipse.swt.dnd.DragSource;
@@ -115,10 +116,15 @@ public class JZip {
 	/**
 	 * JZip 프로그램의 main 메소드
 	 * 
+	 * 첫 번째 인자가 '-'로 시작하면 창을 띄우지 않고 {@link CommandLine}에서 처리합니다.
+	 * 
 	 * @param args
-	 *            열어야할 Zip 파일 이름 혹은 압축할 파일들
+	 *            열어야할 Zip 파일 이름 혹은 압축할 파일들, 또는 명령행 옵션
 	 */
 	public static void main(String[] args) {
+		if (args.length > 0 && args[0].startsWith("-"))
+			System.exit(CommandLine.run(args));
+
 		/*
 		 * Before this is run, be sure to set up the launch configuration
 		 * (Arguments->VM Arguments) for the correct SWT library path in order
@@ -168,6 +174,7 @@ public class JZip {
 	private Menu submenuHelp;
 	private Menu submenuAlignment;
 	private Menu submenuFormat;
+	private Menu submenuLevel;
 	private Menu submenuOpenRecent;
 
 	private MenuItem radioFile;
@@ -202,6 +209,12 @@ public class JZip {
 	private MenuItem contextPushDel;
 	private MenuItem contextPushOpenDir;
 	private MenuItem submenuItemOpenRecent;
+	private MenuItem radioLevelStore;
+	private MenuItem radioLevelFast;
+	private MenuItem radioLevelNormal;
+	private MenuItem radioLevelBest;
+	private MenuItem checkUpdate;
+	private MenuItem checkCrc;
 
 	private Zip zip;
 
@@ -387,7 +400,7 @@ public class JZip {
 			return false;
 
 		try {
-			new ZipFile(file);
+			new ZipReader(file, "MS949").close();
 
 			return true;
 		} catch (IOException e) {
@@ -399,6 +412,9 @@ public class JZip {
 	 * 현재 열려있는 압축 파일을 닫는 메소드
 	 */
 	private void close() {
+		if (zip != null)
+			zip.close();
+
 		zip = null;
 
 		prevStack = null;
@@ -903,10 +919,17 @@ public class JZip {
 				message.append("\n파일 경로 : " + zip.getFileParentPath());
 				message.append("\n바뀐 시간 : "
 						+ Zip.getTimeString(zip.lastModified(), dateFormat));
-				message.append("\n압축 크기 : " + Zip.getSizeString(length));
+				message.append("\n압축 크기 : " + Zip.getSizeString(length)
+						+ " (항목 데이터 "
+						+ Zip.getSizeString(zip.getCompressedLength()) + ")");
 				message.append("\n실제 크기 : " + Zip.getSizeString(originalLength));
 				message.append("\n압축 정도 : " + nf.format(ratio));
-				message.append("\n항목 개수 : " + zip.getOriginalSize());
+				message.append("\n항목 개수 : " + zip.getOriginalSize() + " (파일 "
+						+ zip.getFileCount() + "개)");
+				message.append("\n마지막 전송 : " + zip.getTransferString());
+				message.append("\n중복 제거 : " + zip.getDuplicateString());
+				message.append("\n코덱 풀 : " + CodecPool.getStatistics());
+				message.append("\n압축 캐시 : " + EntryCache.getStatistics());
 
 				MessageBox property = new MessageBox(sShell, SWT.OK
 						| SWT.ICON_INFORMATION);
@@ -1017,6 +1040,104 @@ public class JZip {
 			}
 		});
 
+		// 압축 수준
+		MenuItem submenuItemLevel = new MenuItem(submenuEdit, SWT.CASCADE);
+		submenuItemLevel.setText("압축 수준(&L)");
+		submenuLevel = new Menu(submenuItemLevel);
+		submenuItemLevel.setMenu(submenuLevel);
+		submenuItemLevel.addArmListener(new ArmListener() {
+			public void widgetArmed(ArmEvent e) {
+				setStatusLine("더하는 파일의 압축 수준을 변경합니다.");
+			}
+		});
+
+		// 압축 수준이 바뀌었을 때
+		SelectionListener levelListener = new SelectionListener() {
+			public void widgetDefaultSelected(SelectionEvent e) {
+			}
+
+			public void widgetSelected(SelectionEvent e) {
+				if (zip != null && ((MenuItem) e.widget).getSelection())
+					zip.setLevel(getLevel());
+			}
+		};
+
+		// 저장만
+		radioLevelStore = new MenuItem(submenuLevel, SWT.RADIO);
+		radioLevelStore.setText("저장만(&S)");
+		radioLevelStore.addSelectionListener(levelListener);
+		radioLevelStore.addArmListener(new ArmListener() {
+			public void widgetArmed(ArmEvent e) {
+				setStatusLine("파일을 압축하지 않고 저장만 합니다.");
+			}
+		});
+
+		// 빠르게
+		radioLevelFast = new MenuItem(submenuLevel, SWT.RADIO);
+		radioLevelFast.setText("빠르게(&F)");
+		radioLevelFast.addSelectionListener(levelListener);
+		radioLevelFast.addArmListener(new ArmListener() {
+			public void widgetArmed(ArmEvent e) {
+				setStatusLine("파일을 빠르게 압축합니다.");
+			}
+		});
+
+		// 보통
+		radioLevelNormal = new MenuItem(submenuLevel, SWT.RADIO);
+		radioLevelNormal.setText("보통(&N)");
+		radioLevelNormal.setSelection(true);
+		radioLevelNormal.addSelectionListener(levelListener);
+		radioLevelNormal.addArmListener(new ArmListener() {
+			public void widgetArmed(ArmEvent e) {
+				setStatusLine("파일을 기본 압축 수준으로 압축합니다.");
+			}
+		});
+
+		// 최대
+		radioLevelBest = new MenuItem(submenuLevel, SWT.RADIO);
+		radioLevelBest.setText("최대(&B)");
+		radioLevelBest.addSelectionListener(levelListener);
+		radioLevelBest.addArmListener(new ArmListener() {
+			public void widgetArmed(ArmEvent e) {
+				setStatusLine("파일을 가장 작게 압축합니다.");
+			}
+		});
+
+		// 갱신 모드가 바뀌었을 때
+		SelectionListener updateListener = new SelectionListener() {
+			public void widgetDefaultSelected(SelectionEvent e) {
+			}
+
+			public void widgetSelected(SelectionEvent e) {
+				checkCrc.setEnabled(checkUpdate.getSelection());
+
+				if (zip != null)
+					zip.setUpdate(checkUpdate.getSelection(), checkCrc
+							.getSelection());
+			}
+		};
+
+		// 바뀐 파일만 더하기
+		checkUpdate = new MenuItem(submenuEdit, SWT.CHECK);
+		checkUpdate.setText("바뀐 파일만 더하기(&M)");
+		checkUpdate.addSelectionListener(updateListener);
+		checkUpdate.addArmListener(new ArmListener() {
+			public void widgetArmed(ArmEvent e) {
+				setStatusLine("크기나 바뀐 시간이 다른 파일과 새로운 파일만 더합니다.");
+			}
+		});
+
+		// CRC-32도 비교
+		checkCrc = new MenuItem(submenuEdit, SWT.CHECK);
+		checkCrc.setText("CRC-32도 비교(&C)");
+		checkCrc.setEnabled(false);
+		checkCrc.addSelectionListener(updateListener);
+		checkCrc.addArmListener(new ArmListener() {
+			public void widgetArmed(ArmEvent e) {
+				setStatusLine("바뀐 파일을 찾을 때 파일 내용의 CRC-32도 비교합니다.");
+			}
+		});
+
 		new MenuItem(submenuEdit, SWT.SEPARATOR);
 
 		// 이름 바꾸기
@@ -1155,7 +1276,7 @@ public class JZip {
 
 			public void widgetSelected(SelectionEvent e) {
 				if (zip != null && radioMs949.getSelection())
-					open(zip.getFilePath());
+					setEncoding();
 			}
 		});
 		radioMs949.addArmListener(new ArmListener() {
@@ -1173,7 +1294,7 @@ public class JZip {
 
 			public void widgetSelected(SelectionEvent e) {
 				if (zip != null && radioUtf8.getSelection())
-					open(zip.getFilePath());
+					setEncoding();
 			}
 		});
 		radioUtf8.addArmListener(new ArmListener() {
@@ -2119,6 +2240,34 @@ public class JZip {
 		updateStatusLine();
 	}
 
+	/**
+	 * 메뉴에서 선택된 인코딩을 반환하는 메소드
+	 * 
+	 * @return 인코딩
+	 */
+	private String getEncoding() {
+		if (radioUtf8.getSelection())
+			return "UTF8";
+		else
+			return "MS949";
+	}
+
+	/**
+	 * 메뉴에서 선택된 압축 수준을 반환하는 메소드
+	 * 
+	 * @return 압축 수준
+	 */
+	private int getLevel() {
+		if (radioLevelStore.getSelection())
+			return Deflater.NO_COMPRESSION;
+		else if (radioLevelFast.getSelection())
+			return Deflater.BEST_SPEED;
+		else if (radioLevelBest.getSelection())
+			return Deflater.BEST_COMPRESSION;
+		else
+			return Deflater.DEFAULT_COMPRESSION;
+	}
+
 	/**
 	 * 저장 가능한 파일인지 확인하는 메소드
 	 * 
@@ -2332,14 +2481,9 @@ public class JZip {
 			return;
 		}
 
-		// 인코딩
-		String encoding = "MS949";
-		if (radioUtf8.getSelection())
-			encoding = "UTF8";
-
-		ZipFile zipFile = null;
+		ZipReader reader = null;
 		try {
-			zipFile = new ZipFile(file, encoding);
+			reader = new ZipReader(file, getEncoding());
 		} catch (IOException e) {
 			// Zip 파일이 아닌 경우
 
@@ -2358,7 +2502,13 @@ public class JZip {
 		// 디렉토리로 보기 여부
 		final boolean dir = (radioFile.getSelection()) ? false : true;
 
-		zip = new Zip(file, zipFile, dir);
+		if (zip != null)
+			// 열려있던 압축 파일 닫기
+			zip.close();
+
+		zip = new Zip(file, reader, dir);
+		zip.setLevel(getLevel());
+		zip.setUpdate(checkUpdate.getSelection(), checkCrc.getSelection());
 
 		if (dir) {
 			// 디렉토리로 보기인 경우
@@ -2538,6 +2688,31 @@ public class JZip {
 		table.setLayoutData(formData);
 	}
 
+	/**
+	 * 열려있는 압축 파일의 항목 이름 인코딩을 바꾸는 메소드
+	 * 
+	 * 압축 파일을 다시 열지 않고 항목 이름만 새 인코딩으로 다시 읽습니다.
+	 */
+	private void setEncoding() {
+		try {
+			zip.setEncoding(getEncoding());
+		} catch (UnsupportedEncodingException e) {
+			MessageBox messageBox = new MessageBox(sShell, SWT.OK
+					| SWT.ICON_ERROR);
+			messageBox.setText("인코딩 변경 실패!");
+			messageBox.setMessage(getEncoding() + " 인코딩을 지원하지 않습니다.");
+			messageBox.open();
+
+			return;
+		}
+
+		// 경로 이름도 인코딩에 따라 달라지므로 이동 기록을 지움
+		prevStack.clear();
+		nextStack.clear();
+
+		updateContents();
+	}
+
 	/**
 	 * 테이블에 문맥 메뉴를 추가하는 메소드
 	 */
@@ -2857,11 +3032,7 @@ public class JZip {
 			}
 
 			public void dragSetData(DragSourceEvent event) {
-				int[] indices = table.getSelectionIndices();
-				String[] filePaths = new String[indices.length];
-				for (int i = 0; i < filePaths.length; i++)
-					filePaths[i] = zip.extract(indices[i]);
-				event.data = filePaths;
+				event.data = zip.extract(table.getSelectionIndices());
 			}
 
 			public void dragStart(DragSourceEvent event) {
@@ -0,0 +1,250 @@
+/**
+ * Transfer : 블록 단위 데이터 전송 클래스
+ */
+package com.github.seungwon0.JZip;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.text.NumberFormat;
+import java.util.zip.CRC32;
+
+/**
+ * {@link InputStream}의 데이터를 큰 블록 단위로 {@link OutputStream}에 보내는 클래스
+ * 
+ * 블록 버퍼는 한 번만 할당하여 계속 재사용하며, 전송한 바이트 수와 걸린 시간을 누적합니다.
+ * 
+ * @author Seungwon Jeong
+ * 
+ */
+public class Transfer {
+	private static final int BLOCK_SIZE = 256 * 1024; // 블록 크기 : 256 KB
+
+	private static final int TRANSFER_SIZE = 16 * 1024 * 1024; // 한 번에 보낼 크기 : 16 MB
+
+	private final byte[] buffer = new byte[BLOCK_SIZE]; // 블록 버퍼
+
+	private long bytes; // 전송한 바이트 수
+
+	private long nanoTime; // 전송에 걸린 시간 (나노초)
+
+	/**
+	 * 다른 곳에서 전송한 바이트 수와 걸린 시간을 더하는 메소드
+	 * 
+	 * 여러 스레드가 각자의 {@link Transfer}로 전송한 경우 전체 통계를 모을 때 사용합니다.
+	 * 
+	 * @param bytes
+	 *            전송한 바이트 수
+	 * @param nanoTime
+	 *            전송에 걸린 시간 (나노초)
+	 */
+	public void add(long bytes, long nanoTime) {
+		this.bytes += bytes;
+		this.nanoTime += nanoTime;
+	}
+
+	/**
+	 * {@link InputStream}의 모든 데이터를 {@link OutputStream}으로 보내는 메소드
+	 * 
+	 * {@link InputStream}은 닫지만 {@link OutputStream}은 닫지 않습니다.
+	 * 
+	 * @param is
+	 *            {@link InputStream}
+	 * @param os
+	 *            {@link OutputStream}
+	 * @return 보낸 바이트 수
+	 * @throws IOException
+	 */
+	public long copy(InputStream is, OutputStream os) throws IOException {
+		final long start = System.nanoTime();
+
+		long count = 0;
+
+		try {
+			int n;
+			while ((n = is.read(buffer, 0, buffer.length)) != -1) {
+				os.write(buffer, 0, n);
+				count += n;
+			}
+		} finally {
+			is.close();
+
+			bytes += count;
+			nanoTime += System.nanoTime() - start;
+		}
+
+		return count;
+	}
+
+	/**
+	 * 한 {@link FileChannel} 안에서 데이터를 옮기는 메소드
+	 * 
+	 * 블록 단위로 앞에서부터 읽은 뒤 쓰므로 대상 위치가 원본 위치보다 앞이면 두 구간이 겹쳐도
+	 * 됩니다.
+	 * 
+	 * @param channel
+	 *            {@link FileChannel}
+	 * @param from
+	 *            원본 위치
+	 * @param to
+	 *            대상 위치 (원본 위치보다 뒤라면 두 구간이 겹치면 안됨)
+	 * @param length
+	 *            옮길 바이트 수
+	 * @throws IOException
+	 */
+	public void move(FileChannel channel, long from, long to, long length)
+			throws IOException {
+		final long start = System.nanoTime();
+
+		long count = 0;
+
+		try {
+			while (count < length) {
+				final int n = (int) Math.min(buffer.length, length - count);
+
+				ByteBuffer block = ByteBuffer.wrap(buffer, 0, n);
+				while (block.hasRemaining())
+					if (channel.read(block, from + count + block.position()) == -1)
+						throw new EOFException();
+
+				block.flip();
+				while (block.hasRemaining())
+					channel.write(block, to + count + block.position());
+
+				count += n;
+			}
+		} finally {
+			bytes += count;
+			nanoTime += System.nanoTime() - start;
+		}
+	}
+
+	/**
+	 * 한 {@link FileChannel}의 일정 구간을 다른 {@link FileChannel}로 보내면서 CRC-32를
+	 * 계산하는 메소드
+	 * 
+	 * 데이터는 {@link FileChannel#transferTo}로 커널 안에서 바로 복사하고, CRC-32는 방금 보낸
+	 * 구간을 블록 버퍼로 다시 읽어서 따로 계산합니다. 메모리에 매핑하면 매핑이 풀릴 때까지
+	 * Windows에서 원본 파일을 자르거나 바꿀 수 없으므로 매핑하지 않습니다. 블록 크기보다 작은
+	 * 구간은 블록 버퍼를 거쳐서 바로 보냅니다.
+	 * 
+	 * @param in
+	 *            원본 {@link FileChannel}
+	 * @param position
+	 *            원본 위치
+	 * @param length
+	 *            보낼 바이트 수
+	 * @param out
+	 *            대상 {@link FileChannel} (현재 위치부터 씀)
+	 * @param crc
+	 *            보낸 데이터로 갱신할 {@link CRC32}
+	 * @throws IOException
+	 */
+	public void transfer(FileChannel in, long position, long length,
+			FileChannel out, CRC32 crc) throws IOException {
+		final long start = System.nanoTime();
+
+		long count = 0;
+
+		try {
+			if (length < BLOCK_SIZE) {
+				// 작은 구간은 블록 버퍼를 거쳐서 보냄
+				ByteBuffer block = ByteBuffer.wrap(buffer, 0, (int) length);
+				while (block.hasRemaining())
+					if (in.read(block, position + block.position()) == -1)
+						throw new EOFException();
+
+				crc.update(buffer, 0, (int) length);
+
+				block.flip();
+				while (block.hasRemaining())
+					out.write(block);
+
+				count = length;
+
+				return;
+			}
+
+			while (count < length) {
+				final long n = Math.min(TRANSFER_SIZE, length - count);
+
+				long sent = 0;
+				while (sent < n) {
+					final long m = in.transferTo(position + count + sent, n
+							- sent, out);
+					if (m <= 0)
+						throw new EOFException();
+
+					sent += m;
+				}
+
+				// 커널이 방금 읽은 페이지를 다시 읽어서 CRC-32 계산
+				long checked = 0;
+				while (checked < n) {
+					ByteBuffer block = ByteBuffer.wrap(buffer, 0, (int) Math
+							.min(BLOCK_SIZE, n - checked));
+
+					while (block.hasRemaining())
+						if (in.read(block, position + count + checked
+								+ block.position()) == -1)
+							throw new EOFException();
+
+					crc.update(buffer, 0, block.position());
+					checked += block.position();
+				}
+
+				count += n;
+			}
+		} finally {
+			bytes += count;
+			nanoTime += System.nanoTime() - start;
+		}
+	}
+
+	/**
+	 * 지금까지 전송한 바이트 수를 반환하는 메소드
+	 * 
+	 * @return 전송한 바이트 수
+	 */
+	public long getBytes() {
+		return bytes;
+	}
+
+	/**
+	 * 지금까지의 전송 속도를 반환하는 메소드
+	 * 
+	 * @return 초당 전송한 바이트 수, 전송한 적이 없으면 0
+	 */
+	public long getThroughput() {
+		if (nanoTime <= 0)
+			return 0;
+
+		return (long) (bytes * 1000000000.0 / nanoTime);
+	}
+
+	/**
+	 * 전송 통계를 초기화하는 메소드
+	 */
+	public void reset() {
+		bytes = 0;
+		nanoTime = 0;
+	}
+
+	/**
+	 * 전송 통계를 문자열로 반환하는 메소드
+	 * 
+	 * @return 전송 통계를 표현하는 문자열
+	 */
+	@Override
+	public String toString() {
+		NumberFormat nf = NumberFormat.getInstance();
+		nf.setMaximumFractionDigits(2);
+
+		return Zip.getSizeString(bytes) + " ("
+				+ Zip.getSizeString(getThroughput()) + "/초, "
+				+ nf.format(nanoTime / 1000000000.0) + "초)";
+	}
+}
@@ -3,27 +3,32 @@
  */
 package com.github.seungwon0.JZip;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.text.DateFormat;
 import java.text.NumberFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
-import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
 
-
-import org.apache.tools.zip.ZipEntry;
-import org.apache.tools.zip.ZipFile;
-import org.apache.tools.zip.ZipOutputStream;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.custom.BusyIndicator;
 import org.eclipse.swt.program.Program;
@@ -36,12 +41,88 @@ import com.github.seungwon0.JZip.ProgressDialog.ProgressMode;
 /**
  * Zip 파일 대한 정보를 담고 있는 클래스
  * 
+ * 항목들을 읽어들일 때 디렉토리마다 부모 디렉토리와 바로 아래 항목들을 가진 트리를 한 번
+ * 만들어 두므로, 디렉토리로 보기에서 현재 디렉토리의 항목을 찾거나 하위 디렉토리의 모든 항목을
+ * 모을 때 전체 항목을 훑지 않습니다. 디렉토리마다의 합계는 노드 번호로 찾는 배열에 두고, 제자리에서
+ * 더하거나 지우거나 이름을 바꾼 뒤에는 바뀐 항목만 트리와 합계에 반영합니다.
+ * 
+ * 항목의 정보는 {@link EntryStore}에 기본형 배열로 담고 항목 번호로 가리킵니다. 정렬, 선택,
+ * 삭제할 항목 모으기는 모두 항목 번호의 int 배열과 {@link BitSet}으로 합니다.
+ * 
+ * 정렬은 테이블에 보이는 항목들만 하고, 디렉토리마다 정렬 기준별로 결과를 들고 있으므로 같은
+ * 디렉토리를 같은 기준으로 다시 보면 정렬하지 않습니다.
+ * 
  * @author Seungwon Jeong
  * 
  */
 public class Zip {
+
+	/**
+	 * Zip 파일 내 디렉토리 트리의 노드
+	 * 
+	 * @author Seungwon Jeong
+	 * 
+	 */
+	private static class Node {
+		private final int index; // 노드 번호
+
+		private final String name; // 디렉토리 항목 이름, 최상위 디렉토리이면 ""
+
+		private int entry; // 디렉토리 항목 번호, 최상위 디렉토리이거나 빠진 디렉토리이면 -1
+
+		private Node parent; // 부모 디렉토리, 최상위 디렉토리이면 null
+
+		private int[] children = new int[4]; // 바로 아래 항목 번호들 (더한 순서)
+
+		private int childCount; // 바로 아래 항목의 숫자
+
+		// 정렬 기준마다 정렬된 바로 아래 항목 번호들
+		private HashMap<Integer, int[]> sortedChildren;
+
+		public Node(int index, String name, int entry) {
+			this.index = index;
+			this.name = name;
+			this.entry = entry;
+		}
+
+		/**
+		 * 바로 아래 항목을 추가하는 메소드
+		 * 
+		 * @param id
+		 *            항목 번호
+		 */
+		public void addChild(int id) {
+			if (childCount == children.length)
+				children = Arrays.copyOf(children, childCount * 2);
+
+			children[childCount++] = id;
+		}
+	}
+
+	/**
+	 * 정렬할 배열에서의 위치로 두 항목을 비교하는 인터페이스
+	 * 
+	 * @author Seungwon Jeong
+	 * 
+	 */
+	private interface IndexComparator {
+		public int compare(int index1, int index2);
+	}
+
 	private static final String defaultEncoding = "MS949"; // 기본 인코딩 : MS949
 
+	private static final int SORT_NONE = 0; // 정렬하지 않음 (항목 번호 순서)
+
+	private static final int SORT_NAME = 1; // 이름으로 정렬
+
+	private static final int SORT_PATH = 2; // 위치로 정렬
+
+	private static final int SORT_SIZE = 3; // 크기로 정렬
+
+	private static final int SORT_TIME = 4; // 바뀐 시간으로 정렬
+
+	private static final int SORT_TYPE = 5; // 형태로 정렬
+
 	/**
 	 * 새로운(빈) Zip 파일을 생성하는 메소드
 	 * 
@@ -50,14 +131,8 @@ public class Zip {
 	 */
 	public static void createNew(File saveFile) {
 		try {
-			ZipOutputStream zos = new ZipOutputStream(saveFile);
-
-			try {
-				// 인코딩 설정
-				zos.setEncoding(defaultEncoding);
-			} finally {
-				zos.finish();
-			}
+			// 기본 인코딩으로 빈 Zip 파일 생성
+			new ZipWriter(saveFile, defaultEncoding).finish();
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
@@ -118,27 +193,60 @@ public class Zip {
 
 	private File file; // Zip 파일
 
-	private ZipFile zipFile; // ZipFile 객체
+	private ZipReader reader; // Zip 파일의 중앙 디렉토리
+
+	private EntryStore store; // 항목들의 정보 (항목 번호로 찾음)
+
+	private int sortColumn = SORT_NONE; // 정렬 기준
+
+	private boolean sortReverse; // 역순 여부
 
-	private ArrayList<ZipEntry> entryList; // ZipEntry의 ArrayList
+	private int dirOrder; // 디렉토리를 앞(1)이나 뒤(-1)로 모음, 0이면 모으지 않음
+
+	// 모든 파일 보기에서 정렬 기준마다 정렬된 항목 번호들
+	private HashMap<Integer, int[]> orderCache;
 
 	private String path; // Zip 파일 내의 경로
 
+	// 디렉토리 항목 이름마다의 디렉토리 트리 노드 (최상위 디렉토리는 "")
+	private HashMap<String, Node> dirMap;
+
+	private ArrayList<Node> nodeList; // 노드 번호 순서대로의 디렉토리 트리 노드
+
+	private long[] dirSizes; // 노드마다 하위 디렉토리까지 모든 파일의 실제 크기 합
+
+	private long[] dirCompressedSizes; // 노드마다 하위 디렉토리까지 모든 파일의 압축된 크기 합
+
+	private int[] dirFileCounts; // 노드마다 하위 디렉토리까지 모든 파일의 숫자
+
+	// 테이블에 보이는 항목 번호들 (현재 경로의 항목들을 정렬된 순서로, 아직 안 정했으면 null)
+	private int[] view;
+
 	private int originalSize; // Zip 파일 내 항목의 숫자
 
+	private final Transfer transfer = new Transfer(); // 블록 단위 데이터 전송
+
+	private int level = Deflater.DEFAULT_COMPRESSION; // 더하는 파일의 압축 수준
+
+	private boolean update; // 바뀐 파일만 더할지의 여부
+
+	private boolean compareCrc; // 바뀐 파일을 찾을 때 CRC-32도 비교할지의 여부
+
+	private String duplicateString = "없음"; // 마지막으로 더할 때의 중복 제거 결과
+
 	/**
 	 * {@link Zip} 클래스의 생성자
 	 * 
 	 * @param file
 	 *            {@link File}
-	 * @param zipFile
-	 *            {@link ZipFile}
+	 * @param reader
+	 *            {@link ZipReader}
 	 * @param dir
 	 *            디렉토리로 보기 여부
 	 */
-	public Zip(File file, ZipFile zipFile, boolean dir) {
+	public Zip(File file, ZipReader reader, boolean dir) {
 		this.file = file;
-		this.zipFile = zipFile;
+		this.reader = reader;
 
 		path = (dir) ? "" : null;
 
@@ -175,8 +283,14 @@ public class Zip {
 			// 덮어 쓰기 설정
 			private Overwrite overwrite = Overwrite.NO;
 
-			// 삭제할 엔트리 인덱스들의 HashSet
-			private HashSet<Integer> indexSet;
+			// 삭제할 항목 번호들
+			private BitSet deleteSet;
+
+			// 바뀌지 않아서 더하지 않을 항목 이름들의 HashSet (갱신 모드)
+			private HashSet<String> skipSet;
+
+			// 더할 파일 및 디렉토리의 숫자 (갱신 모드)
+			private int addCount;
 
 			/**
 			 * 실제로 파일을 추가하는 메소드
@@ -185,81 +299,191 @@ public class Zip {
 			 *            Shell
 			 */
 			private void addFile(Shell shell) {
-				final String encoding = zipFile.getEncoding(); // 인코딩
+				final String encoding = reader.getEncoding(); // 인코딩
 
-				// 임시 디렉토리 생성
-				JZip.createTmpDir();
+				transfer.reset();
 
-				// 임시 파일
-				File tempFile = new File(JZip.tmpDir, file.getName());
+				// 제자리에서 고쳤는지의 여부
+				boolean edited = false;
 
-				// 임시 Zip 파일 생성
-				ZipOutputStream zos = null;
-				try {
-					zos = new ZipOutputStream(tempFile);
+				if (deleteSet.isEmpty()) {
+					// 덮어쓸 항목이 없는 경우
+					releaseReader();
 
-					try {
-						zos.setEncoding(encoding);
+					edited = append(shell, encoding);
+				} else {
+					// 덮어쓸 항목이 있는 경우
 
-						for (int i = 0; i < entryList.size(); i++) {
-							if (indexSet.contains(i))
-								continue;
+					// 덮어쓸 항목들의 로컬 헤더 위치
+					HashSet<Long> offsetSet = getOffsetSet(deleteSet);
 
-							ZipEntry originalEntry = entryList.get(i);
+					ZipEditor editor = null;
+					try {
+						editor = new ZipEditor(file, encoding, transfer);
+					} catch (IOException e) {
+						// 제자리에서 고칠 수 없는 경우
+						editor = null;
+					}
 
-							ZipEntry entry = new ZipEntry(originalEntry
-									.getName());
+					if (editor != null && editor.canDelete(offsetSet)) {
+						// 덮어쓸 항목들이 Zip 파일 끝에 모여 있으면 제자리에서 삭제한 뒤 덧붙임
+						releaseReader();
 
-							// 바뀐 시간 설정
-							long time = originalEntry.getTime();
-							if (time != -1)
-								entry.setTime(time);
+						try {
+							editor.delete(offsetSet);
 
-							zos.putNextEntry(entry);
+							edited = append(shell, encoding);
+						} catch (IOException e) {
+							e.printStackTrace();
 
-							if (!originalEntry.isDirectory())
-								// 파일인 경우
-								archive(zipFile.getInputStream(originalEntry),
-										zos);
+							if (!editor.isModified()) {
+								// Zip 파일을 고치기 전에 실패한 경우 새로 만듦
+								try {
+									reopenReader();
 
-							zos.closeEntry();
+									rewrite(shell, encoding);
+								} catch (IOException e1) {
+									e1.printStackTrace();
+								}
+							}
 						}
+					} else {
+						rewrite(shell, encoding);
+					}
+				}
+
+				// Zip 파일 새로 고침
+				if (edited)
+					update(encoding, deleteSet, new BitSet());
+				else
+					reload(encoding);
+			}
+
+			/**
+			 * 기존 항목은 그대로 두고 새로운 항목만 Zip 파일 끝에 덧붙이는 메소드
+			 * 
+			 * 새로운 항목과 중앙 디렉토리만 Zip 파일 끝에 쓰고, 새로운 중앙 디렉토리가 완성된
+			 * 뒤에야 기존 중앙 디렉토리 자리로 옮겨서 Zip 파일을 잘라냅니다.
+			 * 
+			 * @param shell
+			 *            Shell
+			 * @param encoding
+			 *            인코딩
+			 * @return 새로운 중앙 디렉토리까지 썼으면 true
+			 */
+			private boolean append(Shell shell, String encoding) {
+				try {
+					ZipWriter writer = null;
+
+					ZipReader reader = new ZipReader(file, encoding);
+					try {
+						writer = new ZipWriter(file, encoding, reader
+								.getRecords(), reader
+								.getCentralDirectoryOffset(), transfer);
+					} finally {
+						reader.close();
+					}
 
+					try {
 						// 추가할 파일 및 디렉토리를 추가
-						addFileNDir(shell, zos, files, path);
+						addFileNDir(shell, writer, files);
 					} finally {
-						zos.finish();
+						writer.finish();
 					}
+
+					return true;
 				} catch (IOException e) {
 					e.printStackTrace();
+
+					return false;
 				}
+			}
 
-				// 임시 파일을 현재 파일로 복사
-				copyFile(tempFile, file);
+			/**
+			 * 덮어쓸 항목을 뺀 기존 항목과 새로운 항목으로 Zip 파일을 새로 만드는 메소드
+			 * 
+			 * @param shell
+			 *            Shell
+			 * @param encoding
+			 *            인코딩
+			 */
+			private void rewrite(Shell shell, String encoding) {
+				// 임시 Zip 파일 (Zip 파일과 같은 디렉토리에 생성)
+				File tempFile = null;
 
-				// Zip 파일 새로 고침
 				try {
-					zipFile = new ZipFile(file, encoding);
+					tempFile = createTempFile(file);
+
+					ZipWriter writer = new ZipWriter(tempFile, encoding);
+
+					try {
+						for (int id = 0; id < store.size(); id++) {
+							if (deleteSet.get(id))
+								continue;
+
+							copyEntry(reader, writer, id, store.getName(id));
+						}
+
+						// 추가할 파일 및 디렉토리를 추가
+						addFileNDir(shell, writer, files);
+					} finally {
+						writer.finish();
+					}
+
+					// 임시 파일로 현재 파일을 바꿈
+					replaceFile(tempFile, file);
 				} catch (IOException e) {
 					e.printStackTrace();
+
+					if (tempFile != null)
+						tempFile.delete();
 				}
+			}
+
+			/**
+			 * {@link ZipWriter}에 파일을 추가하는 메소드
+			 * 
+			 * 파일들은 여러 스레드에서 동시에 압축되고 더한 순서대로 {@link ZipWriter}에
+			 * 쓰입니다.
+			 * 
+			 * @param shell
+			 *            {@link Shell}
+			 * @param writer
+			 *            {@link ZipWriter}
+			 * @param files
+			 *            더할 파일들
+			 */
+			private void addFileNDir(Shell shell, ZipWriter writer,
+					File[] files) {
+				ZipCompressor compressor = new ZipCompressor(writer, transfer,
+						level);
+
+				try {
+					addFileNDir(shell, compressor, files, path);
+				} finally {
+					try {
+						compressor.finish();
+					} catch (IOException e) {
+						e.printStackTrace();
+					}
 
-				loadEntries();
+					duplicateString = compressor.getDuplicateString();
+				}
 			}
 
 			/**
-			 * {@link ZipOutputStream}에 파일을 추가하는 메소드
+			 * {@link ZipCompressor}에 파일을 추가하는 메소드
 			 * 
 			 * @param shell
 			 *            {@link Shell}
-			 * @param zos
-			 *            {@link ZipOutputStream}
+			 * @param compressor
+			 *            {@link ZipCompressor}
 			 * @param files
 			 *            더할 파일들
 			 * @param parent
 			 *            부모 엔트리 이름
 			 */
-			private void addFileNDir(Shell shell, ZipOutputStream zos,
+			private void addFileNDir(Shell shell, ZipCompressor compressor,
 					File[] files, String parent) {
 				for (File file : files) {
 					if (file == null)
@@ -279,21 +503,18 @@ public class Zip {
 					if (file.isDirectory()) {
 						// 디렉토리인 경우
 
-						// 추가할 디렉토리 엔트리
-						ZipEntry entry = null;
-						if (parent == null)
-							entry = new ZipEntry(file.getName() + "/");
-						else
-							entry = new ZipEntry(parent + file.getName() + "/");
-
-						entry.setTime(file.lastModified());
-
-						try {
-							zos.putNextEntry(entry);
-
-							zos.closeEntry();
-						} catch (IOException e) {
-							e.printStackTrace();
+						// 추가할 디렉토리 엔트리 이름
+						String name = file.getName() + "/";
+						if (parent != null)
+							name = parent + name;
+
+						if (skipSet == null || !skipSet.contains(name)) {
+							try {
+								compressor.addDirectory(name, file
+										.lastModified());
+							} catch (IOException e) {
+								e.printStackTrace();
+							}
 						}
 
 						// 부모 디렉토리의 이름
@@ -302,26 +523,23 @@ public class Zip {
 							parentName = parent + parentName;
 
 						// 하위 디렉토리의 모든 파일과 디렉토리도 추가함
-						addFileNDir(shell, zos, file.listFiles(), parentName);
+						addFileNDir(shell, compressor, file.listFiles(),
+								parentName);
 					} else {
 						// 파일인 경우
 
-						// 추가할 파일 엔트리
-						ZipEntry entry = null;
-						if (parent == null)
-							entry = new ZipEntry(file.getName());
-						else
-							entry = new ZipEntry(parent + file.getName());
+						// 추가할 파일 엔트리 이름
+						String name = file.getName();
+						if (parent != null)
+							name = parent + name;
 
-						entry.setTime(file.lastModified());
+						if (skipSet != null && skipSet.contains(name))
+							// 바뀌지 않은 파일은 기존 항목을 그대로 둠
+							continue;
 
 						// 압축
 						try {
-							zos.putNextEntry(entry);
-
-							archive(new FileInputStream(file), zos);
-
-							zos.closeEntry();
+							compressor.addFile(file, name);
 						} catch (IOException e) {
 							e.printStackTrace();
 						}
@@ -371,9 +589,14 @@ public class Zip {
 
 			/**
 			 * 삭제할 엔트리를 구하는 메소드
+			 * 
+			 * 더할 파일과 이름이 같은 항목은 더할 위치의 바로 아래 항목들 중에서만 찾습니다.
 			 */
-			private void getIndexSet() {
-				indexSet = new HashSet<Integer>();
+			private void getDeleteSet() {
+				deleteSet = new BitSet();
+
+				// 더할 파일들이 들어갈 디렉토리
+				final Node node = dirMap.get((path == null) ? "" : path);
 
 				for (int i = 0; i < files.length; i++) {
 					if (files[i] == null)
@@ -388,18 +611,17 @@ public class Zip {
 					// 확인할 디렉토리 이름
 					String dirName = fileName + "/";
 
-					for (int j = 0; j < entryList.size(); j++) {
-						// ZipEntry
-						ZipEntry zipEntry = entryList.get(j);
+					for (int j = 0; j < node.childCount; j++) {
+						final int id = node.children[j];
 
 						// 엔트리 이름
-						String entryName = zipEntry.getName();
+						String entryName = store.getName(id);
 
 						if (entryName.equals(fileName)) {
 							// 같은 이름을 가진 파일이 이미 존재하는 경우
 
 							if (checkOverwrite(fileName)) {
-								indexSet.add(j);
+								deleteSet.set(id);
 							} else {
 								if (overwrite == Overwrite.CANCEL)
 									return;
@@ -410,22 +632,10 @@ public class Zip {
 							// 같은 이름을 가진 디렉토리가 이미 존재하는 경우
 
 							if (checkOverwrite(dirName)) {
-								indexSet.add(j);
-
-								for (int k = 0; k < entryList.size(); k++) {
-									String parent = getParentEntryName(entryList
-											.get(k));
-
-									while (parent.length() != 0) {
-										if (parent.equals(dirName)) {
-											indexSet.add(k);
-
-											break;
-										}
+								deleteSet.set(id);
 
-										parent = getParentEntryName(parent);
-									}
-								}
+								// 모든 하위 디렉토리의 엔트리 추가
+								addSubtree(id, deleteSet);
 							} else {
 								if (overwrite == Overwrite.CANCEL)
 									return;
@@ -437,6 +647,86 @@ public class Zip {
 				}
 			}
 
+			/**
+			 * 갱신 모드에서 바뀐 파일의 엔트리와 바뀌지 않은 파일을 구하는 메소드
+			 * 
+			 * 바뀐 파일의 엔트리는 삭제할 엔트리로, 바뀌지 않은 파일과 이미 있는 디렉토리는 더하지
+			 * 않을 항목으로 정합니다.
+			 */
+			private void getUpdateSet() {
+				deleteSet = new BitSet();
+				skipSet = new HashSet<String>();
+				addCount = 0;
+
+				// 엔트리 이름으로 항목 번호 찾기
+				HashMap<String, Integer> idMap = new HashMap<String, Integer>();
+				for (int id = 0; id < store.size(); id++)
+					idMap.put(store.getName(id), id);
+
+				getUpdateSet(files, path, idMap);
+			}
+
+			/**
+			 * 갱신 모드에서 파일들과 하위 디렉토리의 파일들을 기존 엔트리와 비교하는 메소드
+			 * 
+			 * @param files
+			 *            비교할 파일들
+			 * @param parent
+			 *            부모 엔트리 이름
+			 * @param idMap
+			 *            엔트리 이름을 키로, 항목 번호를 값으로 하는 {@link HashMap}
+			 */
+			private void getUpdateSet(File[] files, String parent,
+					HashMap<String, Integer> idMap) {
+				for (File file : files) {
+					if (file == null)
+						continue;
+
+					String name = file.getName();
+					if (parent != null)
+						name = parent + name;
+
+					if (file.isDirectory()) {
+						// 디렉토리인 경우
+						name += "/";
+
+						if (idMap.containsKey(name))
+							skipSet.add(name);
+						else
+							addCount++;
+
+						File[] children = file.listFiles();
+						if (children != null)
+							getUpdateSet(children, name, idMap);
+
+						continue;
+					}
+
+					final Integer id = idMap.get(name);
+
+					if (id == null || !file.canRead()) {
+						// 새로운 파일이거나 읽을 수 없는 파일 (기존 항목은 그대로 둠)
+						addCount++;
+
+						continue;
+					}
+
+					try {
+						if (isUnchanged(file, id)) {
+							skipSet.add(name);
+						} else {
+							deleteSet.set(id);
+							addCount++;
+						}
+					} catch (IOException e) {
+						e.printStackTrace();
+
+						// 비교할 수 없는 파일은 기존 항목을 그대로 둠
+						skipSet.add(name);
+					}
+				}
+			}
+
 			public void run() {
 				files = new File[filePaths.length];
 
@@ -457,7 +747,22 @@ public class Zip {
 					}
 				}
 
-				getIndexSet();
+				if (update) {
+					getUpdateSet();
+
+					if (addCount == 0) {
+						// 바뀐 파일이 없는 경우
+						MessageBox messageBox = new MessageBox(shell, SWT.OK
+								| SWT.ICON_INFORMATION);
+						messageBox.setText("파일 또는 디렉토리 더하기");
+						messageBox.setMessage("바뀐 파일이 없어서 더할 것이 없습니다.");
+						messageBox.open();
+
+						return;
+					}
+				} else {
+					getDeleteSet();
+				}
 
 				if (overwrite == Overwrite.CANCEL) {
 					// 파일 또는 디렉토리 더하기 취소
@@ -485,29 +790,30 @@ public class Zip {
 	}
 
 	/**
-	 * {@link InputStream}을 {@link ZipOutputStream}으로 보내는 메소드
+	 * 파일이 {@link ZipEntry}를 만든 뒤로 바뀌지 않았는지 확인하는 메소드
 	 * 
-	 * @param is
-	 *            {@link InputStream}
-	 * @param zos
-	 *            {@link ZipOutputStream}
+	 * Zip 파일에는 바뀐 시간이 2초 단위로 기록되므로 2초보다 작은 차이는 무시합니다.
+	 * 
+	 * @param file
+	 *            비교할 {@link File}
+	 * @param id
+	 *            같은 이름의 항목 번호
+	 * @return 크기와 바뀐 시간(CRC-32도 비교하는 경우 CRC-32까지)이 같으면 true
+	 * @throws IOException
 	 */
-	private void archive(InputStream is, ZipOutputStream zos) {
-		try {
-			BufferedInputStream bis = new BufferedInputStream(is);
-			BufferedOutputStream bos = new BufferedOutputStream(zos);
+	private boolean isUnchanged(File file, int id) throws IOException {
+		if (file.length() != store.getSize(id))
+			return false;
 
-			try {
-				int i;
-				while ((i = bis.read()) != -1)
-					bos.write(i);
-			} finally {
-				bis.close();
-				bos.flush();
-			}
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
+		if (Math.abs(file.lastModified() - store.getTime(id)) >= 2000)
+			return false;
+
+		if (!compareCrc)
+			return true;
+
+		ZipRecord record = store.getEntry(id).getRecord();
+
+		return (record != null) && (getCrc(file) == record.getCrc());
 	}
 
 	/**
@@ -520,179 +826,732 @@ public class Zip {
 	}
 
 	/**
-	 * 테이블의 인덱스를 {@link ZipEntry} {@link ArrayList}의 인덱스로 바꿔주는 메소드
-	 * 
-	 * @param index
-	 *            테이블의 인덱스
-	 * @return {@link ZipEntry} {@link ArrayList}의 인덱스
+	 * Zip 파일을 닫는 메소드
 	 */
-	private int convertIndex(int index) {
-		int newIndex = 0;
-
-		// 인덱스 변환
-		for (ZipEntry entry : entryList) {
-			if (getParentEntryName(entry).equals(path)) {
-				if (index == 0)
-					break;
-				else
-					index--;
-			}
-
-			newIndex++;
-		}
+	public void close() {
+		reader.close();
+	}
 
-		return newIndex;
+	/**
+	 * 제자리에서 고치거나 바꾸기 전에 읽고 있던 Zip 파일을 닫는 메소드
+	 * 
+	 * Windows에서는 다른 곳에서 열려있는 파일을 바꿀 수 없습니다. 중앙 디렉토리는 메모리에 읽어
+	 * 두었으므로 닫은 뒤에도 항목 정보는 그대로 쓸 수 있고, Zip 파일은
+	 * {@link #reload(String)}에서 다시 엽니다.
+	 */
+	private void releaseReader() {
+		reader.close();
 	}
 
 	/**
-	 * 파일을 복사하는 메소드
+	 * {@link #releaseReader()}로 닫았던 Zip 파일을 다시 여는 메소드
 	 * 
-	 * @param input
-	 *            원본 {@link File}
-	 * @param output
-	 *            대상 {@link File}
+	 * 중앙 디렉토리는 다시 읽지 않으므로 Zip 파일이 바뀌지 않은 경우에만 사용합니다.
+	 * 
+	 * @throws IOException
 	 */
-	private void copyFile(File input, File output) {
-		try {
-			BufferedInputStream bis = new BufferedInputStream(
-					new FileInputStream(input));
-			BufferedOutputStream bos = new BufferedOutputStream(
-					new FileOutputStream(output));
+	private void reopenReader() throws IOException {
+		reader = new ZipReader(reader);
+	}
 
-			try {
-				int i;
-				while ((i = bis.read()) != -1)
-					bos.write(i);
-			} finally {
-				bis.close();
-				bos.close();
-			}
-		} catch (FileNotFoundException e) {
-			e.printStackTrace();
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
+	/**
+	 * 테이블의 인덱스에 해당하는 항목 번호를 반환하는 메소드
+	 *
+	 * @param index
+	 *            테이블의 인덱스
+	 * @return 항목 번호
+	 */
+	private int getId(int index) {
+		return getView()[index];
 	}
 
 	/**
-	 * {@link ZipEntry}를 삭제하는 메소드
-	 * 
-	 * @param shell
-	 *            {@link Shell}
+	 * 테이블의 인덱스들에 해당하는 항목과 디렉토리이면 하위 디렉토리의 모든 항목까지 모으는 메소드
+	 *
 	 * @param indices
-	 *            테이블의 인덱스
+	 *            테이블의 인덱스 배열
+	 * @return 모은 항목 번호들
 	 */
-	public void delete(Shell shell, final int[] indices) {
-		BusyIndicator.showWhile(shell.getDisplay(), new Runnable() {
+	private BitSet getSelection(int[] indices) {
+		BitSet selection = new BitSet(store.size());
 
-			// 삭제할 항목들의 인덱스에 대한 ArrayList
-			private ArrayList<Integer> indexList;
+		for (int index : indices) {
+			final int id = getId(index);
 
-			/**
-			 * 삭제할 항목들에 대한 인덱스 리스트를 구하는 메소드
-			 * 
-			 * @param indices
-			 *            테이블의 인덱스 배열
-			 */
-			private void getIndexList(final int[] indices) {
-				indexList = new ArrayList<Integer>(indices.length);
+			selection.set(id);
 
-				if (path != null) {
-					// 디렉토리로 보기인 경우
+			if (path != null)
+				// 디렉토리로 보기인 경우 모든 하위 디렉토리의 엔트리 추가
+				addSubtree(id, selection);
+		}
 
-					// 인덱스 변환
-					for (int i = 0; i < indices.length; i++)
-						indices[i] = convertIndex(indices[i]);
+		return selection;
+	}
 
-					for (int index : indices) {
-						ZipEntry dirEntry = entryList.get(index);
+	/**
+	 * 디렉토리 항목의 하위 디렉토리에 있는 모든 항목을 더하는 메소드
+	 *
+	 * @param dirId
+	 *            디렉토리 항목 번호, 파일 항목이면 아무 것도 더하지 않음
+	 * @param selection
+	 *            항목 번호들을 더할 {@link BitSet}
+	 */
+	private void addSubtree(int dirId, BitSet selection) {
+		if (!store.isDirectory(dirId))
+			return;
 
-						if (dirEntry.isDirectory()) {
-							// 디렉토리인 경우
+		final Node node = dirMap.get(store.getName(dirId));
 
-							// 모든 하위 디렉토리의 엔트리 추가
-							final String dirName = dirEntry.getName();
+		if (node == null || node.entry != dirId)
+			// 이름이 같은 디렉토리 항목이 앞에 있는 경우
+			return;
 
-							for (int i = 0; i < entryList.size(); i++) {
-								String entryPath = getParentEntryName(entryList
-										.get(i));
+		for (int i = 0; i < node.childCount; i++) {
+			final int child = node.children[i];
 
-								while (entryPath.length() != 0) {
-									if (entryPath.equals(dirName)) {
-										indexList.add(i);
+			selection.set(child);
 
-										break;
-									}
+			addSubtree(child, selection);
+		}
+	}
 
-									entryPath = getParentEntryName(entryPath);
-								}
-							}
-						}
-					}
+	/**
+	 * 항목 번호들에 해당하는 항목들의 로컬 헤더 위치를 반환하는 메소드
+	 *
+	 * 이름이 같은 항목이 여러 개 있어도 고른 항목만 가리키도록 이름 대신 위치를 씁니다.
+	 *
+	 * @param selection
+	 *            항목 번호들
+	 * @return 로컬 헤더 위치들의 {@link HashSet}
+	 */
+	private HashSet<Long> getOffsetSet(BitSet selection) {
+		HashSet<Long> offsetSet = new HashSet<Long>();
+
+		for (int id = selection.nextSetBit(0); id >= 0; id = selection
+				.nextSetBit(id + 1)) {
+			ZipRecord record = store.getEntry(id).getRecord();
+
+			if (record != null)
+				// Zip 파일에 없는 디렉토리 항목은 지울 것이 없음
+				offsetSet.add(record.getLocalHeaderOffset());
+		}
+
+		return offsetSet;
+	}
+
+	/**
+	 * 디렉토리 트리를 만드는 메소드
+	 *
+	 * 디렉토리 항목이 빠진 디렉토리도 노드를 만들고, 디렉토리로 보기인 경우에는 빠진 디렉토리
+	 * 항목을 {@link EntryStore}에 추가합니다.
+	 */
+	private void buildTree() {
+		dirMap = new HashMap<String, Node>();
+		nodeList = new ArrayList<Node>();
+
+		dirSizes = new long[16];
+		dirCompressedSizes = new long[16];
+		dirFileCounts = new int[16];
+
+		addNode("", -1);
+
+		// 빠진 디렉토리 항목은 끝에 추가되므로 원래 항목들만 훑음
+		final int size = store.size();
+
+		// 디렉토리 항목들의 노드를 먼저 만듦
+		for (int id = 0; id < size; id++) {
+			if (store.isDirectory(id)) {
+				final String name = store.getName(id);
+
+				if (!dirMap.containsKey(name))
+					addNode(name, id);
+			}
+		}
+
+		for (int id = 0; id < size; id++) {
+			final String name = store.getName(id);
+
+			final Node parent = getDirNode(getParentEntryName(name));
+			parent.addChild(id);
+			store.setParent(id, parent.index);
+
+			if (store.isDirectory(id)) {
+				final Node node = dirMap.get(name);
+				store.setNode(id, node.index);
+
+				if (node.entry == id)
+					node.parent = parent;
+			} else {
+				// 파일인 경우 부모 디렉토리의 합계에 더함
+				dirSizes[parent.index] += store.getSize(id);
+				dirCompressedSizes[parent.index] += store.getCompressedSize(id);
+				dirFileCounts[parent.index]++;
+			}
+		}
+
+		// 하위 디렉토리의 이름이 더 길므로 긴 이름부터 부모 디렉토리의 합계에 더함
+		ArrayList<Node> sortedList = new ArrayList<Node>(nodeList);
+		Collections.sort(sortedList, new Comparator<Node>() {
+
+			public int compare(Node o1, Node o2) {
+				return o2.name.length() - o1.name.length();
+			}
+
+		});
+
+		for (Node node : sortedList) {
+			if (node.parent != null) {
+				dirSizes[node.parent.index] += dirSizes[node.index];
+				dirCompressedSizes[node.parent.index] += dirCompressedSizes[node.index];
+				dirFileCounts[node.parent.index] += dirFileCounts[node.index];
+			}
+		}
+
+		orderCache = new HashMap<Integer, int[]>();
+
+		updateView();
+	}
+
+	/**
+	 * 디렉토리 트리의 노드를 만드는 메소드
+	 *
+	 * @param name
+	 *            디렉토리 항목 이름
+	 * @param entry
+	 *            디렉토리 항목 번호, 없으면 -1
+	 * @return 디렉토리 트리의 노드
+	 */
+	private Node addNode(String name, int entry) {
+		final Node node = new Node(nodeList.size(), name, entry);
+
+		nodeList.add(node);
+		dirMap.put(name, node);
+
+		if (node.index == dirSizes.length) {
+			final int capacity = node.index * 2;
+
+			dirSizes = Arrays.copyOf(dirSizes, capacity);
+			dirCompressedSizes = Arrays.copyOf(dirCompressedSizes, capacity);
+			dirFileCounts = Arrays.copyOf(dirFileCounts, capacity);
+		}
+
+		return node;
+	}
+
+	/**
+	 * 디렉토리 트리의 노드를 반환하는 메소드
+	 *
+	 * 노드가 없으면 디렉토리 항목이 빠진 것이므로 부모 노드까지 만듭니다.
+	 *
+	 * @param name
+	 *            디렉토리 항목 이름
+	 * @return 디렉토리 트리의 노드
+	 */
+	private Node getDirNode(String name) {
+		Node node = dirMap.get(name);
+
+		if (node == null) {
+			// 디렉토리 항목이 빠진 경우
+			final int id = (path != null) ? store.addDirectory(name) : -1;
+
+			node = addNode(name, id);
+
+			node.parent = getDirNode(getParentEntryName(name));
+
+			if (id != -1) {
+				// 디렉토리로 보기인 경우
+				node.parent.addChild(id);
+				store.setParent(id, node.parent.index);
+				store.setNode(id, node.index);
+			}
+		}
+
+		return node;
+	}
+
+	/**
+	 * 항목 번호들을 현재 정렬 기준으로 정렬한 새 배열을 반환하는 메소드
+	 *
+	 * 비교할 값은 정렬할 항목들에 대해서만 미리 구해 둡니다.
+	 *
+	 * @param ids
+	 *            정렬할 항목 번호들
+	 * @param length
+	 *            정렬할 항목의 숫자
+	 * @return 정렬된 항목 번호들
+	 */
+	private int[] sort(int[] ids, int length) {
+		final IndexComparator comparator = getComparator(ids, length);
+
+		if (comparator == null)
+			return Arrays.copyOf(ids, length);
+
+		int[] indices = new int[length];
+		for (int i = 0; i < length; i++)
+			indices[i] = i;
+
+		mergeSort(indices.clone(), indices, 0, length, comparator);
+
+		int[] sorted = new int[length];
+		for (int i = 0; i < length; i++)
+			sorted[i] = ids[indices[i]];
+
+		return sorted;
+	}
+
+	/**
+	 * 현재 정렬 기준으로 항목들을 비교하는 {@link IndexComparator}를 만드는 메소드
+	 *
+	 * @param ids
+	 *            정렬할 항목 번호들
+	 * @param length
+	 *            정렬할 항목의 숫자
+	 * @return {@link IndexComparator}, 정렬하지 않으면 null
+	 */
+	private IndexComparator getComparator(final int[] ids, int length) {
+		IndexComparator comparator = null;
+
+		switch (sortColumn) {
+		case SORT_NAME: {
+			final String[] names = new String[length];
+			for (int i = 0; i < length; i++)
+				names[i] = getName(ids[i]);
+
+			comparator = compareStrings(names);
+
+			break;
+		}
+
+		case SORT_PATH: {
+			final String[] paths = new String[length];
+			for (int i = 0; i < length; i++)
+				paths[i] = getEntryPath(ids[i]);
+
+			comparator = compareStrings(paths);
+
+			break;
+		}
+
+		case SORT_SIZE: {
+			// 디렉토리로 보기의 디렉토리는 하위 디렉토리까지의 크기
+			final long[] sizes = new long[length];
+			for (int i = 0; i < length; i++) {
+				if (path != null && store.isDirectory(ids[i]))
+					sizes[i] = getDirSize(ids[i]);
+				else
+					sizes[i] = store.getSize(ids[i]);
+			}
+
+			comparator = compareLongs(sizes);
+
+			break;
+		}
+
+		case SORT_TIME: {
+			// DOS 형식의 바뀐 시간은 그대로 비교해도 시간 순서와 같음
+			final long[] times = new long[length];
+			for (int i = 0; i < length; i++)
+				times[i] = store.getDosTime(ids[i]);
+
+			comparator = compareLongs(times);
+
+			break;
+		}
+
+		case SORT_TYPE: {
+			final String[] types = new String[length];
+			for (int i = 0; i < length; i++)
+				types[i] = getType(ids[i]);
+
+			comparator = compareStrings(types);
+
+			break;
+		}
+		}
+
+		if (comparator != null && sortReverse) {
+			final IndexComparator forward = comparator;
+
+			comparator = new IndexComparator() {
+
+				public int compare(int index1, int index2) {
+					return forward.compare(index2, index1);
 				}
 
-				for (int index : indices)
-					indexList.add(index);
+			};
+		}
+
+		if (dirOrder != 0) {
+			// 디렉토리인지의 여부를 먼저 비교함
+			final IndexComparator next = comparator;
+			final int order = dirOrder;
+
+			comparator = new IndexComparator() {
+
+				public int compare(int index1, int index2) {
+					final boolean dir1 = store.isDirectory(ids[index1]);
+					final boolean dir2 = store.isDirectory(ids[index2]);
+
+					if (dir1 != dir2)
+						return dir1 ? -order : order;
+
+					return (next == null) ? 0 : next.compare(index1, index2);
+				}
+
+			};
+		}
+
+		if (comparator != null) {
+			// 같은 항목끼리는 항목 번호 순서 (더한 순서와 다를 수 있음)
+			final IndexComparator primary = comparator;
+
+			comparator = new IndexComparator() {
+
+				public int compare(int index1, int index2) {
+					final int result = primary.compare(index1, index2);
+
+					return (result != 0) ? result : ids[index1] - ids[index2];
+				}
+
+			};
+		}
+
+		return comparator;
+	}
+
+	/**
+	 * 미리 구해 둔 문자열로 항목들을 비교하는 {@link IndexComparator}를 만드는 메소드
+	 */
+	private static IndexComparator compareStrings(final String[] keys) {
+		return new IndexComparator() {
+
+			public int compare(int index1, int index2) {
+				return keys[index1].compareTo(keys[index2]);
 			}
 
-			public void run() {
-				getIndexList(indices);
+		};
+	}
 
-				// 임시 디렉토리 생성
-				JZip.createTmpDir();
+	/**
+	 * 미리 구해 둔 long 값으로 항목들을 비교하는 {@link IndexComparator}를 만드는 메소드
+	 */
+	private static IndexComparator compareLongs(final long[] keys) {
+		return new IndexComparator() {
 
-				// 임시 파일
-				File tempFile = new File(JZip.tmpDir, file.getName());
+			public int compare(int index1, int index2) {
+				final long key1 = keys[index1];
+				final long key2 = keys[index2];
 
-				final String encoding = zipFile.getEncoding(); // 인코딩
+				// 차이가 int 범위를 넘어도 잘리지 않도록 직접 비교
+				return (key1 < key2) ? -1 : ((key1 == key2) ? 0 : 1);
+			}
 
-				try {
-					ZipOutputStream zos = new ZipOutputStream(tempFile);
+		};
+	}
 
-					try {
-						zos.setEncoding(encoding);
+	/**
+	 * int 배열의 구간을 안정적으로 정렬하는 메소드
+	 *
+	 * @param src
+	 *            정렬할 구간이 dest와 같은 값을 가진 보조 배열
+	 * @param dest
+	 *            정렬 결과를 담을 배열
+	 * @param low
+	 *            구간의 시작 (포함)
+	 * @param high
+	 *            구간의 끝 (포함 안함)
+	 * @param comparator
+	 *            배열의 값을 비교하는 {@link IndexComparator}
+	 */
+	private static void mergeSort(int[] src, int[] dest, int low, int high,
+			IndexComparator comparator) {
+		final int length = high - low;
+
+		if (length < 7) {
+			// 짧은 구간은 삽입 정렬
+			for (int i = low + 1; i < high; i++) {
+				for (int j = i; j > low
+						&& comparator.compare(dest[j - 1], dest[j]) > 0; j--) {
+					final int t = dest[j];
+					dest[j] = dest[j - 1];
+					dest[j - 1] = t;
+				}
+			}
 
-						for (int i = 0; i < entryList.size(); i++) {
-							if (indexList.contains(i))
-								continue;
+			return;
+		}
+
+		// 두 구간을 src에 정렬한 뒤 dest로 합침
+		final int mid = (low + high) >>> 1;
+		mergeSort(dest, src, low, mid, comparator);
+		mergeSort(dest, src, mid, high, comparator);
 
-							ZipEntry originalEntry = entryList.get(i);
-							ZipEntry entry = new ZipEntry(originalEntry
-									.getName());
+		if (comparator.compare(src[mid - 1], src[mid]) <= 0) {
+			// 이미 정렬되어 있는 경우
+			System.arraycopy(src, low, dest, low, length);
+
+			return;
+		}
 
-							// 바뀐 시간 설정
-							long time = originalEntry.getTime();
-							if (time != -1)
-								entry.setTime(time);
+		for (int i = low, p = low, q = mid; i < high; i++) {
+			if (q >= high || p < mid && comparator.compare(src[p], src[q]) <= 0)
+				dest[i] = src[p++];
+			else
+				dest[i] = src[q++];
+		}
+	}
 
-							zos.putNextEntry(entry);
+	/**
+	 * 테이블에 보이는 항목들을 다시 정하도록 하는 메소드
+	 *
+	 * 현재 경로나 정렬 기준을 바꾼 뒤에 호출합니다. 정렬 기준은 여러 번 이어서 바꿀 수 있으므로
+	 * 정렬은 {@link #getView()}에서 처음 찾을 때 한 번만 합니다.
+	 */
+	private void updateView() {
+		if (path != null && !dirMap.containsKey(path))
+			// 현재 경로가 없어진 경우
+			path = "";
 
-							if (!originalEntry.isDirectory())
-								// 파일인 경우
-								archive(zipFile.getInputStream(originalEntry),
-										zos);
+		view = null;
+	}
+
+	/**
+	 * 테이블에 보이는 항목 번호들을 반환하는 메소드
+	 *
+	 * 현재 경로의 항목들만 정렬하고, 같은 정렬 기준의 결과가 있으면 그대로 씁니다. 테이블의 행마다
+	 * 항목을 찾을 때는 배열에서 바로 읽습니다.
+	 *
+	 * @return 테이블에 보이는 항목 번호들
+	 */
+	private int[] getView() {
+		if (view != null)
+			return view;
+
+		// 정렬 기준, 역순 여부, 디렉토리 모으기를 하나의 키로 만듦
+		final Integer key = Integer.valueOf((sortColumn * 2 + (sortReverse ? 1
+				: 0)) * 3 + dirOrder + 1);
+
+		HashMap<Integer, int[]> cache;
+		int[] ids;
+		int length;
+
+		if (path == null) {
+			// 모든 파일 보기인 경우
+			cache = orderCache;
+
+			length = store.size();
+			ids = null;
+		} else {
+			// 디렉토리로 보기인 경우
+			final Node node = dirMap.get(path);
+
+			if (node.sortedChildren == null)
+				node.sortedChildren = new HashMap<Integer, int[]>();
+
+			cache = node.sortedChildren;
+
+			length = node.childCount;
+			ids = node.children;
+		}
+
+		view = cache.get(key);
+
+		if (view == null) {
+			if (ids == null) {
+				ids = new int[length];
+				for (int id = 0; id < length; id++)
+					ids[id] = id;
+			}
+
+			view = sort(ids, length);
+
+			cache.put(key, view);
+		}
+
+		return view;
+	}
+
+	/**
+	 * 대상 파일과 같은 디렉토리에 임시 파일을 만드는 메소드
+	 * 
+	 * 같은 파일 시스템에 만들어야 복사 없이 {@link #replaceFile(File, File)}로 바꿀 수
+	 * 있습니다.
+	 * 
+	 * @param target
+	 *            대상 {@link File}
+	 * @return 임시 {@link File}
+	 * @throws IOException
+	 */
+	private static File createTempFile(File target) throws IOException {
+		final File absoluteFile = target.getAbsoluteFile();
+
+		return File.createTempFile("." + absoluteFile.getName() + ".", ".tmp",
+				absoluteFile.getParentFile());
+	}
+
+	/**
+	 * 임시 파일을 대상 파일 자리로 옮기는 메소드
+	 * 
+	 * 가능하면 원자적으로 옮기므로 도중에 프로그램이 끝나도 대상 파일은 원래 내용이나 새로운 내용
+	 * 중 하나로 남습니다.
+	 * 
+	 * 대상 파일이 현재 Zip 파일이면 읽고 있던 Zip 파일을 먼저 닫습니다. 옮기지 못한 경우에도
+	 * 호출한 곳에서 {@link #reload(String)}로 다시 열어야 합니다.
+	 * 
+	 * @param tempFile
+	 *            임시 {@link File}
+	 * @param target
+	 *            대상 {@link File}
+	 * @throws IOException
+	 */
+	private void replaceFile(File tempFile, File target) throws IOException {
+		if (target.getAbsoluteFile().equals(file.getAbsoluteFile()))
+			releaseReader();
+
+		try {
+			Files.move(tempFile.toPath(), target.toPath(),
+					StandardCopyOption.ATOMIC_MOVE,
+					StandardCopyOption.REPLACE_EXISTING);
+		} catch (AtomicMoveNotSupportedException e) {
+			// 원자적으로 옮길 수 없는 경우
+			Files.move(tempFile.toPath(), target.toPath(),
+					StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/**
+	 * 기존 {@link ZipEntry}를 다시 압축하지 않고 {@link ZipWriter}로 옮기는 메소드
+	 * 
+	 * 압축된 데이터와 CRC-32, 크기, 압축 방법은 원래 값을 그대로 사용합니다.
+	 * 
+	 * @param reader
+	 *            현재 Zip 파일의 {@link ZipReader}
+	 * @param writer
+	 *            {@link ZipWriter}
+	 * @param id
+	 *            옮길 항목 번호
+	 * @param name
+	 *            새로운 항목 이름
+	 * @throws IOException
+	 */
+	private void copyEntry(ZipReader reader, ZipWriter writer, int id,
+			String name) throws IOException {
+		ZipRecord record = store.getEntry(id).getRecord();
 
-							zos.closeEntry();
+		if (record == null) {
+			// Zip 파일에 없는 디렉토리 엔트리인 경우
+			writer.putNextEntry(name, store.getTime(id));
+		} else {
+			writer.putRawEntry(record, name);
+
+			transfer.copy(reader.getRawInputStream(record), writer);
+		}
+
+		writer.closeEntry();
+	}
+
+	/**
+	 * {@link ZipEntry}를 삭제하는 메소드
+	 * 
+	 * @param shell
+	 *            {@link Shell}
+	 * @param indices
+	 *            테이블의 인덱스
+	 */
+	public void delete(Shell shell, final int[] indices) {
+		BusyIndicator.showWhile(shell.getDisplay(), new Runnable() {
+
+			// 삭제할 항목 번호들
+			private BitSet deleteSet;
+
+			/**
+			 * 남은 항목들로 Zip 파일을 새로 만드는 메소드
+			 * 
+			 * @param encoding
+			 *            인코딩
+			 */
+			private void rewrite(String encoding) {
+				// 임시 Zip 파일 (Zip 파일과 같은 디렉토리에 생성)
+				File tempFile = null;
+
+				try {
+					tempFile = createTempFile(file);
+
+					ZipWriter writer = new ZipWriter(tempFile, encoding);
+
+					try {
+						for (int id = 0; id < store.size(); id++) {
+							if (deleteSet.get(id))
+								continue;
+
+							copyEntry(reader, writer, id, store.getName(id));
 						}
 					} finally {
-						zos.finish();
+						writer.finish();
 					}
 
+					// 임시 파일로 현재 파일을 바꿈
+					replaceFile(tempFile, file);
 				} catch (IOException e) {
 					e.printStackTrace();
+
+					if (tempFile != null)
+						tempFile.delete();
 				}
+			}
+
+			public void run() {
+				deleteSet = getSelection(indices);
 
-				// 임시 파일을 현재 파일에 복사
-				copyFile(tempFile, file);
+				transfer.reset();
 
-				// Zip 파일 다시 불러오기
+				final String encoding = reader.getEncoding(); // 인코딩
+
+				// 삭제할 항목들의 로컬 헤더 위치
+				HashSet<Long> offsetSet = getOffsetSet(deleteSet);
+
+				ZipEditor editor = null;
 				try {
-					zipFile = new ZipFile(file, encoding);
+					editor = new ZipEditor(file, encoding, transfer);
 				} catch (IOException e) {
-					e.printStackTrace();
+					// 제자리에서 고칠 수 없는 경우
+					editor = null;
 				}
 
-				loadEntries();
+				// 제자리에서 고쳤는지의 여부
+				boolean edited = false;
+
+				if (editor != null && editor.canDelete(offsetSet)) {
+					// 삭제할 항목들이 Zip 파일 끝에 모여 있으면 중앙 디렉토리만 새로 씀
+					releaseReader();
+
+					try {
+						editor.delete(offsetSet);
+
+						edited = true;
+					} catch (IOException e) {
+						e.printStackTrace();
+
+						if (!editor.isModified()) {
+							// Zip 파일을 고치기 전에 실패한 경우 새로 만듦
+							try {
+								reopenReader();
+
+								rewrite(encoding);
+							} catch (IOException e1) {
+								e1.printStackTrace();
+							}
+						}
+					}
+				} else {
+					rewrite(encoding);
+				}
+
+				// Zip 파일 다시 불러오기
+				if (edited)
+					update(encoding, deleteSet, new BitSet());
+				else
+					reload(encoding);
 			}
 
 		});
@@ -706,20 +1565,16 @@ public class Zip {
 	 * @return 임시 디렉토리에 압축 해제된 파일 경로
 	 */
 	public String extract(int index) {
-		if (path != null)
-			// 디렉토리로 보기인 경우
-			index = convertIndex(index);
-
 		// 임시 디렉토리 생성
 		JZip.createTmpDir();
 
-		// 압축 해제할 ZipEntry
-		ZipEntry entry = entryList.get(index);
+		// 압축 해제할 항목 번호
+		final int id = getId(index);
 
 		// 임시 파일
-		File tempFile = new File(JZip.tmpDir, getEntryName(entry));
+		File tempFile = new File(JZip.tmpDir, getName(id));
 
-		if (entry.isDirectory()) {
+		if (store.isDirectory(id)) {
 			// 디렉토리인 경우
 
 			if (tempFile.isFile())
@@ -733,61 +1588,54 @@ public class Zip {
 				// 디렉토리로 보기인 경우
 
 				// 모든 하위 디렉토리와 파일까지 압축 해제
-				for (ZipEntry zipEntry : entryList) {
-					String parent = getParentEntryName(zipEntry);
-
-					while (parent.length() != 0) {
-						if (parent.equals(entry.getName())) {
-							// 부모 디렉토리 이름
-							String parentEntryName = getParentEntryName(zipEntry
-									.getName().substring(parent.length()));
+				final int dirNameLength = store.getName(id).length();
 
-							// 임시 파일
-							File entryFile = null;
+				BitSet subtree = new BitSet();
+				addSubtree(id, subtree);
 
-							if (parentEntryName.length() != 0) {
-								// 부모 디렉토리가 존재하는 경우
+				for (int child = subtree.nextSetBit(0); child >= 0; child = subtree
+						.nextSetBit(child + 1)) {
+					// 부모 디렉토리 이름
+					String parentEntryName = getParentEntryName(store.getName(
+							child).substring(dirNameLength));
 
-								// 부모 디렉토리 생성
-								File parentDir = new File(tempFile,
-										parentEntryName);
-								if (!parentDir.exists())
-									parentDir.mkdirs();
+					// 임시 파일
+					File entryFile = null;
 
-								entryFile = new File(parentDir,
-										getEntryName(zipEntry));
-							} else {
-								// 부모 디렉토리가 존재하지 않는 경우
+					if (parentEntryName.length() != 0) {
+						// 부모 디렉토리가 존재하는 경우
 
-								entryFile = new File(tempFile,
-										getEntryName(zipEntry));
-							}
+						// 부모 디렉토리 생성
+						File parentDir = new File(tempFile, parentEntryName);
+						if (!parentDir.exists())
+							parentDir.mkdirs();
 
-							if (zipEntry.isDirectory()) {
-								// 디렉토리인 경우
+						entryFile = new File(parentDir, getName(child));
+					} else {
+						// 부모 디렉토리가 존재하지 않는 경우
 
-								if (entryFile.isFile())
-									// 같은 이름의 파일이 이미 존재하는 경우
-									entryFile.delete(); // 삭제
+						entryFile = new File(tempFile, getName(child));
+					}
 
-								// 디렉토리 생성
-								entryFile.mkdirs();
-							} else {
-								// 파일인 경우
+					if (store.isDirectory(child)) {
+						// 디렉토리인 경우
 
-								if (entryFile.isDirectory())
-									// 같은 이름의 디렉토리가 이미 존재하는 경우
-									// 모든 하위 디렉토리까지 삭제
-									JZip.deleteDir(entryFile);
+						if (entryFile.isFile())
+							// 같은 이름의 파일이 이미 존재하는 경우
+							entryFile.delete(); // 삭제
 
-								// 압축 해제
-								extract(zipEntry, entryFile);
-							}
+						// 디렉토리 생성
+						entryFile.mkdirs();
+					} else {
+						// 파일인 경우
 
-							break;
-						}
+						if (entryFile.isDirectory())
+							// 같은 이름의 디렉토리가 이미 존재하는 경우
+							// 모든 하위 디렉토리까지 삭제
+							JZip.deleteDir(entryFile);
 
-						parent = getParentEntryName(parent);
+						// 압축 해제
+						extract(store.getEntry(child), entryFile);
 					}
 				}
 			}
@@ -799,13 +1647,31 @@ public class Zip {
 				JZip.deleteDir(tempFile); // 모든 하위 디렉토리와 파일까지 삭제
 
 			// 압축 해제
-			extract(entry, tempFile);
+			extract(store.getEntry(id), tempFile);
 		}
 
 		// 압축 해제한 파일의 경로 반환
 		return tempFile.getPath();
 	}
 
+	/**
+	 * 선택된 항목들을 임시 디렉토리에 압축 해제하는 메소드
+	 * 
+	 * @param indices
+	 *            테이블의 인덱스 배열
+	 * @return 임시 디렉토리에 압축 해제된 파일 경로들
+	 */
+	public String[] extract(int[] indices) {
+		transfer.reset();
+
+		String[] filePaths = new String[indices.length];
+
+		for (int i = 0; i < filePaths.length; i++)
+			filePaths[i] = extract(indices[i]);
+
+		return filePaths;
+	}
+
 	/**
 	 * 인덱스에 해당하는 {@link ZipEntry}의 압축을 푸는 메소드
 	 * 
@@ -823,8 +1689,8 @@ public class Zip {
 			// 덮어쓰기 설정
 			private Overwrite overwrite = Overwrite.NO;
 
-			// 압축 해제할 항목들의 인덱스에 대한 ArrayList
-			private ArrayList<Integer> indexList;
+			// 압축 해제할 항목 번호들
+			private BitSet extractSet;
 
 			/**
 			 * 덮어쓰기 설정을 확인하는 메소드
@@ -867,23 +1733,31 @@ public class Zip {
 			/**
 			 * 실제로 압축을 푸는 메소드
 			 * 
+			 * 덮어쓰기 여부를 먼저 모두 확인하고 디렉토리를 만든 뒤, 파일들은 여러 스레드에서
+			 * 동시에 압축을 풉니다.
+			 * 
 			 * @param shell
 			 *            Shell
 			 * @param directory
 			 *            압축을 해제할 디렉토리
 			 */
 			private void extractAll(final Shell shell, final File directory) {
-				ProgressDialog progressDialog = new ProgressDialog(shell,
-						ProgressMode.EXTRACT, indexList.size());
-				progressDialog.open();
+				// 만들 디렉토리들 (부모 디렉토리가 먼저 옴)
+				ArrayList<File> dirList = new ArrayList<File>();
 
-				for (int i = 0; i < indexList.size(); i++) {
-					ZipEntry entry = entryList.get(indexList.get(i));
+				// 압축을 풀 파일 항목들과 대상 파일들
+				ArrayList<ZipEntry> fileEntryList = new ArrayList<ZipEntry>();
+				ArrayList<File> fileList = new ArrayList<File>();
 
-					if (entry.isDirectory()) {
+				// 같은 파일을 두 번 풀지 않기 위한 HashSet
+				HashSet<File> fileSet = new HashSet<File>();
+
+				for (int id = extractSet.nextSetBit(0); id >= 0; id = extractSet
+						.nextSetBit(id + 1)) {
+					if (store.isDirectory(id)) {
 						// 디렉토리인 경우
 
-						File entryDir = new File(directory, entry.getName());
+						File entryDir = new File(directory, store.getName(id));
 
 						if (entryDir.isFile()) {
 							// 같은 이름의 파일이 이미 존재하는 경우
@@ -922,27 +1796,29 @@ public class Zip {
 							}
 						}
 
-						// 디렉토리 생성
-						entryDir.mkdirs();
+						dirList.add(entryDir);
 					} else {
 						// 파일인 경우
 
 						File entryFile = null;
 
-						String parentEntryName = getParentEntryName(entry);
+						String parentEntryName = getParentEntryName(id);
 
 						if (parentEntryName.length() != 0) {
-							// 부모 디렉토리 생성
+							// 부모 디렉토리
 							File parentDir = new File(directory,
 									parentEntryName);
-							if (!parentDir.exists())
-								parentDir.mkdirs();
+							dirList.add(parentDir);
 
-							entryFile = new File(parentDir, getEntryName(entry));
+							entryFile = new File(parentDir, getName(id));
 						} else {
-							entryFile = new File(directory, getEntryName(entry));
+							entryFile = new File(directory, getName(id));
 						}
 
+						if (!fileSet.add(entryFile))
+							// 이미 압축을 풀기로 한 파일인 경우
+							continue;
+
 						if (entryFile.exists()) {
 							// 같은 이름의 파일이나 디렉토리가 이미 존재하는 경우
 							if (checkOverwrite(entryFile.getPath())) {
@@ -980,13 +1856,22 @@ public class Zip {
 							}
 						}
 
-						// 파일 압축 해제
-						extract(entry, entryFile);
+						fileEntryList.add(store.getEntry(id));
+						fileList.add(entryFile);
 					}
-
-					progressDialog.update(i + 1);
 				}
 
+				// 디렉토리를 파일보다 먼저 만듦
+				for (File dir : dirList)
+					dir.mkdirs();
+
+				ProgressDialog progressDialog = new ProgressDialog(shell,
+						ProgressMode.EXTRACT, fileList.size());
+				progressDialog.open();
+
+				// 파일 압축 해제
+				extract(fileEntryList, fileList, progressDialog);
+
 				progressDialog.close();
 
 				// 압축 해제 완료 대화상자
@@ -1000,70 +1885,17 @@ public class Zip {
 					Program.launch(directory.getPath());
 			}
 
-			/**
-			 * 압축을 해제할 인덱스를 구하는 메소드
-			 * 
-			 * @param indices
-			 *            테이블의 인덱스 배열, null이면 모두 압축 해제
-			 */
-			private void getIndexList(final int[] indices) {
-				indexList = new ArrayList<Integer>();
-
+			public void run() {
+				// 압축 해제할 항목들 구하기
 				if (indices != null) {
-					// 모두 압축 풀기가 아닌 경우
-
-					indexList = new ArrayList<Integer>(indices.length);
-
-					if (path != null) {
-						// 디렉토리로 보기인 경우
-
-						// 인덱스 변환
-						for (int i = 0; i < indices.length; i++)
-							indices[i] = convertIndex(indices[i]);
-
-						for (int index : indices) {
-							ZipEntry dirEntry = entryList.get(index);
-
-							if (dirEntry.isDirectory()) {
-								// 디렉토리인 경우
-								// 하위 디렉토리의 엔트리 추가
-								final String dirName = dirEntry.getName();
-
-								for (ZipEntry entry : entryList) {
-									String entryPath = getParentEntryName(entry);
-
-									while (entryPath.length() != 0) {
-										if (entryPath.equals(dirName)) {
-											indexList.add(entryList
-													.indexOf(entry));
-											break;
-										}
-
-										entryPath = getParentEntryName(entryPath);
-									}
-								}
-							}
-						}
-					}
-
-					for (int index : indices)
-						indexList.add(index);
+					extractSet = getSelection(indices);
 				} else {
 					// 모두 압축 풀기인 경우
-
-					// 전체 엔트리 숫자
-					final int size = entryList.size();
-
-					indexList = new ArrayList<Integer>(size);
-
-					for (int i = 0; i < size; i++)
-						indexList.add(i);
+					extractSet = new BitSet(store.size());
+					extractSet.set(0, store.size());
 				}
-			}
 
-			public void run() {
-				// 압축 해제할 항목들에 대한 인덱스 구하기
-				getIndexList(indices);
+				transfer.reset();
 
 				// 압축 해제하기
 				extractAll(shell, directory);
@@ -1082,25 +1914,124 @@ public class Zip {
 	 *            압축을 풀 대상 {@link File}
 	 */
 	private void extract(ZipEntry entry, File entryFile) {
+		extract(reader, entry, entryFile, transfer);
+	}
+
+	/**
+	 * 주어진 {@link ZipReader}와 {@link Transfer}로 {@link ZipEntry}의 압축을 푸는
+	 * 메소드
+	 * 
+	 * @param reader
+	 *            {@link ZipReader}
+	 * @param entry
+	 *            압축을 풀 엔트리
+	 * @param entryFile
+	 *            압축을 풀 대상 {@link File}
+	 * @param transfer
+	 *            {@link Transfer}
+	 */
+	private static void extract(ZipReader reader, ZipEntry entry,
+			File entryFile, Transfer transfer) {
 		try {
-			BufferedInputStream bis = new BufferedInputStream(
-					zipFile.getInputStream(entry));
-			BufferedOutputStream bos = new BufferedOutputStream(
-					new FileOutputStream(entryFile));
+			FileOutputStream fos = new FileOutputStream(entryFile);
 
 			try {
-				int i;
-				while ((i = bis.read()) != -1)
-					bos.write(i);
+				reader.extract(entry.getRecord(), fos.getChannel(), transfer);
 			} finally {
-				bis.close();
-				bos.close();
+				fos.close();
 			}
 		} catch (IOException e1) {
 			e1.printStackTrace();
 		}
 	}
 
+	/**
+	 * 여러 {@link ZipEntry}의 압축을 여러 스레드에서 동시에 푸는 메소드
+	 * 
+	 * 프로세서 수만큼의 스레드가 각자 Zip 파일을 따로 열어서 남은 항목을 하나씩 가져가 압축을
+	 * 풉니다. 대상 파일의 부모 디렉토리는 미리 만들어져 있어야 합니다.
+	 * 
+	 * @param entries
+	 *            압축을 풀 엔트리들
+	 * @param files
+	 *            압축을 풀 대상 {@link File}들
+	 * @param progressDialog
+	 *            진행 상황을 표시할 {@link ProgressDialog}
+	 */
+	private void extract(final List<ZipEntry> entries, final List<File> files,
+			ProgressDialog progressDialog) {
+		// 다음에 압축을 풀 항목의 인덱스
+		final AtomicInteger next = new AtomicInteger();
+
+		// 압축을 푼 항목의 숫자
+		final AtomicInteger done = new AtomicInteger();
+
+		// 모든 스레드가 전송한 바이트 수
+		final AtomicLong bytes = new AtomicLong();
+
+		final int threadCount = Math.min(Runtime.getRuntime()
+				.availableProcessors(), entries.size());
+
+		Thread[] threads = new Thread[threadCount];
+
+		for (int i = 0; i < threadCount; i++) {
+			threads[i] = new Thread(new Runnable() {
+
+				public void run() {
+					// 스레드마다 따로 여는 Zip 파일
+					ZipReader handle = null;
+					try {
+						handle = new ZipReader(reader);
+					} catch (IOException e) {
+						e.printStackTrace();
+
+						return;
+					}
+
+					// 스레드마다 따로 쓰는 블록 버퍼
+					Transfer threadTransfer = new Transfer();
+
+					try {
+						int index;
+						while ((index = next.getAndIncrement()) < entries
+								.size()) {
+							extract(handle, entries.get(index), files
+									.get(index), threadTransfer);
+
+							done.incrementAndGet();
+						}
+					} finally {
+						handle.close();
+
+						bytes.addAndGet(threadTransfer.getBytes());
+					}
+				}
+
+			}, "JZip-extract-" + i);
+		}
+
+		final long start = System.nanoTime();
+
+		for (Thread thread : threads)
+			thread.start();
+
+		for (Thread thread : threads) {
+			while (thread.isAlive()) {
+				progressDialog.update(done.get());
+
+				try {
+					thread.join(100);
+				} catch (InterruptedException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+
+		progressDialog.update(done.get());
+
+		transfer.add(bytes.get(), System.nanoTime() - start);
+	}
+
 	/**
 	 * 압축 파일 내의 모든 파일과 디렉토리를 압축 해제하는 메소드
 	 * 
@@ -1114,46 +2045,64 @@ public class Zip {
 	}
 
 	/**
-	 * 압축 파일 내 디렉토리의 크기를 반환하는 메소드
+	 * 파일의 CRC-32를 계산하는 메소드
 	 * 
-	 * @param dirEntry
-	 *            크기를 계산할 디렉토리 엔트리
-	 * @return 디렉토리의 크기
+	 * @param file
+	 *            {@link File}
+	 * @return CRC-32
+	 * @throws IOException
 	 */
-	private long getDirSize(ZipEntry dirEntry) {
-		// 디렉토리의 크기
-		long size = 0;
-
-		// 크기를 계산할 디렉토리 이름
-		final String dirName = dirEntry.getName();
-
-		// 디렉토리의 크기 계산
-		for (ZipEntry entry : entryList) {
-			if (!entry.isDirectory()) {
-				// 파일인 경우
-				String entryPath = getParentEntryName(entry);
+	private static long getCrc(File file) throws IOException {
+		CodecPool pool = CodecPool.get();
 
-				while (entryPath.length() != 0) {
-					if (entryPath.equals(dirName)) {
-						size += entry.getSize();
+		CRC32 crc = new CRC32();
+		byte[] buffer = pool.getBuffer();
 
-						break;
-					}
+		InputStream is = new FileInputStream(file);
+		try {
+			int n;
+			while ((n = is.read(buffer, 0, buffer.length)) != -1)
+				crc.update(buffer, 0, n);
+		} finally {
+			is.close();
 
-					entryPath = getParentEntryName(entryPath);
-				}
-			}
+			pool.release(buffer);
 		}
 
-		return size;
+		return crc.getValue();
+	}
+
+	/**
+	 * 압축 파일 내 디렉토리의 크기를 반환하는 메소드
+	 * 
+	 * @param dirId
+	 *            크기를 계산할 디렉토리 항목 번호
+	 * @return 디렉토리의 크기
+	 */
+	private long getDirSize(int dirId) {
+		// 디렉토리 트리 노드마다 계산해 둔 합계
+		return dirSizes[store.getNode(dirId)];
 	}
 
+	/**
+	 * 디렉토리 바로 아래 디렉토리들의 이름을 반환하는 메소드
+	 * 
+	 * @param dir
+	 *            디렉토리의 위치 ("/" 또는 "/a/b" 형식)
+	 * @return 디렉토리들의 이름(경로 포함 안함), 없으면 null
+	 */
 	public String[] getDirStrings(String dir) {
 		ArrayList<String> dirList = new ArrayList<String>();
 
-		for (ZipEntry entry : entryList)
-			if (entry.isDirectory() && getEntryPath(entry).equals(dir))
-				dirList.add(getEntryName(entry));
+		// 디렉토리 항목 이름
+		final String dirName = dir.equals("/") ? "" : dir.substring(1) + "/";
+
+		final Node node = dirMap.get(dirName);
+
+		if (node != null)
+			for (int i = 0; i < node.childCount; i++)
+				if (store.isDirectory(node.children[i]))
+					dirList.add(getName(node.children[i]));
 
 		if (dirList.isEmpty())
 			return null;
@@ -1169,25 +2118,21 @@ public class Zip {
 	 * @return {@link ZipEntry}의 이름(경로 포함 안함)
 	 */
 	public String getEntryName(int index) {
-		if (path != null)
-			// 디렉토리로 보기인 경우
-			index = convertIndex(index);
-
-		return getEntryName(entryList.get(index));
+		return getName(getId(index));
 	}
 
 	/**
-	 * {@link ZipEntry}의 이름(경로 포함 안함)을 반환하는 메소드
-	 * 
-	 * @param entry
-	 *            {@link ZipEntry}
-	 * @return {@link ZipEntry}의 이름(경로 포함 안함)
+	 * 항목 번호에 해당하는 항목의 이름(경로 포함 안함)을 반환하는 메소드
+	 * 
+	 * @param id
+	 *            항목 번호
+	 * @return 항목의 이름(경로 포함 안함)
 	 */
-	private String getEntryName(ZipEntry entry) {
+	private String getName(int id) {
 		// ZipEntry의 이름
-		String name = entry.getName();
+		String name = store.getName(id);
 
-		if (entry.isDirectory())
+		if (store.isDirectory(id))
 			name = name.substring(0, name.length() - 1);
 
 		if (name.indexOf('/') == -1)
@@ -1198,14 +2143,14 @@ public class Zip {
 	}
 
 	/**
-	 * {@link ZipEntry}의 위치를 반환합니다.
+	 * 항목 번호에 해당하는 항목의 위치를 반환합니다.
 	 * 
-	 * @param entry
-	 *            {@link ZipEntry}
-	 * @return {@link ZipEntry}의 위치
+	 * @param id
+	 *            항목 번호
+	 * @return 항목의 위치
 	 */
-	private String getEntryPath(ZipEntry entry) {
-		String name = entry.getName(); // 엔트리의 이름
+	private String getEntryPath(int id) {
+		String name = store.getName(id); // 엔트리의 이름
 
 		if (name.endsWith("/"))
 			// 디렉토리인 경우
@@ -1226,23 +2171,13 @@ public class Zip {
 	 * @return {@link ZipEntry}의 크기
 	 */
 	public long getEntrySize(int index) {
-		if (path != null) {
-			// 디렉토리로 보기인 경우
-
-			index = convertIndex(index);
-
-			ZipEntry zipEntry = entryList.get(index);
-
-			if (zipEntry.isDirectory())
-				return getDirSize(zipEntry);
-			else
-				return zipEntry.getSize();
-		} else {
-			// 모든 파일 보기인 경우
-
-			return entryList.get(index).getSize();
-		}
+		final int id = getId(index);
 
+		if (path != null && store.isDirectory(id))
+			// 디렉토리로 보기에서 디렉토리인 경우
+			return getDirSize(id);
+		else
+			return store.getSize(id);
 	}
 
 	/**
@@ -1282,40 +2217,48 @@ public class Zip {
 	}
 
 	/**
-	 * Zip 파일에 빠진 디렉토리 엔트리를 추가하는 메소드
+	 * Zip 파일의 실제 크기를 반한하는 메소드
+	 * 
+	 * @return Zip 파일의 실제 크기
 	 */
-	private void getMissingEntries() {
-		// 디렉토리 엔트리 이름에 대한 HashSet
-		HashSet<String> nameSet = new HashSet<String>();
-
-		for (ZipEntry entry : entryList) {
-			String parent = getParentEntryName(entry);
-
-			while (parent.length() != 0) {
-				if (zipFile.getEntry(parent) == null)
-					// 디렉토리 엔트리가 빠져있는 경우
-					nameSet.add(parent);
-
-				parent = getParentEntryName(parent);
-			}
-		}
+	public long getOriginalLength() {
+		return dirSizes[0];
+	}
 
-		for (String name : nameSet)
-			entryList.add(new ZipEntry(name));
+	/**
+	 * Zip 파일 내 모든 파일의 압축된 크기 합을 반환하는 메소드
+	 * 
+	 * @return 모든 파일의 압축된 크기 합
+	 */
+	public long getCompressedLength() {
+		return dirCompressedSizes[0];
 	}
 
 	/**
-	 * Zip 파일의 실제 크기를 반한하는 메소드
+	 * Zip 파일 내의 모든 파일의 숫자를 반환하는 메소드
 	 * 
-	 * @return Zip 파일의 실제 크기
+	 * @return 디렉토리 항목을 뺀 파일의 숫자
 	 */
-	public long getOriginalLength() {
-		long size = 0;
+	public int getFileCount() {
+		return dirFileCounts[0];
+	}
 
-		for (ZipEntry entry : entryList)
-			size += entry.getSize();
+	/**
+	 * 마지막으로 파일을 더할 때 내용이 같은 파일을 한 번만 압축한 결과를 반환하는 메소드
+	 * 
+	 * @return 복사한 항목의 숫자와 절약한 CPU 시간을 표현하는 문자열
+	 */
+	public String getDuplicateString() {
+		return duplicateString;
+	}
 
-		return size;
+	/**
+	 * 마지막 작업의 전송량과 전송 속도를 문자열로 반환하는 메소드
+	 * 
+	 * @return 마지막 작업의 전송 통계를 표현하는 문자열
+	 */
+	public String getTransferString() {
+		return transfer.toString();
 	}
 
 	/**
@@ -1347,14 +2290,14 @@ public class Zip {
 	}
 
 	/**
-	 * {@link ZipEntry}의 경로(부모 엔트리 이름)을 반환하는 메소드
+	 * 항목 번호에 해당하는 항목의 경로(부모 엔트리 이름)을 반환하는 메소드
 	 * 
-	 * @param entry
-	 *            {@link ZipEntry}
-	 * @return {@link ZipEntry}의 경로(부모 엔트리 이름)
+	 * @param id
+	 *            항목 번호
+	 * @return 항목의 경로(부모 엔트리 이름)
 	 */
-	private String getParentEntryName(ZipEntry entry) {
-		return getParentEntryName(entry.getName());
+	private String getParentEntryName(int id) {
+		return getParentEntryName(store.getName(id));
 	}
 
 	/**
@@ -1378,22 +2321,7 @@ public class Zip {
 	 * @return 현재 경로에 해당하는 항목의 숫자
 	 */
 	public int getSize() {
-		if (path != null) {
-			// 디렉토리로 보기인 경우
-
-			// 현재 경로에 해당하는 항목의 숫자
-			int count = 0;
-
-			// 숫자 계산
-			for (ZipEntry entry : entryList)
-				if (getParentEntryName(entry).equals(path))
-					count++;
-
-			return count;
-		} else {
-			// 모든 파일 보기인 경우
-			return originalSize;
-		}
+		return getView().length;
 	}
 
 	/**
@@ -1406,150 +2334,573 @@ public class Zip {
 	 * @return 테이블 출력을 위한 {@link String} 배열
 	 */
 	public String[] getStrings(int index, int dateFormat) {
+		// 정보를 출력할 항목 번호
+		final int id = getId(index);
+
 		if (path != null) {
 			// 디렉토리로 보기인 경우
 
-			// 인덱스 변환
-			index = convertIndex(index);
+			final String name = getName(id);
+			String size = null;
+			if (store.isDirectory(id))
+				// 디렉토리인 경우
+				size = getSizeString(getDirSize(id));
+			else
+				// 파일인 경우
+				size = getSizeString(store.getSize(id));
+			final String type = getType(id);
+			final String time = getTimeString(store.getTime(id), dateFormat);
+
+			return new String[] { name, size, type, time };
+		} else {
+			// 모든 파일 보기인 경우
+
+			String name = getName(id);
+			String size = getSizeString(store.getSize(id));
+			String type = getType(id);
+			String time = getTimeString(store.getTime(id), dateFormat);
+			String path = getEntryPath(id);
+
+			return new String[] { name, size, type, time, path };
+		}
+
+	}
+
+	/**
+	 * 항목 번호에 해당하는 항목의 형식을 문자열로 반환하는 메소드
+	 * 
+	 * @param id
+	 *            항목 번호
+	 * @return 항목의 형식을 나타내는 문자열
+	 */
+	private String getType(int id) {
+		if (store.isDirectory(id)) {
+			return "디렉토리";
+		}
+
+		return getType(getName(id));
+	}
+
+	/**
+	 * 파일 이름의 확장자로 파일 형식을 문자열로 반환하는 메소드
+	 * 
+	 * @param fileName
+	 *            파일 이름
+	 * @return 파일 형식을 나타내는 문자열
+	 */
+	static String getType(String fileName) {
+		int index = -1;
+
+		if ((index = fileName.lastIndexOf('.')) == -1)
+			return "일반 파일";
+
+		// 확장자
+		final String extension = fileName.substring(index + 1).toLowerCase();
+
+		if (extension.equals("jpg") || extension.equals("jpeg")
+				|| extension.equals("bmp") || extension.equals("png")
+				|| extension.equals("gif"))
+			return "그림 파일";
+		else if (extension.equals("mp3") || extension.equals("wav")
+				|| extension.equals("ogg"))
+			return "음악 파일";
+		else if (extension.equals("avi") || extension.equals("mpg")
+				|| extension.equals("mpeg"))
+			return "동영상 파일";
+		else if (extension.equals("txt"))
+			return "텍스트  파일";
+		else if (extension.equals("html") || extension.equals("htm"))
+			return "HTML 파일";
+		else if (extension.equals("zip") || extension.equals("gz")
+				|| extension.equals("bz2") || extension.equals("rar")
+				|| extension.equals("jar"))
+			return "압축 파일";
+		else
+			return "일반 파일";
+	}
+
+	/**
+	 * 항목 이름의 인코딩을 바꾸는 메소드
+	 * 
+	 * Zip 파일을 다시 읽지 않고 이미 읽어둔 항목 이름의 바이트를 새 인코딩으로 읽어서 디렉토리
+	 * 트리만 다시 만듭니다. 디렉토리로 보기인 경우 현재 경로를 새 인코딩의 이름으로 바꾸어 그대로
+	 * 두고, 새 인코딩에서 그 디렉토리가 없으면 최상위 디렉토리로 바뀝니다.
+	 * 
+	 * @param encoding
+	 *            항목 이름의 인코딩
+	 * @throws UnsupportedEncodingException
+	 */
+	public void setEncoding(String encoding)
+			throws UnsupportedEncodingException {
+		// 현재 경로 아래의 원래 항목 하나와 현재 경로의 깊이
+		int pathEntry = -1;
+		int depth = 0;
+
+		if (path != null && path.length() != 0) {
+			pathEntry = getOriginalEntry(dirMap.get(path));
+
+			for (int i = 0; i < path.length(); i++)
+				if (path.charAt(i) == '/')
+					depth++;
+		}
+
+		reader.setEncoding(encoding);
+		store.setEncoding(encoding);
+
+		// 빠진 디렉토리 항목은 새 인코딩의 이름으로 다시 추가됨
+		store.truncate(originalSize);
+
+		if (path != null) {
+			// 원래 항목의 새 이름에서 같은 깊이까지가 새 경로
+			path = "";
+
+			if (pathEntry != -1) {
+				final String name = store.getName(pathEntry);
+
+				int end = -1;
+				for (int i = 0; i < depth; i++) {
+					end = name.indexOf('/', end + 1);
+
+					if (end == -1)
+						break;
+				}
+
+				if (end != -1)
+					path = name.substring(0, end + 1);
+			}
+		}
+
+		// 새 경로가 없으면 updateView()에서 최상위 디렉토리로 바뀜
+		buildTree();
+	}
+
+	/**
+	 * 디렉토리 아래에서 중앙 디렉토리에 있는 원래 항목 하나를 찾는 메소드
+	 * 
+	 * 빠진 디렉토리는 원래 항목이 나올 때까지 첫 번째 하위 항목을 따라 내려갑니다.
+	 * 
+	 * @param node
+	 *            디렉토리 트리의 노드
+	 * @return 원래 항목 번호, 없으면 -1
+	 */
+	private int getOriginalEntry(Node node) {
+		while (node != null) {
+			if (node.entry != -1 && node.entry < originalSize)
+				return node.entry;
+
+			if (node.childCount == 0)
+				return -1;
+
+			final int child = node.children[0];
+
+			if (child < originalSize)
+				return child;
+
+			node = dirMap.get(store.getName(child));
+		}
+
+		return -1;
+	}
+
+	/**
+	 * 더하는 파일의 압축 수준을 설정하는 메소드
+	 * 
+	 * @param level
+	 *            압축 수준 (0-9, {@link Deflater#DEFAULT_COMPRESSION}이면 기본값, 0이면
+	 *            압축하지 않고 저장만 함)
+	 */
+	public void setLevel(int level) {
+		this.level = level;
+	}
+
+	/**
+	 * 파일을 더할 때 바뀐 파일만 더하는 갱신 모드를 설정하는 메소드
+	 * 
+	 * 갱신 모드에서는 덮어쓰기를 묻지 않고 같은 이름의 엔트리와 크기, 바뀐 시간을 비교하여 바뀐
+	 * 파일과 새로운 파일만 압축합니다. 바뀌지 않은 파일의 엔트리는 압축된 데이터를 그대로 둡니다.
+	 * 
+	 * @param update
+	 *            갱신 모드 여부
+	 * @param compareCrc
+	 *            크기와 바뀐 시간이 같을 때 CRC-32도 비교할지의 여부
+	 */
+	public void setUpdate(boolean update, boolean compareCrc) {
+		this.update = update;
+		this.compareCrc = compareCrc;
+	}
+
+	/**
+	 * 부모 디렉토리로 현재 경로를 변경하는 메소드
+	 */
+	public void goToParent() {
+		if (path.length() != 0) {
+			path = dirMap.get(path).parent.name;
+
+			updateView();
+		}
+	}
+
+	/**
+	 * 최상위 디렉토리로 현재 경로를 변경하는 메소드
+	 */
+	public void goToTop() {
+		if (path.length() != 0) {
+			path = "";
+
+			updateView();
+		}
+	}
+
+	/**
+	 * 인덱스에 해당하는 ZipEntry가 디렉토리이면 true, 파일이면 false를 반환하는 메소드
+	 * 
+	 * @param index
+	 *            테이블의 인덱스
+	 * @return 디렉토리 여부
+	 */
+	public boolean isDirecotry(int index) {
+		return store.isDirectory(getId(index));
+	}
+
+	/**
+	 * Zip 파일의 바뀐 시간을 반환하는 메소드
+	 * 
+	 * @return Zip 파일의 바뀐 시간
+	 */
+	public long lastModified() {
+		return file.lastModified();
+	}
+
+	/**
+	 * {@link ZipEntry}를 읽어들이는 메소드
+	 */
+	private void loadEntries() {
+		// 항목들의 정보
+		store = new EntryStore(reader, reader.getEncoding());
+
+		originalSize = store.size();
+
+		// 디렉토리로 보기인 경우 빠진 디렉토리 항목도 추가됨
+		buildTree();
+	}
+
+	/**
+	 * Zip 파일을 다시 읽어들이는 메소드
+	 * 
+	 * @param encoding
+	 *            인코딩
+	 */
+	private void reload(String encoding) {
+		ZipReader newReader = null;
+
+		try {
+			newReader = new ZipReader(file, encoding);
+		} catch (IOException e) {
+			e.printStackTrace();
+
+			// 제자리에서 고친 Zip 파일의 예전 중앙 디렉토리는 더 이상 읽을 수 없음
+			store = new EntryStore(encoding);
+			originalSize = 0;
+
+			if (path != null)
+				path = "";
+
+			buildTree();
+
+			return;
+		}
+
+		reader.close();
+		reader = newReader;
+
+		loadEntries();
+	}
+
+	/**
+	 * 제자리에서 고친 Zip 파일의 바뀐 항목만 디렉토리 트리에 반영하는 메소드
+	 * 
+	 * 제자리에서 고치면 남은 항목은 중앙 디렉토리에서 순서가 그대로이고 새로운 항목은 뒤에
+	 * 붙습니다. 그래서 남은 항목의 항목 번호만 당기고, 지운 항목과 이름이 바뀐 항목은 트리에서
+	 * 떼어낸 뒤 이름이 바뀐 항목과 새로운 항목을 붙입니다. 디렉토리의 합계는 바뀐 항목의 조상
+	 * 노드들에만 더하거나 빼고, 이름이 그대로인 항목은 이름을 다시 읽지 않습니다.
+	 * 
+	 * 중앙 디렉토리가 예상과 다르거나 트리를 고쳐서 나타낼 수 없으면 {@link #reload(String)}로
+	 * 다시 읽습니다.
+	 * 
+	 * @param encoding
+	 *            인코딩
+	 * @param removed
+	 *            지운 항목 번호들
+	 * @param renamed
+	 *            이름이 바뀐 항목 번호들
+	 */
+	private void update(String encoding, BitSet removed, BitSet renamed) {
+		ZipReader newReader = null;
+
+		try {
+			newReader = new ZipReader(file, encoding);
+		} catch (IOException e) {
+			e.printStackTrace();
+
+			reload(encoding);
+
+			return;
+		}
+
+		final EntryStore newStore = new EntryStore(newReader, encoding);
+
+		// 남은 원래 항목들의 새 항목 번호 (지운 항목은 -1)
+		final int[] newIds = new int[originalSize];
+		int survivorCount = 0;
+
+		for (int id = 0; id < originalSize; id++)
+			newIds[id] = removed.get(id) ? -1 : survivorCount++;
+
+		boolean consistent = (newStore.size() >= survivorCount)
+				&& (renamed.isEmpty() || newStore.size() == survivorCount);
+
+		// 남은 항목은 크기도 그대로여야 함
+		for (int id = 0; consistent && id < originalSize; id++) {
+			final int newId = newIds[id];
+
+			if (newId != -1
+					&& (newStore.getSize(newId) != store.getSize(id) || newStore
+							.getCompressedSize(newId) != store
+							.getCompressedSize(id)))
+				consistent = false;
+		}
+
+		// 트리에서 떼어낼 항목들 (이름이 바뀐 항목은 새 이름으로 다시 붙임)
+		final BitSet detached = new BitSet();
+		detached.or(removed);
+		detached.or(renamed);
+
+		// 트리에 붙일 새 항목 번호들
+		final BitSet attached = new BitSet();
+		for (int id = renamed.nextSetBit(0); id >= 0 && id < originalSize; id = renamed
+				.nextSetBit(id + 1))
+			attached.set(newIds[id]);
+		attached.set(survivorCount, Math.max(newStore.size(), survivorCount));
+
+		// 노드마다 남는 바로 아래 항목의 숫자
+		final int[] remaining = new int[nodeList.size()];
+		for (Node node : nodeList)
+			remaining[node.index] = node.childCount;
+
+		// 디렉토리 항목이 떼어지는 노드와 비게 되는 노드
+		final BitSet unbacked = new BitSet();
+		final ArrayList<Node> emptied = new ArrayList<Node>();
+
+		for (int id = detached.nextSetBit(0); id >= 0; id = detached
+				.nextSetBit(id + 1)) {
+			final Node parent = nodeList.get(store.getParent(id));
+
+			if (--remaining[parent.index] == 0)
+				emptied.add(parent);
+
+			if (store.isDirectory(id)) {
+				final Node node = nodeList.get(store.getNode(id));
+
+				if (node.entry == id) {
+					unbacked.set(node.index);
+					emptied.add(node);
+				}
+			}
+		}
+
+		// 디렉토리로 보기에서 빈 노드 중 남은 디렉토리 항목이 없는 노드는 없앰
+		final BitSet dead = new BitSet();
+
+		for (int i = 0; path != null && i < emptied.size(); i++) {
+			final Node node = emptied.get(i);
+
+			if (node.parent == null || remaining[node.index] != 0
+					|| dead.get(node.index))
+				continue;
+
+			if (node.entry < originalSize && !unbacked.get(node.index))
+				// 원래 디렉토리 항목이 남아 있는 경우
+				continue;
+
+			dead.set(node.index);
+
+			if (!detached.get(node.entry)) {
+				// 빠진 디렉토리 항목도 떼어냄
+				detached.set(node.entry);
+
+				if (--remaining[node.parent.index] == 0)
+					emptied.add(node.parent);
+			}
+		}
+
+		for (int i = unbacked.nextSetBit(0); consistent && i >= 0; i = unbacked
+				.nextSetBit(i + 1))
+			if (path != null && !dead.get(i))
+				// 디렉토리 항목만 떼어지고 아래 항목이 남는 경우
+				consistent = false;
+
+		for (int id = attached.nextSetBit(0); consistent && id >= 0; id = attached
+				.nextSetBit(id + 1)) {
+			if (!newStore.isDirectory(id))
+				continue;
+
+			final Node node = dirMap.get(newStore.getName(id));
+
+			if (node != null && !dead.get(node.index)
+					&& node.entry >= originalSize)
+				// 빠진 디렉토리 항목을 새 디렉토리 항목으로 바꿔야 하는 경우
+				consistent = false;
+		}
+
+		if (!consistent) {
+			newReader.close();
 
-			// 정보를 출력할 ZipEntry
-			ZipEntry entry = entryList.get(index);
+			reload(encoding);
 
-			final String name = getEntryName(entry);
-			String size = null;
-			if (entry.isDirectory())
-				// 디렉토리인 경우
-				size = getSizeString(getDirSize(entry));
-			else
-				// 파일인 경우
-				size = getSizeString(entry.getSize());
-			final String type = getType(entry);
-			final String time = getTimeString(entry.getTime(), dateFormat);
+			return;
+		}
 
-			return new String[] { name, size, type, time };
-		} else {
-			// 모든 파일 보기인 경우
+		// 떼어내는 파일들을 조상 디렉토리들의 합계에서 뺌
+		for (int id = detached.nextSetBit(0); id >= 0; id = detached
+				.nextSetBit(id + 1))
+			if (!store.isDirectory(id))
+				addTotals(nodeList.get(store.getParent(id)), -store.getSize(id),
+						-store.getCompressedSize(id), -1);
 
-			// 정보를 출력할 ZipEntry
-			ZipEntry entry = entryList.get(index);
+		for (int i = dead.nextSetBit(0); i >= 0; i = dead.nextSetBit(i + 1))
+			dirMap.remove(nodeList.get(i).name);
 
-			String name = getEntryName(entry);
-			String size = getSizeString(entry.getSize());
-			String type = getType(entry);
-			String time = getTimeString(entry.getTime(), dateFormat);
-			String path = getEntryPath(entry);
+		for (int i = unbacked.nextSetBit(0); i >= 0; i = unbacked
+				.nextSetBit(i + 1))
+			// 모든 파일 보기에서는 빠진 디렉토리가 됨
+			nodeList.get(i).entry = -1;
 
-			return new String[] { name, size, type, time, path };
+		// 남은 원래 항목들의 정보를 옮김
+		for (int id = 0; id < originalSize; id++) {
+			final int newId = newIds[id];
+
+			if (newId == -1 || renamed.get(id))
+				continue;
+
+			newStore.copyName(newId, store, id);
+			newStore.setParent(newId, store.getParent(id));
+
+			if (store.isDirectory(id))
+				newStore.setNode(newId, store.getNode(id));
 		}
 
-	}
+		// 남은 빠진 디렉토리 항목들을 다시 추가함
+		final int[] newDirIds = new int[store.size() - originalSize];
 
-	/**
-	 * {@link ZipEntry}의 형식을 문자열로 반환하는 메소드
-	 * 
-	 * @param entry
-	 *            {@link ZipEntry}
-	 * @return {@link ZipEntry}의 형식을 나타내는 문자열
-	 */
-	private String getType(ZipEntry entry) {
-		if (entry.isDirectory()) {
-			return "디렉토리";
+		for (int id = originalSize; id < store.size(); id++) {
+			if (detached.get(id)) {
+				newDirIds[id - originalSize] = -1;
+
+				continue;
+			}
+
+			final int newId = newStore.addDirectory(store.getName(id));
+			newDirIds[id - originalSize] = newId;
+
+			newStore.setParent(newId, store.getParent(id));
+			newStore.setNode(newId, store.getNode(id));
 		}
 
-		// 파일 이름
-		final String entryName = getEntryName(entry);
+		// 남은 노드들의 항목 번호를 새 항목 번호로 바꿈
+		for (Node node : nodeList) {
+			if (dirMap.get(node.name) != node)
+				// 없어진 노드
+				continue;
 
-		int index = -1;
+			if (node.entry >= originalSize)
+				node.entry = newDirIds[node.entry - originalSize];
+			else if (node.entry != -1)
+				node.entry = newIds[node.entry];
 
-		if ((index = entryName.lastIndexOf('.')) == -1)
-			return "일반 파일";
+			int count = 0;
+			for (int i = 0; i < node.childCount; i++) {
+				final int id = node.children[i];
 
-		// 확장자
-		final String extension = entryName.substring(index + 1).toLowerCase();
+				if (detached.get(id))
+					continue;
 
-		if (extension.equals("jpg") || extension.equals("jpeg")
-				|| extension.equals("bmp") || extension.equals("png")
-				|| extension.equals("gif"))
-			return "그림 파일";
-		else if (extension.equals("mp3") || extension.equals("wav")
-				|| extension.equals("ogg"))
-			return "음악 파일";
-		else if (extension.equals("avi") || extension.equals("mpg")
-				|| extension.equals("mpeg"))
-			return "동영상 파일";
-		else if (extension.equals("txt"))
-			return "텍스트  파일";
-		else if (extension.equals("html") || extension.equals("htm"))
-			return "HTML 파일";
-		else if (extension.equals("zip") || extension.equals("gz")
-				|| extension.equals("bz2") || extension.equals("rar")
-				|| extension.equals("jar"))
-			return "압축 파일";
-		else
-			return "일반 파일";
-	}
+				node.children[count++] = (id < originalSize) ? newIds[id]
+						: newDirIds[id - originalSize];
+			}
 
-	/**
-	 * 부모 디렉토리로 현재 경로를 변경하는 메소드
-	 */
-	public void goToParent() {
-		if (path.length() != 0)
-			path = getParentEntryName(path);
-	}
+			node.childCount = count;
+			node.sortedChildren = null;
+		}
 
-	/**
-	 * 최상위 디렉토리로 현재 경로를 변경하는 메소드
-	 */
-	public void goToTop() {
-		if (path.length() != 0)
-			path = "";
-	}
+		reader.close();
+		reader = newReader;
 
-	/**
-	 * 인덱스에 해당하는 ZipEntry가 디렉토리이면 true, 파일이면 false를 반환하는 메소드
-	 * 
-	 * @param index
-	 *            테이블의 인덱스
-	 * @return 디렉토리 여부
-	 */
-	public boolean isDirecotry(int index) {
-		if (path != null)
-			// 디렉토리로 보기
-			index = convertIndex(index);
+		store = newStore;
+		originalSize = newReader.size();
 
-		return entryList.get(index).isDirectory();
-	}
+		// 이름이 바뀐 항목과 새로운 항목을 붙임
+		for (int id = attached.nextSetBit(0); id >= 0; id = attached
+				.nextSetBit(id + 1)) {
+			if (store.isDirectory(id)) {
+				final String name = store.getName(id);
+				final Node node = dirMap.get(name);
 
-	/**
-	 * Zip 파일의 바뀐 시간을 반환하는 메소드
-	 * 
-	 * @return Zip 파일의 바뀐 시간
-	 */
-	public long lastModified() {
-		return file.lastModified();
+				if (node == null)
+					addNode(name, id);
+				else if (node.entry == -1 && node.parent != null)
+					// 모든 파일 보기의 빠진 디렉토리인 경우
+					node.entry = id;
+			}
+		}
+
+		for (int id = attached.nextSetBit(0); id >= 0; id = attached
+				.nextSetBit(id + 1)) {
+			final String name = store.getName(id);
+
+			final Node parent = getDirNode(getParentEntryName(name));
+			parent.addChild(id);
+			store.setParent(id, parent.index);
+
+			if (store.isDirectory(id)) {
+				final Node node = dirMap.get(name);
+				store.setNode(id, node.index);
+
+				if (node.entry == id)
+					node.parent = parent;
+			}
+		}
+
+		// 붙인 파일들을 조상 디렉토리들의 합계에 더함
+		for (int id = attached.nextSetBit(0); id >= 0; id = attached
+				.nextSetBit(id + 1))
+			if (!store.isDirectory(id))
+				addTotals(nodeList.get(store.getParent(id)), store.getSize(id),
+						store.getCompressedSize(id), 1);
+
+		orderCache = new HashMap<Integer, int[]>();
+
+		updateView();
 	}
 
 	/**
-	 * {@link ZipEntry}를 읽어들이는 메소드
+	 * 디렉토리 트리 노드와 그 조상 노드들의 합계에 더하는 메소드
 	 * 
-	 * @param zipFile
-	 *            {@link ZipFile}
+	 * @param node
+	 *            디렉토리 트리 노드
+	 * @param size
+	 *            더할 실제 크기
+	 * @param compressedSize
+	 *            더할 압축된 크기
+	 * @param fileCount
+	 *            더할 파일의 숫자
 	 */
-	private void loadEntries() {
-		// ZipEntry의 ArrayList
-		entryList = new ArrayList<ZipEntry>();
-
-		Enumeration<?> entries = zipFile.getEntries();
-		while (entries.hasMoreElements()) {
-			ZipEntry entry = (ZipEntry) entries.nextElement();
-			entryList.add(entry);
+	private void addTotals(Node node, long size, long compressedSize,
+			int fileCount) {
+		for (; node != null; node = node.parent) {
+			dirSizes[node.index] += size;
+			dirCompressedSizes[node.index] += compressedSize;
+			dirFileCounts[node.index] += fileCount;
 		}
-
-		originalSize = entryList.size();
-
-		if (path != null)
-			// 디렉토리로 보기인 경우
-			getMissingEntries();
 	}
 
 	/**
@@ -1559,11 +2910,10 @@ public class Zip {
 	 *            테이블의 인덱스
 	 */
 	public void openDir(int index) {
-		// 인덱스 변환
-		index = convertIndex(index);
-
 		// 경로 변경
-		path = entryList.get(index).getName();
+		path = store.getName(getId(index));
+
+		updateView();
 	}
 
 	/**
@@ -1573,25 +2923,23 @@ public class Zip {
 	 *            테이블의 인덱스
 	 */
 	public void openFile(int index) {
-		if (path != null)
-			// 디렉토리로 보기인 경우
-			index = convertIndex(index);
-
 		// 임시 디렉토리 생성
 		JZip.createTmpDir();
 
-		// 열어야하는 ZipEntry
-		ZipEntry zipEntry = entryList.get(index);
+		transfer.reset();
+
+		// 열어야하는 항목 번호
+		final int id = getId(index);
 
 		// 임시 파일
-		File tempFile = new File(JZip.tmpDir, getEntryName(zipEntry));
+		File tempFile = new File(JZip.tmpDir, getName(id));
 
 		if (tempFile.isDirectory())
 			// 같은 이름의 디렉토리가 이미 존재하는 경우
 			JZip.deleteDir(tempFile);
 
 		// 임시 디렉토리에 압축 해제
-		extract(zipEntry, tempFile);
+		extract(store.getEntry(id), tempFile);
 
 		// 파일 열기
 		Program.launch(tempFile.getPath());
@@ -1606,31 +2954,29 @@ public class Zip {
 	 *            테이블의 인덱스
 	 */
 	public void openWith(Shell shell, int index) {
-		if (path != null)
-			// 디렉토리로 보기인 경우
-			index = convertIndex(index);
-
-		// 열어야하는 ZipEntry
-		ZipEntry zipEntry = entryList.get(index);
+		// 열어야하는 항목 번호
+		final int id = getId(index);
 
 		// 프로그램 선택 대화상자
 		ProgramSelectDialog select = new ProgramSelectDialog(shell,
-				getEntryName(zipEntry));
+				getName(id));
 		final String command = select.open();
 
 		if (command != null && (command.length() != 0)) {
 			// 임시 디렉토리 생성
 			JZip.createTmpDir();
 
+			transfer.reset();
+
 			// 임시 파일
-			File tempFile = new File(JZip.tmpDir, getEntryName(zipEntry));
+			File tempFile = new File(JZip.tmpDir, getName(id));
 
 			if (tempFile.isDirectory())
 				// 같은 이름의 디렉토리가 이미 존재하는 경우
 				JZip.deleteDir(tempFile);
 
 			// 임시 디렉토리에 압축 해제
-			extract(zipEntry, tempFile);
+			extract(store.getEntry(id), tempFile);
 
 			// 선택된 프로그램 실행
 			try {
@@ -1669,15 +3015,11 @@ public class Zip {
 			}
 		}
 
-		if (path != null)
-			// 디렉토리로 보기인 경우
-			index = convertIndex(index);
-
-		// 이름을 변경할 ZipEntry
-		final ZipEntry zipEntry = entryList.get(index);
+		// 이름을 변경할 항목 번호
+		final int id = getId(index);
 
 		// 원래 이름
-		final String originalName = zipEntry.getName();
+		final String originalName = store.getName(id);
 
 		// 부모 엔트리 이름
 		final String parentName = getParentEntryName(originalName);
@@ -1686,20 +3028,19 @@ public class Zip {
 			name = parentName + name;
 
 		// 이름을 변경할 ZipEntry가 디렉토리이면 이름 끝에 '/'를 추가함
-		if (zipEntry.isDirectory())
+		if (store.isDirectory(id))
 			name += "/";
 
 		// 변경할 이름
 		final String newName = name;
 
-		// 변경할 ZipEntry의 인덱스
-		final int newIndex = index;
-
 		BusyIndicator.showWhile(shell.getDisplay(), new Runnable() {
 
 			/**
 			 * 같은 이름을 가진 항목이 있는지 확인하는 메소드
 			 * 
+			 * 이름을 바꿔도 부모 디렉토리는 같으므로 같은 부모 디렉토리의 항목들만 확인합니다.
+			 * 
 			 * @param shell
 			 *            Shell
 			 * @param newName
@@ -1707,10 +3048,14 @@ public class Zip {
 			 * @return 같은 이름을 가진 항목이 있으면 false, 없으면 true
 			 */
 			private boolean checkName(final Shell shell, final String newName) {
-				for (ZipEntry entry : entryList) {
-					String entryName = entry.getName();
+				final Node node = dirMap.get(parentName);
+
+				for (int i = 0; i < node.childCount; i++) {
+					final int child = node.children[i];
 
-					if (entry.isDirectory()) {
+					String entryName = store.getName(child);
+
+					if (store.isDirectory(child)) {
 						// 디렉토리 엔트리인 경우
 
 						if (!newName.endsWith("/"))
@@ -1750,87 +3095,158 @@ public class Zip {
 				if (checkName(shell, newName)) {
 					// 같은 이름을 가진 항목이 없는 경우
 
-					// 임시 디렉토리 생성
-					JZip.createTmpDir();
+					transfer.reset();
 
-					// 임시 파일
-					File tempFile = new File(JZip.tmpDir, file.getName());
+					final String encoding = reader.getEncoding(); // 인코딩
 
-					final String encoding = zipFile.getEncoding(); // 인코딩
+					// 이름이 바뀌는 항목 번호와 바뀐 이름
+					HashMap<Integer, String> nameMap = getNameMap();
 
-					// 임시 Zip 파일 생성
+					ZipEditor editor = null;
 					try {
-						ZipOutputStream zos = new ZipOutputStream(tempFile);
+						editor = new ZipEditor(file, encoding, transfer);
+					} catch (IOException e) {
+						// 제자리에서 고칠 수 없는 경우
+						editor = null;
+					}
 
-						try {
-							zos.setEncoding(encoding);
+					// 제자리에서 고쳤는지의 여부
+					boolean edited = false;
 
-							for (int i = 0; i < entryList.size(); i++) {
-								ZipEntry originalEntry = entryList.get(i);
+					if (editor != null) {
+						// 로컬 헤더와 중앙 디렉토리의 이름만 바꿈
+						HashMap<Long, String> offsetMap = getOffsetMap(nameMap);
 
-								final String name = originalEntry.getName();
+						releaseReader();
 
-								ZipEntry entry = null;
+						try {
+							editor.rename(offsetMap);
 
-								if (i == newIndex)
-									entry = new ZipEntry(newName);
+							edited = true;
+						} catch (IOException e) {
+							e.printStackTrace();
 
-								if (entry == null && path != null) {
-									// 디렉토리로 보기인 경우
+							if (!editor.isModified()) {
+								// Zip 파일이 원래대로 되돌려진 경우 새로 만듦
+								try {
+									reopenReader();
 
-									String parent = getParentEntryName(name);
+									rewrite(encoding, nameMap);
+								} catch (IOException e1) {
+									e1.printStackTrace();
+								}
+							}
+						}
+					} else {
+						rewrite(encoding, nameMap);
+					}
 
-									while (parent.length() != 0) {
-										if (parent.equals(originalName)) {
-											entry = new ZipEntry(newName
-													+ name.substring(parent
-															.length()));
+					// Zip 파일 새로 고침
+					if (edited) {
+						BitSet renamed = new BitSet();
+						for (int id : nameMap.keySet())
+							renamed.set(id);
 
-											break;
-										}
+						update(encoding, new BitSet(), renamed);
+					} else {
+						reload(encoding);
+					}
+				}
 
-										parent = getParentEntryName(parent);
-									}
-								}
+			}
 
-								if (entry == null)
-									entry = new ZipEntry(name);
+			/**
+			 * 이름이 바뀌는 항목들의 항목 번호와 바뀐 이름을 구하는 메소드
+			 * 
+			 * @return 항목 번호를 키로, 바뀐 이름을 값으로 하는 {@link HashMap}
+			 */
+			private HashMap<Integer, String> getNameMap() {
+				HashMap<Integer, String> nameMap = new HashMap<Integer, String>();
 
-								// 바뀐 시간 설정
-								long time = originalEntry.getTime();
-								if (time != -1)
-									entry.setTime(time);
+				nameMap.put(id, newName);
 
-								zos.putNextEntry(entry);
+				if (path != null) {
+					// 디렉토리로 보기인 경우
 
-								if (!originalEntry.isDirectory())
-									// 파일인 경우
-									archive(zipFile
-											.getInputStream(originalEntry), zos);
+					// 모든 하위 디렉토리와 파일의 이름도 바꿈
+					BitSet subtree = new BitSet();
+					addSubtree(id, subtree);
 
-								zos.closeEntry();
-							}
-						} finally {
-							zos.finish();
-						}
+					for (int child = subtree.nextSetBit(0); child >= 0; child = subtree
+							.nextSetBit(child + 1)) {
+						final String name = store.getName(child);
 
-					} catch (IOException e) {
-						e.printStackTrace();
+						nameMap.put(child, newName
+								+ name.substring(originalName.length()));
 					}
+				}
 
-					// 임시 파일을 현재 파일에 복사
-					copyFile(tempFile, file);
+				return nameMap;
+			}
+
+			/**
+			 * 이름이 바뀌는 항목들의 로컬 헤더 위치와 바뀐 이름을 구하는 메소드
+			 * 
+			 * Zip 파일에 없는 디렉토리 항목은 하위 항목의 이름으로 다시 만들어지므로 뺍니다.
+			 * 
+			 * @param nameMap
+			 *            항목 번호와 바뀐 이름
+			 * @return 로컬 헤더 위치를 키로, 바뀐 이름을 값으로 하는 {@link HashMap}
+			 */
+			private HashMap<Long, String> getOffsetMap(
+					HashMap<Integer, String> nameMap) {
+				HashMap<Long, String> offsetMap = new HashMap<Long, String>();
+
+				for (Map.Entry<Integer, String> entry : nameMap.entrySet()) {
+					ZipRecord record = store.getEntry(entry.getKey())
+							.getRecord();
+
+					if (record != null)
+						offsetMap.put(record.getLocalHeaderOffset(), entry
+								.getValue());
+				}
+
+				return offsetMap;
+			}
+
+			/**
+			 * 바뀐 이름으로 Zip 파일을 새로 만드는 메소드
+			 * 
+			 * @param encoding
+			 *            인코딩
+			 * @param nameMap
+			 *            항목 번호와 바뀐 이름
+			 */
+			private void rewrite(String encoding,
+					HashMap<Integer, String> nameMap) {
+				// 임시 Zip 파일 (Zip 파일과 같은 디렉토리에 생성)
+				File tempFile = null;
+
+				try {
+					tempFile = createTempFile(file);
+
+					ZipWriter writer = new ZipWriter(tempFile, encoding);
 
-					// Zip 파일 새로 고침
 					try {
-						zipFile = new ZipFile(file, encoding);
-					} catch (IOException e) {
-						e.printStackTrace();
+						for (int id = 0; id < store.size(); id++) {
+							String entryName = nameMap.get(id);
+							if (entryName == null)
+								entryName = store.getName(id);
+
+							copyEntry(reader, writer, id, entryName);
+						}
+					} finally {
+						writer.finish();
 					}
 
-					loadEntries();
-				}
+					// 임시 파일로 현재 파일을 바꿈
+					replaceFile(tempFile, file);
+				} catch (IOException e) {
+					e.printStackTrace();
 
+					if (tempFile != null)
+						tempFile.delete();
+				}
 			}
 
 		});
@@ -1849,64 +3265,19 @@ public class Zip {
 	public void save(final Shell shell, final File saveFile, final int[] indices) {
 		BusyIndicator.showWhile(shell.getDisplay(), new Runnable() {
 
-			// 저장할 엔트리의 인덱스에 대한 ArrayList
-			private ArrayList<Integer> indexList;
-
-			/**
-			 * 저장해야될 인덱스를 구하는 메소드
-			 * 
-			 * @param indices
-			 *            테이블의 인덱스, null이면 모두 저장
-			 */
-			private void getIndexList(final int[] indices) {
-				indexList = new ArrayList<Integer>();
+			// 저장할 항목 번호들
+			private BitSet saveSet;
 
+			public void run() {
 				if (indices == null) {
 					// 모든 항목 저장
-					for (int i = 0; i < entryList.size(); i++)
-						indexList.add(i);
+					saveSet = new BitSet(store.size());
+					saveSet.set(0, store.size());
 				} else {
-					if (path != null) {
-						// 디렉토리로 보기인 경우
-
-						// 인덱스 변환
-						for (int i = 0; i < indices.length; i++)
-							indices[i] = convertIndex(indices[i]);
-
-						for (int index : indices) {
-							ZipEntry dirEntry = entryList.get(index);
-
-							if (dirEntry.isDirectory()) {
-								// 디렉토리인 경우
-
-								// 하위 디렉토리의 엔트리 추가
-								final String dirName = dirEntry.getName();
-
-								for (ZipEntry entry : entryList) {
-									String entryPath = getParentEntryName(entry);
-
-									while (entryPath.length() != 0) {
-										if (entryPath.equals(dirName)) {
-											indexList.add(entryList
-													.indexOf(entry));
-
-											break;
-										}
-
-										entryPath = getParentEntryName(entryPath);
-									}
-								}
-							}
-						}
-					}
-
-					for (int index : indices)
-						indexList.add(index);
+					saveSet = getSelection(indices);
 				}
-			}
 
-			public void run() {
-				getIndexList(indices);
+				transfer.reset();
 
 				save();
 			}
@@ -1915,46 +3286,49 @@ public class Zip {
 			 * 실제로 저장하는 메소드
 			 */
 			private void save() {
+				// 임시 Zip 파일 (저장할 파일과 같은 디렉토리에 생성)
+				File tempFile = null;
+
 				try {
-					ZipOutputStream zos = new ZipOutputStream(saveFile);
+					tempFile = createTempFile(saveFile);
 
-					try {
-						// 인코딩 설정
-						zos.setEncoding(defaultEncoding);
+					// 기본 인코딩으로 저장
+					ZipWriter writer = new ZipWriter(tempFile,
+							defaultEncoding);
 
+					try {
 						ProgressDialog progressDialog = new ProgressDialog(
-								shell, ProgressMode.ARCHIVE, indexList.size());
+								shell, ProgressMode.ARCHIVE, saveSet
+										.cardinality());
 						progressDialog.open();
 
-						for (int i = 0; i < indexList.size(); i++) {
-							ZipEntry originalEntry = entryList.get(indexList
-									.get(i));
-							ZipEntry entry = new ZipEntry(originalEntry
-									.getName());
+						// 저장한 항목의 숫자
+						int count = 0;
 
-							// 바뀐 시간 설정
-							long time = originalEntry.getTime();
-							if (time != -1)
-								entry.setTime(time);
+						for (int id = saveSet.nextSetBit(0); id >= 0; id = saveSet
+								.nextSetBit(id + 1)) {
+							copyEntry(reader, writer, id, store.getName(id));
 
-							zos.putNextEntry(entry);
-
-							if (!originalEntry.isDirectory())
-								// 파일인 경우
-								archive(zipFile.getInputStream(originalEntry),
-										zos);
-
-							zos.closeEntry();
-
-							progressDialog.update(i + 1);
+							progressDialog.update(++count);
 						}
 
 						progressDialog.close();
 					} finally {
-						zos.finish();
+						writer.finish();
 					}
+
+					// 임시 파일로 저장할 파일을 바꿈
+					replaceFile(tempFile, saveFile);
 				} catch (IOException e) {
 					e.printStackTrace();
+
+					if (tempFile != null)
+						tempFile.delete();
+				}
+
+				if (saveFile.getAbsoluteFile().equals(file.getAbsoluteFile())) {
+					// 현재 Zip 파일에 저장한 경우 기본 인코딩으로 다시 불러오기
+					reload(defaultEncoding);
 				}
 			}
 
@@ -1983,6 +3357,8 @@ public class Zip {
 		if (text.equals("/") || (text.length() == 0)) {
 			path = "";
 
+			updateView();
+
 			return;
 		}
 
@@ -1992,176 +3368,98 @@ public class Zip {
 		if (!text.endsWith("/"))
 			text += "/";
 
-		for (ZipEntry entry : entryList) {
-			if (entry.getName().equals(text)) {
-				path = text;
+		final Node node = dirMap.get(text);
 
-				return;
-			}
+		if (node != null && node.entry != -1) {
+			// 디렉토리 항목이 있는 경우
+			path = text;
+
+			updateView();
 		}
 	}
 
-	public void sortByDir(final boolean reverse) {
-		Collections.sort(entryList, new Comparator<ZipEntry>() {
-
-			public int compare(ZipEntry o1, ZipEntry o2) {
-				final boolean type1 = o1.isDirectory();
-				final boolean type2 = o2.isDirectory();
-
-				if (type1 && type2)
-					return 0;
-
-				if (!type1 && !type2)
-					return 0;
-
-				if (reverse) {
-					if (type2 && !type1)
-						return -1;
-					else
-						return 1;
-				} else {
-					if (type1 && !type2)
-						return -1;
-					else
-						return 1;
-				}
-			}
+	/**
+	 * 디렉토리 항목을 앞이나 뒤로 모으는 메소드
+	 *
+	 * 지금의 정렬 기준은 그대로 두고 디렉토리인지의 여부를 먼저 비교합니다. 다른 기준으로 정렬하면
+	 * 모으지 않습니다.
+	 *
+	 * @param reverse
+	 *            디렉토리를 뒤로 모을지의 여부
+	 */
+	public void sortByDir(boolean reverse) {
+		dirOrder = reverse ? -1 : 1;
 
-		});
+		updateView();
 	}
 
 	/**
 	 * {@link ZipEntry}를 이름으로 정렬하는 메소드
-	 * 
+	 *
 	 * @param reverse
 	 *            역순 여부
 	 */
-	public void sortByName(final boolean reverse) {
-		Collections.sort(entryList, new Comparator<ZipEntry>() {
-
-			public int compare(ZipEntry o1, ZipEntry o2) {
-				final String name1 = getEntryName(o1);
-				final String name2 = getEntryName(o2);
-
-				if (reverse)
-					return name2.compareTo(name1);
-				else
-					return name1.compareTo(name2);
-			}
-
-		});
+	public void sortByName(boolean reverse) {
+		setSort(SORT_NAME, reverse);
 	}
 
 	/**
 	 * {@link ZipEntry}를 위치로 정렬하는 메소드
-	 * 
+	 *
 	 * @param reverse
 	 *            역순 여부
 	 */
-	public void sortByPath(final boolean reverse) {
+	public void sortByPath(boolean reverse) {
 		if (path != null) {
 			return;
 		}
 
-		Collections.sort(entryList, new Comparator<ZipEntry>() {
-
-			public int compare(ZipEntry o1, ZipEntry o2) {
-				final String path1 = getEntryPath(o1);
-				final String path2 = getEntryPath(o2);
-
-				if (reverse)
-					return path2.compareTo(path1);
-				else
-					return path1.compareTo(path2);
-			}
-
-		});
+		setSort(SORT_PATH, reverse);
 	}
 
 	/**
 	 * {@link ZipEntry}를 크기로 정렬하는 메소드
-	 * 
+	 *
 	 * @param reverse
 	 *            역순 여부
 	 */
-	public void sortBySize(final boolean reverse) {
-		Collections.sort(entryList, new Comparator<ZipEntry>() {
-
-			public int compare(ZipEntry o1, ZipEntry o2) {
-				long size1 = 0;
-				long size2 = 0;
-
-				if (path == null) {
-					// 모든 파일 보기
-					size1 = o1.getSize();
-					size2 = o2.getSize();
-				} else {
-					// 디렉토리로 보기
-					if (o1.isDirectory())
-						// 디렉토리인 경우
-						size1 = getDirSize(o1);
-					else
-						// 파일인 경우
-						size1 = o1.getSize();
-
-					if (o2.isDirectory())
-						// 디렉토리인 경우
-						size2 = getDirSize(o2);
-					else
-						// 파일인 경우
-						size2 = o2.getSize();
-				}
-
-				if (reverse)
-					return (int) (size2 - size1);
-				else
-					return (int) (size1 - size2);
-			}
-
-		});
+	public void sortBySize(boolean reverse) {
+		setSort(SORT_SIZE, reverse);
 	}
 
 	/**
 	 * {@link ZipEntry}를 바뀐 시간으로 정렬하는 메소드
-	 * 
+	 *
 	 * @param reverse
 	 *            역순 여부
 	 */
-	public void sortByTime(final boolean reverse) {
-		Collections.sort(entryList, new Comparator<ZipEntry>() {
-
-			public int compare(ZipEntry o1, ZipEntry o2) {
-				final long time1 = o1.getTime();
-				final long time2 = o2.getTime();
-
-				if (reverse)
-					return (int) (time2 - time1);
-				else
-					return (int) (time1 - time2);
-			}
-
-		});
+	public void sortByTime(boolean reverse) {
+		setSort(SORT_TIME, reverse);
 	}
 
 	/**
 	 * {@link ZipEntry}를 형태로 정렬하는 메소드
-	 * 
+	 *
 	 * @param reverse
 	 *            역순 여부
 	 */
-	public void sortByType(final boolean reverse) {
-		Collections.sort(entryList, new Comparator<ZipEntry>() {
-
-			public int compare(ZipEntry o1, ZipEntry o2) {
-				final String type1 = getType(o1);
-				final String type2 = getType(o2);
+	public void sortByType(boolean reverse) {
+		setSort(SORT_TYPE, reverse);
+	}
 
-				if (reverse)
-					return type2.compareTo(type1);
-				else
-					return type1.compareTo(type2);
-			}
+	/**
+	 * 정렬 기준을 바꾸는 메소드
+	 *
+	 * @param column
+	 *            정렬 기준
+	 * @param reverse
+	 *            역순 여부
+	 */
+	private void setSort(int column, boolean reverse) {
+		sortColumn = column;
+		sortReverse = reverse;
+		dirOrder = 0;
 
-		});
+		updateView();
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,1549 @@
+/**
+ * ZipCompressor : 여러 스레드에서 파일을 압축하는 클래스
+ */
+package com.github.seungwon0.JZip;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.NumberFormat;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * 여러 스레드에서 파일들을 동시에 압축하고, 압축된 항목들을 더한 순서대로 {@link ZipWriter}에
+ * 쓰는 클래스
+ * 
+ * 각 파일은 작업 스레드에서 메모리 버퍼에 압축되고, 버퍼가 일정 크기를 넘으면 임시 파일에 이어서
+ * 씁니다. 스트림에 쓰는 경우에는 임시 파일을 만들지 않도록 메모리 버퍼보다 큰 파일을 아래의
+ * 블록 단위로 압축하여 데이터 설명자와 함께 바로 씁니다. 스트림은 되돌릴 수 없으므로 로컬 헤더를
+ * 쓴 뒤에 파일을 읽지 못하면 읽은 데까지로 항목을 끝내고 다음 항목으로 넘어갑니다. 압축된 항목은 {@link #addFile(File, String)}를 호출한 스레드 하나만
+ * {@link ZipWriter#putRawEntry(ZipRecord, String)}로 쓰므로 Zip 파일 내 항목의 순서는
+ * 항상 더한 순서와 같습니다. 압축이 끝나고 아직 쓰지 않은 항목의 숫자는 일정하게 제한됩니다.
+ * 
+ * 아주 큰 파일은 일정한 크기의 블록으로 나누어 여러 스레드에서 동시에 압축합니다. 각 블록은 앞
+ * 블록의 마지막 32 KB를 사전으로 사용하고 SYNC_FLUSH로 바이트 경계에서 끝나므로, 압축된
+ * 블록들을 순서대로 이어 붙이면 하나의 Deflate 스트림이 됩니다. CRC-32는 블록마다 계산한 값을
+ * 합쳐서 구합니다.
+ * 
+ * 파일마다 압축 방법을 고릅니다. 압축 수준이 0이면 모두 저장만 하고, 그 밖에는 파일 앞부분의
+ * 바이트 엔트로피를 재고 엔트로피가 높으면 앞부분만 가장 빠르게 압축해 보아, 더 줄어들지 않을
+ * 데이터는 압축하지 않고 그대로 저장합니다. 그림, 음악, 동영상, 압축 파일처럼 이미 압축되어 있을
+ * 형식은 더 낮은 엔트로피에서도 시험해 봅니다. 파일에 쓸 때 저장만 하는 파일은 작업 스레드를
+ * 거치지 않고 쓸 때 바로 읽습니다. 스트림에 쓸 때는 로컬 헤더에 CRC-32와 크기를 미리 써야 하므로
+ * 작업 스레드에서 메모리에 읽어 두고, 메모리 버퍼보다 큰 파일은 압축하지 않는 Deflate 블록으로
+ * 나누어 씁니다.
+ * 
+ * 파일에 쓰는 경우 내용이 같은 파일은 한 번만 압축합니다. SHA-1 지문은 작업 스레드에서
+ * 구합니다. 처음 나온 크기의 파일은 압축하면서 같이 구하고, 크기가 같은 파일이 나오면 지문부터
+ * 구하여 앞서 더한 같은 크기의 파일들과 비교합니다. 내용이 같으면 압축하지 않고, 쓸 때 원본 항목이
+ * 제대로 쓰였는지 확인한 뒤 그 항목의 압축된 데이터를 Zip 파일 안에서 그대로 복사합니다. 절약한
+ * 압축 시간은 원본을 압축하는 데 든 CPU 시간으로 셉니다.
+ * 
+ * 압축한 데이터는 {@link EntryCache}에도 보관해 두고, 경로, 크기, 바뀐 시간과 압축 수준이
+ * 같은 파일을 다음에 다시 더하면 압축하지 않고 캐시에 있던 데이터를 그대로 씁니다.
+ * 
+ * {@link Deflater}와 버퍼는 작업 스레드마다의 {@link CodecPool}에서 빌려 쓰고 돌려줍니다.
+ * 
+ * @author Seungwon Jeong
+ * 
+ */
+public class ZipCompressor {
+
+	/**
+	 * 일정 크기까지는 메모리에 담고 그 이상은 임시 파일에 쓰는 {@link OutputStream}
+	 * 
+	 * 임시 파일을 쓰지 않도록 만들면 크기에 상관없이 메모리에 담습니다.
+	 * 
+	 * @author Seungwon Jeong
+	 * 
+	 */
+	private static class SpillBuffer extends OutputStream {
+		private final boolean spillable; // 임시 파일에 쓸 수 있는지의 여부
+
+		private byte[] buffer = new byte[8192]; // 메모리 버퍼
+
+		private int count; // 메모리 버퍼에 담긴 바이트 수
+
+		private File spillFile; // 임시 파일
+
+		private OutputStream spill; // 임시 파일의 출력 스트림
+
+		private long size; // 전체 바이트 수
+
+		/**
+		 * {@link SpillBuffer} 클래스의 생성자
+		 * 
+		 * @param spillable
+		 *            일정 크기를 넘으면 임시 파일에 쓸지의 여부
+		 */
+		public SpillBuffer(boolean spillable) {
+			this.spillable = spillable;
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (spill != null)
+				spill.close();
+		}
+
+		/**
+		 * 버퍼와 임시 파일을 지우는 메소드
+		 */
+		public void delete() {
+			buffer = null;
+
+			if (spillFile != null)
+				spillFile.delete();
+		}
+
+		/**
+		 * 담긴 데이터를 읽는 {@link InputStream}을 반환하는 메소드
+		 * 
+		 * @return 담긴 데이터를 읽는 {@link InputStream}
+		 * @throws IOException
+		 */
+		public InputStream getInputStream() throws IOException {
+			if (spillFile == null)
+				return new ByteArrayInputStream(buffer, 0, count);
+			else
+				return new FileInputStream(spillFile);
+		}
+
+		/**
+		 * 전체 바이트 수를 반환하는 메소드
+		 * 
+		 * @return 전체 바이트 수
+		 */
+		public long size() {
+			return size;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[] { (byte) b }, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			if (spillable && spill == null && count + len > MEMORY_LIMIT) {
+				// 메모리 버퍼가 넘치는 경우 임시 파일로 옮김
+				spillFile = File.createTempFile("JZip", ".tmp");
+				spill = new FileOutputStream(spillFile);
+				spill.write(buffer, 0, count);
+
+				buffer = null;
+			}
+
+			if (spill != null) {
+				spill.write(b, off, len);
+			} else {
+				if (count + len > buffer.length) {
+					int newLength = Math.max(buffer.length * 2, count + len);
+					if (spillable)
+						newLength = Math.min(newLength, MEMORY_LIMIT);
+
+					byte[] newBuffer = new byte[newLength];
+					System.arraycopy(buffer, 0, newBuffer, 0, count);
+					buffer = newBuffer;
+				}
+
+				System.arraycopy(b, off, buffer, count, len);
+				count += len;
+			}
+
+			size += len;
+		}
+	}
+
+	/**
+	 * 압축이 끝난 항목
+	 * 
+	 * @author Seungwon Jeong
+	 * 
+	 */
+	private static class Result {
+		private final ZipRecord record; // 항목 정보
+
+		private final SpillBuffer data; // 압축된 데이터, 디렉토리이거나 저장만 하면 null
+
+		private final File file; // 저장만 할 파일, 아니면 null
+
+		private long cpuTime; // 압축하는 데 든 CPU 시간 (나노초)
+
+		public Result(ZipRecord record, SpillBuffer data, File file) {
+			this.record = record;
+			this.data = data;
+			this.file = file;
+		}
+	}
+
+	/**
+	 * 큰 파일을 나눈 블록 하나의 압축이 끝난 결과
+	 * 
+	 * @author Seungwon Jeong
+	 * 
+	 */
+	private static class Block {
+		private final ZipRecord record; // 블록이 속한 항목 정보
+
+		private final byte[] data; // 압축된 데이터, 파일을 읽지 못했으면 null
+
+		private final long crc; // 압축하기 전 블록의 CRC-32
+
+		private final int size; // 압축하기 전 블록의 크기
+
+		private final boolean first; // 항목의 첫 블록인지의 여부
+
+		private final boolean last; // 항목의 마지막 블록인지의 여부
+
+		// 압축된 데이터를 보관할 캐시 항목, 캐시를 쓰지 않으면 null
+		private final EntryCache.Writer cacheWriter;
+
+		private long cpuTime; // 압축하는 데 든 CPU 시간 (나노초)
+
+		public Block(ZipRecord record, byte[] data, long crc, int size,
+				boolean first, boolean last, EntryCache.Writer cacheWriter) {
+			this.record = record;
+			this.data = data;
+			this.crc = crc;
+			this.size = size;
+			this.first = first;
+			this.last = last;
+			this.cacheWriter = cacheWriter;
+		}
+	}
+
+	/**
+	 * 압축된 데이터를 캐시에서 찾은 항목
+	 * 
+	 * @author Seungwon Jeong
+	 * 
+	 */
+	private static class Cached {
+		private final ZipRecord record; // 항목 정보
+
+		private final InputStream input; // 캐시에 있던 압축된 데이터
+
+		public Cached(ZipRecord record, InputStream input) {
+			this.record = record;
+			this.input = input;
+		}
+	}
+
+	/**
+	 * 앞서 더한 파일과 내용이 같아서 압축된 데이터를 복사할 항목
+	 * 
+	 * @author Seungwon Jeong
+	 * 
+	 */
+	private static class Duplicate {
+		private final File file; // 더할 파일
+
+		private final String name; // 항목 이름
+
+		private final String original; // 내용이 같은 원본 항목의 이름
+
+		public Duplicate(File file, String name, String original) {
+			this.file = file;
+			this.name = name;
+			this.original = original;
+		}
+	}
+
+	// 항목 하나의 압축된 데이터를 메모리에 담을 최대 크기 : 4 MB
+	private static final int MEMORY_LIMIT = 4 * 1024 * 1024;
+
+	private static final int BLOCK_SIZE = 1024 * 1024; // 큰 파일의 블록 크기 : 1 MB
+
+	// 블록으로 나누어 압축할 파일의 최소 크기 : 16 MB
+	private static final long BLOCK_THRESHOLD = 16L * 1024 * 1024;
+
+	private static final int DICTIONARY_SIZE = 32 * 1024; // Deflate 사전 크기 : 32 KB
+
+	// SYNC_FLUSH로 끝난 Deflate 스트림을 끝내는 빈 마지막 블록 (고정 허프만 부호)
+	private static final byte[] FINAL_BLOCK = { 0x03, 0x00 };
+
+	// 엔트로피를 잴 크기 : 64 KB
+	private static final int SAMPLE_SIZE = CodecPool.BUFFER_SIZE;
+
+	// 저장만 할 엔트로피 (바이트당 비트 수)
+	private static final double STORED_ENTROPY = 7.9;
+
+	// 이미 압축된 형식의 파일을 저장만 할 엔트로피 (바이트당 비트 수)
+	private static final double STORED_ENTROPY_COMPRESSED_TYPE = 7.0;
+
+	// 저장만 할 표본의 압축률 (압축된 크기 / 원래 크기)
+	private static final double STORED_RATIO = 0.97;
+
+	private final ZipWriter writer; // 압축된 항목을 쓸 ZipWriter
+
+	private final EntryCache cache; // 압축된 데이터의 캐시, 쓰지 않으면 null
+
+	private final int level; // 압축 수준
+
+	private final Transfer transfer; // 전송 통계를 더할 Transfer
+
+	private final Transfer writeTransfer = new Transfer(); // 쓰기에 사용할 Transfer
+
+	private final ExecutorService executor; // 작업 스레드들
+
+	private final int maxPending; // 쓰지 않은 항목의 최대 숫자
+
+	// 더한 순서대로의 쓰지 않은 항목들
+	private final LinkedList<Future<?>> pendingList = new LinkedList<Future<?>>();
+
+	private final AtomicLong bytes = new AtomicLong(); // 압축한 바이트 수
+
+	private final long start = System.nanoTime(); // 시작한 시간
+
+	private long blockCrc; // 블록으로 쓰고 있는 항목의 CRC-32
+
+	private long blockSize; // 블록으로 쓰고 있는 항목의 지금까지의 크기
+
+	private long blockCpuTime; // 블록으로 쓰고 있는 항목을 압축하는 데 든 CPU 시간
+
+	// 블록으로 쓰고 있는 항목의 캐시 항목
+	private EntryCache.Writer blockCacheWriter;
+
+	// 크기마다 마지막으로 더한 파일의 지문이 정해지면 열리는 래치
+	private final HashMap<Long, CountDownLatch> latchMap = new HashMap<Long, CountDownLatch>();
+
+	// SHA-1 지문마다 처음 더한 파일의 항목 이름 (작업 스레드들이 함께 씀)
+	private final ConcurrentHashMap<ByteBuffer, String> digestMap = new ConcurrentHashMap<ByteBuffer, String>();
+
+	// 쓴 항목의 이름마다의 ZipRecord
+	private final HashMap<String, ZipRecord> writtenMap = new HashMap<String, ZipRecord>();
+
+	// 쓴 항목의 이름마다 압축하는 데 든 CPU 시간
+	private final HashMap<String, Long> cpuTimeMap = new HashMap<String, Long>();
+
+	private int duplicateCount; // 압축된 데이터를 복사한 항목의 숫자
+
+	private long savedCpuTime; // 복사하여 절약한 CPU 시간 (나노초)
+
+	/**
+	 * {@link ZipCompressor} 클래스의 생성자
+	 * 
+	 * 프로세서 수만큼의 작업 스레드를 만듭니다.
+	 * 
+	 * @param writer
+	 *            압축된 항목을 쓸 {@link ZipWriter}
+	 * @param transfer
+	 *            끝날 때 전송 통계를 더할 {@link Transfer}
+	 * @param level
+	 *            압축 수준 (0-9, {@link Deflater#DEFAULT_COMPRESSION}이면 기본값, 0이면
+	 *            저장만 함)
+	 */
+	public ZipCompressor(ZipWriter writer, Transfer transfer, int level) {
+		this.writer = writer;
+		this.transfer = transfer;
+		this.level = level;
+
+		// 저장만 하면 캐시에 보관할 것이 없음
+		cache = (level == Deflater.NO_COMPRESSION) ? null : EntryCache.get();
+
+		final int threadCount = Runtime.getRuntime().availableProcessors();
+
+		executor = Executors.newFixedThreadPool(threadCount);
+		maxPending = threadCount * 2;
+	}
+
+	/**
+	 * 디렉토리 항목을 더하는 메소드
+	 * 
+	 * @param name
+	 *            디렉토리 항목 이름 ('/'로 끝남)
+	 * @param time
+	 *            바뀐 시간
+	 * @throws IOException
+	 */
+	public void addDirectory(String name, long time) throws IOException {
+		ZipRecord record = new ZipRecord(name);
+		record.setTime(time);
+
+		addDone(new Result(record, null, null));
+	}
+
+	/**
+	 * 압축할 필요가 없는 항목을 더하는 메소드
+	 * 
+	 * @param result
+	 *            항목
+	 * @throws IOException
+	 */
+	private void addDone(final Object result) throws IOException {
+		FutureTask<Object> task = new FutureTask<Object>(new Callable<Object>() {
+
+			public Object call() {
+				return result;
+			}
+
+		});
+
+		// 압축할 필요가 없으므로 바로 끝냄
+		task.run();
+
+		add(task);
+	}
+
+	/**
+	 * 압축할 파일을 더하는 메소드
+	 * 
+	 * 파일은 작업 스레드에서 압축됩니다. 큰 파일은 이 메소드를 호출한 스레드에서 블록 단위로
+	 * 읽고, 각 블록을 작업 스레드들에서 동시에 압축합니다. 캐시에 있는 파일은 압축하지 않습니다.
+	 * 파일의 크기 외에는 이 메소드를 호출한 스레드에서 파일을 읽지 않습니다.
+	 * 
+	 * @param file
+	 *            압축할 {@link File}
+	 * @param name
+	 *            항목 이름
+	 * @throws IOException
+	 */
+	public void addFile(final File file, final String name) throws IOException {
+		if (cache != null && file.length() > 0) {
+			EntryCache.Hit hit = cache.get(file, level);
+
+			if (hit != null) {
+				addCached(file, name, hit);
+
+				return;
+			}
+		}
+
+		// 스트림에 쓰는 경우 임시 파일을 만들지 않도록 메모리에 담지 못할 파일도 블록으로 나눔
+		if (file.length() >= BLOCK_THRESHOLD
+				|| (writer.isStream() && file.length() > MEMORY_LIMIT)) {
+			int method;
+			try {
+				method = getMethod(file);
+			} catch (IOException e) {
+				// 파일을 읽지 못한 경우
+				e.printStackTrace();
+
+				return;
+			}
+
+			if (method == ZipRecord.DEFLATED) {
+				addBlocks(file, name, level);
+
+				return;
+			}
+
+			if (writer.isStream()) {
+				// 저장만 할 파일은 압축하지 않는 Deflate 블록으로 나눔
+				addBlocks(file, name, Deflater.NO_COMPRESSION);
+
+				return;
+			}
+		}
+
+		// 압축하는 동안 파일이 바뀌는지 알아보기 위해 미리 구함
+		final long length = file.length();
+		final long time = file.lastModified();
+
+		// 내용이 같은 파일을 찾기 위해 크기가 같은 앞 파일의 래치와 이 파일의 래치를 정함
+		final CountDownLatch previous;
+		final CountDownLatch digested;
+		if (!writer.isStream() && length > 0) {
+			previous = latchMap.get(length);
+			digested = new CountDownLatch(1);
+			latchMap.put(length, digested);
+		} else {
+			previous = null;
+			digested = null;
+		}
+
+		add(executor.submit(new Callable<Object>() {
+
+			public Object call() throws Exception {
+				final long cpuTime = getCpuTime();
+
+				if (previous != null) {
+					// 크기가 같은 파일을 앞서 더한 경우
+					final String original = findDuplicate(file, name,
+							previous, digested);
+
+					if (original != null)
+						return new Duplicate(file, name, original);
+				}
+
+				Result result = compress(file, name,
+						(previous == null) ? digested : null);
+				result.cpuTime = getCpuTime() - cpuTime;
+
+				if (cache != null && length > 0)
+					putCache(result, file, length, time);
+
+				return result;
+			}
+
+		}));
+	}
+
+	/**
+	 * 캐시에서 찾은 파일을 더하는 메소드
+	 * 
+	 * 압축된 데이터는 그대로 쓰고, 저장만 할 파일은 엔트로피를 다시 재지 않고 저장합니다.
+	 * 
+	 * @param file
+	 *            더할 {@link File}
+	 * @param name
+	 *            항목 이름
+	 * @param hit
+	 *            캐시에서 찾은 항목
+	 * @throws IOException
+	 */
+	private void addCached(final File file, final String name,
+			EntryCache.Hit hit) throws IOException {
+		if (hit.getMethod() == ZipRecord.STORED) {
+			if (writer.isStream() && file.length() > MEMORY_LIMIT) {
+				// 메모리에 담지 못할 파일은 압축하지 않는 Deflate 블록으로 나눔
+				addBlocks(file, name, Deflater.NO_COMPRESSION);
+
+				return;
+			}
+
+			add(executor.submit(new Callable<Result>() {
+
+				public Result call() throws Exception {
+					return store(file, name);
+				}
+
+			}));
+
+			return;
+		}
+
+		ZipRecord record = getRecord(file, name, ZipRecord.DEFLATED);
+		hit.apply(record);
+
+		addDone(new Cached(record, hit.getInputStream()));
+	}
+
+	/**
+	 * 압축이 끝난 항목을 캐시에 보관하는 메소드 (작업 스레드에서 실행됨)
+	 * 
+	 * 저장만 하는 항목은 압축 방법만 보관합니다.
+	 * 
+	 * @param result
+	 *            압축이 끝난 항목
+	 * @param file
+	 *            압축한 {@link File}
+	 * @param length
+	 *            압축을 시작하기 전의 파일 크기
+	 * @param time
+	 *            압축을 시작하기 전의 파일의 바뀐 시간
+	 */
+	private void putCache(Result result, File file, long length, long time) {
+		EntryCache.Writer cacheWriter = cache.getWriter(file, length, time,
+				level);
+
+		if (result.record.getMethod() == ZipRecord.DEFLATED) {
+			CodecPool pool = CodecPool.get();
+			byte[] buffer = pool.getBuffer();
+
+			try {
+				InputStream is = result.data.getInputStream();
+				try {
+					int n;
+					while ((n = is.read(buffer, 0, buffer.length)) != -1)
+						cacheWriter.write(buffer, 0, n);
+				} finally {
+					is.close();
+				}
+			} catch (IOException e) {
+				e.printStackTrace();
+
+				cacheWriter.abort();
+
+				return;
+			} finally {
+				pool.release(buffer);
+			}
+		}
+
+		cacheWriter.commit(result.record.getMethod(), result.record.getCrc(),
+				result.record.getSize());
+	}
+
+	/**
+	 * 항목을 쓰지 않은 항목들에 더하는 메소드
+	 * 
+	 * 쓰지 않은 항목이 너무 많으면 앞의 항목들을 먼저 씁니다.
+	 * 
+	 * @param future
+	 *            더할 항목
+	 * @throws IOException
+	 */
+	private void add(Future<?> future) throws IOException {
+		pendingList.add(future);
+
+		while (pendingList.size() > maxPending)
+			writeNext();
+	}
+
+	/**
+	 * 큰 파일을 블록으로 나누어 더하는 메소드
+	 * 
+	 * 파일을 끝까지 읽지 못하면 알리고 이미 더한 블록들과 함께 항목을 취소합니다. 스트림에 쓰는
+	 * 경우에는 이미 쓴 블록을 되돌릴 수 없으므로 읽은 데까지로 항목을 끝냅니다.
+	 * 
+	 * @param file
+	 *            압축할 {@link File}
+	 * @param name
+	 *            항목 이름
+	 * @param blockLevel
+	 *            블록의 압축 수준 (저장만 할 파일이면 {@link Deflater#NO_COMPRESSION})
+	 * @throws IOException
+	 */
+	private void addBlocks(File file, String name, int blockLevel)
+			throws IOException {
+		final ZipRecord record = getRecord(file, name, ZipRecord.DEFLATED);
+
+		// 로컬 헤더에 Zip64 추가 필드가 필요한지 정할 예상 크기
+		record.setSize(file.length());
+
+		InputStream is;
+		try {
+			is = new FileInputStream(file);
+		} catch (IOException e) {
+			// 파일을 읽지 못한 경우
+			e.printStackTrace();
+
+			return;
+		}
+
+		// 항목 정보의 시간은 DOS 형식으로 잘리므로 파일의 바뀐 시간을 다시 구함
+		final EntryCache.Writer cacheWriter = (cache == null || blockLevel != level) ? null
+				: cache.getWriter(file, record.getSize(), file.lastModified(),
+						level);
+
+		try {
+			byte[] dictionary = null;
+			boolean first = true;
+
+			while (true) {
+				final byte[] input = new byte[BLOCK_SIZE];
+
+				int length = 0;
+				try {
+					int n;
+					while (length < input.length
+							&& (n = is.read(input, length, input.length - length)) != -1)
+						length += n;
+				} catch (IOException e) {
+					// 파일을 끝까지 읽지 못한 경우 이미 더한 블록들을 버리도록 함
+					e.printStackTrace();
+
+					addDone(new Block(record, null, 0, 0, first, true,
+							cacheWriter));
+
+					return;
+				}
+
+				final boolean last = (length < input.length);
+
+				add(submitBlock(record, input, length, dictionary, first, last,
+						blockLevel, cacheWriter));
+
+				if (last)
+					break;
+
+				dictionary = input;
+				first = false;
+			}
+		} finally {
+			is.close();
+		}
+	}
+
+	/**
+	 * 블록 하나의 압축을 작업 스레드에 맡기는 메소드
+	 * 
+	 * @param record
+	 *            블록이 속한 항목 정보
+	 * @param input
+	 *            블록 데이터
+	 * @param length
+	 *            블록 데이터의 크기
+	 * @param dictionary
+	 *            앞 블록의 데이터, 첫 블록이면 null
+	 * @param first
+	 *            항목의 첫 블록인지의 여부
+	 * @param last
+	 *            항목의 마지막 블록인지의 여부
+	 * @param blockLevel
+	 *            블록의 압축 수준
+	 * @param cacheWriter
+	 *            압축된 데이터를 보관할 캐시 항목, 캐시를 쓰지 않으면 null
+	 * @return 압축된 블록
+	 */
+	private Future<Block> submitBlock(final ZipRecord record,
+			final byte[] input, final int length, final byte[] dictionary,
+			final boolean first, final boolean last, final int blockLevel,
+			final EntryCache.Writer cacheWriter) {
+		return executor.submit(new Callable<Block>() {
+
+			public Block call() {
+				final long cpuTime = getCpuTime();
+
+				CRC32 crc = new CRC32();
+				crc.update(input, 0, length);
+
+				byte[] data = deflateBlock(input, length, dictionary, last,
+						blockLevel);
+
+				bytes.addAndGet(length);
+
+				Block block = new Block(record, data, crc.getValue(), length,
+						first, last, cacheWriter);
+				block.cpuTime = getCpuTime() - cpuTime;
+
+				return block;
+			}
+
+		});
+	}
+
+	/**
+	 * 블록 하나를 압축하는 메소드 (작업 스레드에서 실행됨)
+	 * 
+	 * 마지막 블록이 아니면 SYNC_FLUSH로 끝내어 압축된 데이터가 바이트 경계에서 끝나고 Deflate
+	 * 스트림이 이어지도록 합니다.
+	 * 
+	 * @param input
+	 *            블록 데이터
+	 * @param length
+	 *            블록 데이터의 크기
+	 * @param dictionary
+	 *            앞 블록의 데이터, 첫 블록이면 null
+	 * @param last
+	 *            항목의 마지막 블록인지의 여부
+	 * @param level
+	 *            압축 수준
+	 * @return 압축된 데이터
+	 */
+	private static byte[] deflateBlock(byte[] input, int length,
+			byte[] dictionary, boolean last, int level) {
+		CodecPool pool = CodecPool.get();
+
+		Deflater deflater = pool.getDeflater(level);
+		byte[] buffer = pool.getBuffer();
+
+		try {
+			if (dictionary != null)
+				deflater.setDictionary(dictionary, dictionary.length
+						- DICTIONARY_SIZE, DICTIONARY_SIZE);
+
+			deflater.setInput(input, 0, length);
+
+			ByteArrayOutputStream baos = new ByteArrayOutputStream(
+					length / 2 + 64);
+
+			if (last) {
+				deflater.finish();
+
+				while (!deflater.finished()) {
+					final int n = deflater.deflate(buffer);
+					baos.write(buffer, 0, n);
+				}
+			} else {
+				int n;
+				do {
+					n = deflater.deflate(buffer, 0, buffer.length,
+							Deflater.SYNC_FLUSH);
+					baos.write(buffer, 0, n);
+				} while (n == buffer.length);
+			}
+
+			return baos.toByteArray();
+		} finally {
+			pool.release(deflater, level);
+			pool.release(buffer);
+		}
+	}
+
+	/**
+	 * 두 구간의 CRC-32로 이어 붙인 구간의 CRC-32를 구하는 메소드
+	 * 
+	 * zlib의 crc32_combine과 같은 방법으로, 앞 구간의 CRC-32에 뒤 구간의 길이만큼 0을
+	 * 덧붙이는 연산을 GF(2) 행렬의 거듭제곱으로 계산합니다.
+	 * 
+	 * @param crc1
+	 *            앞 구간의 CRC-32
+	 * @param crc2
+	 *            뒤 구간의 CRC-32
+	 * @param length2
+	 *            뒤 구간의 길이
+	 * @return 이어 붙인 구간의 CRC-32
+	 */
+	static long combineCrc(long crc1, long crc2, long length2) {
+		if (length2 <= 0)
+			return crc1;
+
+		long[] even = new long[32]; // 0을 짝수 번 거듭제곱한 연산자
+		long[] odd = new long[32]; // 0을 홀수 번 거듭제곱한 연산자
+
+		// 0 비트 하나에 대한 연산자
+		odd[0] = 0xedb88320L;
+		long row = 1;
+		for (int i = 1; i < 32; i++) {
+			odd[i] = row;
+			row <<= 1;
+		}
+
+		// 0 비트 두 개, 네 개에 대한 연산자
+		squareMatrix(even, odd);
+		squareMatrix(odd, even);
+
+		// 0 바이트 하나부터 시작하여 length2의 비트마다 연산자를 적용
+		do {
+			squareMatrix(even, odd);
+			if ((length2 & 1) != 0)
+				crc1 = multiplyMatrix(even, crc1);
+			length2 >>= 1;
+
+			if (length2 == 0)
+				break;
+
+			squareMatrix(odd, even);
+			if ((length2 & 1) != 0)
+				crc1 = multiplyMatrix(odd, crc1);
+			length2 >>= 1;
+		} while (length2 != 0);
+
+		return crc1 ^ crc2;
+	}
+
+	/**
+	 * GF(2) 행렬과 벡터를 곱하는 메소드
+	 */
+	private static long multiplyMatrix(long[] matrix, long vector) {
+		long sum = 0;
+
+		for (int i = 0; vector != 0; i++, vector >>>= 1)
+			if ((vector & 1) != 0)
+				sum ^= matrix[i];
+
+		return sum;
+	}
+
+	/**
+	 * GF(2) 행렬을 제곱하는 메소드
+	 */
+	private static void squareMatrix(long[] square, long[] matrix) {
+		for (int i = 0; i < 32; i++)
+			square[i] = multiplyMatrix(matrix, matrix[i]);
+	}
+
+	/**
+	 * 파일 하나를 압축하는 메소드 (작업 스레드에서 실행됨)
+	 * 
+	 * 래치가 주어지면 압축하면서 지문을 구하여 기록한 뒤 래치를 엽니다.
+	 * 
+	 * @param file
+	 *            압축할 {@link File}
+	 * @param name
+	 *            항목 이름
+	 * @param digested
+	 *            지문이 정해지면 열 래치, 지문을 구하지 않으면 null
+	 * @return 압축이 끝난 항목
+	 * @throws IOException
+	 */
+	private Result compress(File file, String name, CountDownLatch digested)
+			throws IOException {
+		try {
+			if (getMethod(file) == ZipRecord.STORED)
+				// 저장만 하는 파일은 압축하지 않으므로 지문을 구하지 않음
+				return store(file, name);
+
+			return deflate(file, name, (digested == null) ? null : getSha1());
+		} finally {
+			if (digested != null)
+				digested.countDown();
+		}
+	}
+
+	/**
+	 * 파일을 Deflate로 압축하는 메소드 (작업 스레드에서 실행됨)
+	 * 
+	 * 지문을 구하는 경우 압축하면서 같이 구하여 digestMap에 기록합니다.
+	 * 
+	 * @param file
+	 *            압축할 {@link File}
+	 * @param name
+	 *            항목 이름
+	 * @param md
+	 *            지문을 구할 {@link MessageDigest}, 구하지 않으면 null
+	 * @return 압축이 끝난 항목
+	 * @throws IOException
+	 */
+	private Result deflate(File file, String name, MessageDigest md)
+			throws IOException {
+		ZipRecord record = getRecord(file, name, ZipRecord.DEFLATED);
+
+		CodecPool pool = CodecPool.get();
+
+		CRC32 crc = new CRC32();
+		Deflater deflater = pool.getDeflater(level);
+		byte[] input = pool.getBuffer();
+		byte[] output = pool.getBuffer();
+		SpillBuffer data = new SpillBuffer(!writer.isStream());
+
+		try {
+			long size = 0;
+
+			InputStream is = new FileInputStream(file);
+			if (md != null)
+				is = new DigestInputStream(is, md);
+
+			try {
+				int n;
+				while ((n = is.read(input, 0, input.length)) != -1) {
+					crc.update(input, 0, n);
+					size += n;
+
+					deflater.setInput(input, 0, n);
+					while (!deflater.needsInput())
+						data.write(output, 0, deflater.deflate(output));
+				}
+			} finally {
+				is.close();
+			}
+
+			deflater.finish();
+			while (!deflater.finished())
+				data.write(output, 0, deflater.deflate(output));
+
+			data.close();
+
+			bytes.addAndGet(size);
+
+			record.setCrc(crc.getValue());
+			record.setSize(size);
+			record.setCompressedSize(data.size());
+
+			if (md != null)
+				digestMap.putIfAbsent(ByteBuffer.wrap(md.digest()), name);
+		} catch (IOException e) {
+			data.close();
+			data.delete();
+
+			throw e;
+		} finally {
+			pool.release(deflater, level);
+			pool.release(input);
+			pool.release(output);
+		}
+
+		return new Result(record, data, null);
+	}
+
+	/**
+	 * 압축하지 않고 저장할 파일의 항목을 만드는 메소드 (작업 스레드에서 실행됨)
+	 * 
+	 * 스트림에 쓰는 경우 로컬 헤더에 CRC-32와 크기를 미리 써야 하고 로컬 헤더를 쓴 뒤에는 항목을
+	 * 취소할 수 없으므로, 파일을 메모리에 모두 읽어 두고 CRC-32를 계산해 둡니다.
+	 * 
+	 * @param file
+	 *            저장할 {@link File}
+	 * @param name
+	 *            항목 이름
+	 * @return 저장할 항목
+	 * @throws IOException
+	 */
+	private Result store(File file, String name) throws IOException {
+		ZipRecord record = getRecord(file, name, ZipRecord.STORED);
+
+		if (!writer.isStream())
+			return new Result(record, null, file);
+
+		CodecPool pool = CodecPool.get();
+
+		CRC32 crc = new CRC32();
+		byte[] buffer = pool.getBuffer();
+		SpillBuffer data = new SpillBuffer(false);
+
+		InputStream is = new FileInputStream(file);
+		try {
+			int n;
+			while ((n = is.read(buffer, 0, buffer.length)) != -1) {
+				crc.update(buffer, 0, n);
+				data.write(buffer, 0, n);
+			}
+		} finally {
+			is.close();
+
+			pool.release(buffer);
+		}
+
+		data.close();
+
+		bytes.addAndGet(data.size());
+
+		record.setCrc(crc.getValue());
+		record.setSize(data.size());
+		record.setCompressedSize(data.size());
+
+		return new Result(record, data, null);
+	}
+
+	/**
+	 * 파일의 바이트 엔트로피를 재어 압축 방법을 고르는 메소드
+	 * 
+	 * @param file
+	 *            {@link File}
+	 * @return {@link ZipRecord#STORED} 또는 {@link ZipRecord#DEFLATED}
+	 * @throws IOException
+	 */
+	private int getMethod(File file) throws IOException {
+		if (level == Deflater.NO_COMPRESSION)
+			return ZipRecord.STORED;
+
+		CodecPool pool = CodecPool.get();
+
+		// 파일 앞부분
+		byte[] sample = pool.getBuffer();
+		byte[] buffer = pool.getBuffer();
+		Deflater deflater = null;
+
+		try {
+			int length = 0;
+
+			InputStream is = new FileInputStream(file);
+			try {
+				int n;
+				while (length < SAMPLE_SIZE
+						&& (n = is.read(sample, length, SAMPLE_SIZE - length)) != -1)
+					length += n;
+			} finally {
+				is.close();
+			}
+
+			final double limit = isCompressedType(file.getName()) ? STORED_ENTROPY_COMPRESSED_TYPE
+					: STORED_ENTROPY;
+
+			if (getEntropy(sample, length) < limit)
+				return ZipRecord.DEFLATED;
+
+			// 바이트 분포가 고르더라도 반복되는 데이터일 수 있으므로 가장 빠르게 압축해 봄
+			deflater = pool.getDeflater(Deflater.BEST_SPEED);
+			deflater.setInput(sample, 0, length);
+			deflater.finish();
+
+			int compressedLength = 0;
+			while (!deflater.finished() && compressedLength < length)
+				compressedLength += deflater.deflate(buffer);
+
+			return (compressedLength < length * STORED_RATIO) ? ZipRecord.DEFLATED
+					: ZipRecord.STORED;
+		} finally {
+			if (deflater != null)
+				pool.release(deflater, Deflater.BEST_SPEED);
+
+			pool.release(sample);
+			pool.release(buffer);
+		}
+	}
+
+	/**
+	 * 바이트 배열의 엔트로피를 계산하는 메소드
+	 * 
+	 * @param b
+	 *            바이트 배열
+	 * @param length
+	 *            계산할 바이트 수
+	 * @return 바이트당 비트 수 (0-8)
+	 */
+	static double getEntropy(byte[] b, int length) {
+		if (length == 0)
+			return 0;
+
+		int[] counts = new int[256];
+		for (int i = 0; i < length; i++)
+			counts[b[i] & 0xff]++;
+
+		double entropy = 0;
+		for (int count : counts) {
+			if (count == 0)
+				continue;
+
+			final double p = (double) count / length;
+			entropy -= p * Math.log(p);
+		}
+
+		return entropy / Math.log(2);
+	}
+
+	/**
+	 * 이미 압축되어 있을 형식의 파일인지 확인하는 메소드
+	 * 
+	 * @param fileName
+	 *            파일 이름
+	 * @return 그림, 음악, 동영상, 압축 파일이면 true
+	 */
+	private static boolean isCompressedType(String fileName) {
+		final String type = Zip.getType(fileName);
+
+		return type.equals("그림 파일") || type.equals("음악 파일")
+				|| type.equals("동영상 파일") || type.equals("압축 파일");
+	}
+
+	/**
+	 * 파일에 대한 {@link ZipRecord}를 만드는 메소드
+	 * 
+	 * @param file
+	 *            {@link File}
+	 * @param name
+	 *            항목 이름
+	 * @param method
+	 *            압축 방법
+	 * @return {@link ZipRecord}
+	 */
+	private static ZipRecord getRecord(File file, String name, int method) {
+		ZipRecord record = new ZipRecord(name);
+		record.setTime(file.lastModified());
+		record.setMethod(method);
+
+		return record;
+	}
+
+	/**
+	 * 앞서 더한 파일 중에서 내용이 같은 파일을 찾는 메소드 (작업 스레드에서 실행됨)
+	 * 
+	 * 크기가 같은 파일들은 앞 파일의 지문이 정해질 때까지 기다렸다가 지문을 기록하므로, 앞 파일의
+	 * 래치가 열린 뒤에는 앞서 더한 같은 크기의 파일들의 지문이 모두 digestMap에 있습니다. 앞
+	 * 파일은 먼저 작업 스레드에 맡겨졌으므로 기다리는 동안 멈추지 않습니다.
+	 * 
+	 * @param file
+	 *            더할 {@link File}
+	 * @param name
+	 *            항목 이름
+	 * @param previous
+	 *            크기가 같은 앞 파일의 래치
+	 * @param digested
+	 *            이 파일의 지문이 정해지면 열 래치
+	 * @return 내용이 같은 파일의 항목 이름, 없으면 null
+	 * @throws InterruptedException
+	 */
+	private String findDuplicate(File file, String name,
+			CountDownLatch previous, CountDownLatch digested)
+			throws InterruptedException {
+		try {
+			final ByteBuffer digest = getDigest(file);
+
+			previous.await();
+
+			if (digest == null)
+				// 파일을 읽지 못하면 압축할 때 다시 알림
+				return null;
+
+			return digestMap.putIfAbsent(digest, name);
+		} finally {
+			digested.countDown();
+		}
+	}
+
+	/**
+	 * 파일 내용의 SHA-1 지문을 구하는 메소드
+	 * 
+	 * @param file
+	 *            {@link File}
+	 * @return 지문 ({@link HashMap}의 키로 쓸 수 있도록 {@link ByteBuffer}로 감쌈), 파일을
+	 *         읽지 못하면 null
+	 */
+	private static ByteBuffer getDigest(File file) {
+		MessageDigest md = getSha1();
+		if (md == null)
+			return null;
+
+		CodecPool pool = CodecPool.get();
+		byte[] buffer = pool.getBuffer();
+
+		try {
+			InputStream is = new FileInputStream(file);
+			try {
+				int n;
+				while ((n = is.read(buffer, 0, buffer.length)) != -1)
+					md.update(buffer, 0, n);
+			} finally {
+				is.close();
+			}
+
+			return ByteBuffer.wrap(md.digest());
+		} catch (IOException e) {
+			return null;
+		} finally {
+			pool.release(buffer);
+		}
+	}
+
+	/**
+	 * SHA-1 {@link MessageDigest}를 만드는 메소드
+	 * 
+	 * @return SHA-1 {@link MessageDigest}, 만들 수 없으면 null
+	 */
+	private static MessageDigest getSha1() {
+		try {
+			return MessageDigest.getInstance("SHA-1");
+		} catch (NoSuchAlgorithmException e) {
+			e.printStackTrace();
+
+			return null;
+		}
+	}
+
+	/**
+	 * 현재 스레드의 CPU 시간을 반환하는 메소드
+	 * 
+	 * @return CPU 시간 (나노초), 잴 수 없으면 경과 시간
+	 */
+	private static long getCpuTime() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+
+		if (bean.isCurrentThreadCpuTimeSupported())
+			return bean.getCurrentThreadCpuTime();
+		else
+			return System.nanoTime();
+	}
+
+	/**
+	 * 내용이 같아서 압축된 데이터를 복사한 항목의 숫자를 반환하는 메소드
+	 * 
+	 * @return 복사한 항목의 숫자
+	 */
+	public int getDuplicateCount() {
+		return duplicateCount;
+	}
+
+	/**
+	 * 내용이 같은 항목의 압축된 데이터를 복사하여 절약한 CPU 시간을 반환하는 메소드
+	 * 
+	 * @return 절약한 CPU 시간 (나노초)
+	 */
+	public long getSavedCpuTime() {
+		return savedCpuTime;
+	}
+
+	/**
+	 * 중복 제거 결과를 문자열로 반환하는 메소드
+	 * 
+	 * @return 복사한 항목의 숫자와 절약한 CPU 시간을 표현하는 문자열
+	 */
+	public String getDuplicateString() {
+		NumberFormat nf = NumberFormat.getNumberInstance();
+		nf.setMaximumFractionDigits(2);
+
+		return duplicateCount + "개 항목, CPU 시간 "
+				+ nf.format(savedCpuTime / 1e9) + "초 절약";
+	}
+
+	/**
+	 * 남은 항목들을 모두 쓰고 작업 스레드들을 끝내는 메소드
+	 * 
+	 * {@link ZipWriter}는 닫지 않습니다.
+	 * 
+	 * @throws IOException
+	 */
+	public void finish() throws IOException {
+		try {
+			while (!pendingList.isEmpty())
+				writeNext();
+		} finally {
+			executor.shutdownNow();
+
+			// 끝까지 쓰지 못한 블록들의 캐시 항목 버리기
+			if (blockCacheWriter != null) {
+				blockCacheWriter.abort();
+				blockCacheWriter = null;
+			}
+
+			// 쓰지 못한 항목들의 임시 파일 지우기
+			for (Future<?> future : pendingList) {
+				if (future.cancel(false))
+					// 아직 압축이 끝나지 않은 항목
+					continue;
+
+				try {
+					Object result = future.get();
+
+					if (result instanceof Result
+							&& ((Result) result).data != null)
+						((Result) result).data.delete();
+					else if (result instanceof Cached)
+						((Cached) result).input.close();
+				} catch (Exception e) {
+					// 압축하지 못한 항목
+				}
+			}
+
+			pendingList.clear();
+
+			transfer.add(bytes.get(), System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * 가장 먼저 더한 항목이 압축되기를 기다려서 쓰는 메소드
+	 * 
+	 * 압축하지 못한 항목은 쓰지 않고 건너뜁니다.
+	 * 
+	 * @throws IOException
+	 */
+	private void writeNext() throws IOException {
+		Future<?> future = pendingList.removeFirst();
+
+		Object next = null;
+		try {
+			next = future.get();
+		} catch (InterruptedException e) {
+			throw new IOException(e.toString());
+		} catch (ExecutionException e) {
+			// 파일을 읽지 못한 경우
+			e.getCause().printStackTrace();
+
+			return;
+		}
+
+		if (next instanceof Block) {
+			writeBlock((Block) next);
+
+			return;
+		}
+
+		if (next instanceof Duplicate) {
+			writeDuplicate((Duplicate) next);
+
+			return;
+		}
+
+		if (next instanceof Cached) {
+			writeCached((Cached) next);
+
+			return;
+		}
+
+		writeResult((Result) next);
+	}
+
+	/**
+	 * 압축이 끝난 항목 하나를 쓰는 메소드
+	 * 
+	 * @param result
+	 *            압축이 끝난 항목
+	 * @throws IOException
+	 */
+	private void writeResult(Result result) throws IOException {
+		if (result.file != null) {
+			// 저장만 하는 경우 (스트림에 쓰는 경우에는 미리 읽어 둠)
+			writer.putNextEntry(result.record.getName(), result.record
+					.getTime(), ZipRecord.STORED, result.file.length());
+
+			try {
+				bytes.addAndGet(writeTransfer.copy(new FileInputStream(
+						result.file), writer));
+			} catch (IOException e) {
+				// 파일을 읽지 못한 경우
+				e.printStackTrace();
+
+				writer.abortEntry();
+
+				return;
+			}
+		} else if (result.data == null) {
+			// 디렉토리인 경우
+			writer.putNextEntry(result.record.getName(), result.record
+					.getTime());
+		} else {
+			try {
+				writer.putRawEntry(result.record, result.record.getName());
+
+				writeTransfer.copy(result.data.getInputStream(), writer);
+			} finally {
+				result.data.delete();
+			}
+		}
+
+		writer.closeEntry();
+
+		if (result.file != null || result.data != null)
+			remember(result.record.getName(), result.cpuTime);
+	}
+
+	/**
+	 * 앞서 쓴 항목과 내용이 같은 항목을 쓰는 메소드
+	 * 
+	 * 원본 항목의 압축된 데이터를 Zip 파일 안에서 복사합니다. 원본 항목을 쓰지 못했거나 원본 항목의
+	 * 크기가 파일과 다르면 파일을 직접 압축하여 씁니다.
+	 * 
+	 * @param duplicate
+	 *            내용이 같은 항목
+	 * @throws IOException
+	 */
+	private void writeDuplicate(Duplicate duplicate) throws IOException {
+		final ZipRecord original = writtenMap.get(duplicate.original);
+
+		if (original == null || original.getSize() != duplicate.file.length()) {
+			// 원본 항목을 쓰지 못했거나 지문을 구한 뒤 파일이 바뀐 경우
+			final long cpuTime = getCpuTime();
+
+			Result result;
+			try {
+				result = compress(duplicate.file, duplicate.name, null);
+			} catch (IOException e) {
+				// 파일을 읽지 못한 경우
+				e.printStackTrace();
+
+				return;
+			}
+
+			result.cpuTime = getCpuTime() - cpuTime;
+
+			writeResult(result);
+
+			return;
+		}
+
+		writer.copyEntry(original, duplicate.name, duplicate.file
+				.lastModified(), writeTransfer);
+
+		bytes.addAndGet(original.getSize());
+
+		duplicateCount++;
+		savedCpuTime += cpuTimeMap.get(duplicate.original);
+	}
+
+	/**
+	 * 캐시에서 찾은 항목을 쓰는 메소드
+	 * 
+	 * @param cached
+	 *            캐시에서 찾은 항목
+	 * @throws IOException
+	 */
+	private void writeCached(Cached cached) throws IOException {
+		try {
+			writer.putRawEntry(cached.record, cached.record.getName());
+		} catch (IOException e) {
+			cached.input.close();
+
+			throw e;
+		}
+
+		writeTransfer.copy(cached.input, writer);
+
+		writer.closeEntry();
+
+		bytes.addAndGet(cached.record.getSize());
+
+		// 압축하지 않았으므로 내용이 같은 항목에서 복사해도 절약한 시간은 없음
+		remember(cached.record.getName(), 0);
+	}
+
+	/**
+	 * 쓴 항목을 나중에 내용이 같은 항목에서 복사할 수 있도록 기록하는 메소드
+	 * 
+	 * @param name
+	 *            항목 이름
+	 * @param cpuTime
+	 *            압축하는 데 든 CPU 시간
+	 */
+	private void remember(String name, long cpuTime) {
+		if (writer.isStream())
+			return;
+
+		writtenMap.put(name, writer.getLastRecord());
+		cpuTimeMap.put(name, cpuTime);
+	}
+
+	/**
+	 * 큰 파일을 나눈 블록 하나를 쓰는 메소드
+	 * 
+	 * 첫 블록에서 항목을 시작하고 마지막 블록에서 합친 CRC-32와 크기로 항목을 끝냅니다. 파일을
+	 * 끝까지 읽지 못한 경우 파일에 쓰고 있으면 항목을 취소하고, 스트림에 쓰고 있으면 빈 마지막
+	 * 블록으로 Deflate 스트림을 끝내어 읽은 데까지로 항목을 끝냅니다.
+	 * 
+	 * @param block
+	 *            압축된 블록
+	 * @throws IOException
+	 */
+	private void writeBlock(Block block) throws IOException {
+		if (block.data == null) {
+			// 파일을 끝까지 읽지 못한 경우
+			if (block.cacheWriter != null)
+				block.cacheWriter.abort();
+
+			blockCacheWriter = null;
+
+			if (block.first)
+				// 항목을 시작하기 전에 실패한 경우
+				return;
+
+			if (!writer.isStream()) {
+				writer.abortEntry();
+
+				return;
+			}
+
+			writer.write(FINAL_BLOCK, 0, FINAL_BLOCK.length);
+			writer.closeEntry(blockCrc, blockSize);
+
+			System.err.println(block.record.getName()
+					+ " 항목은 파일을 끝까지 읽지 못하여 읽은 데까지만 썼습니다.");
+
+			return;
+		}
+
+		if (block.first) {
+			writer.putDeflatedEntry(block.record.getName(), block.record
+					.getTime(), block.record.getSize());
+
+			blockCrc = 0;
+			blockSize = 0;
+			blockCpuTime = 0;
+			blockCacheWriter = block.cacheWriter;
+		}
+
+		writer.write(block.data, 0, block.data.length);
+
+		if (blockCacheWriter != null)
+			blockCacheWriter.write(block.data, 0, block.data.length);
+
+		blockCrc = combineCrc(blockCrc, block.crc, block.size);
+		blockSize += block.size;
+		blockCpuTime += block.cpuTime;
+
+		if (block.last) {
+			writer.closeEntry(blockCrc, blockSize);
+
+			if (blockCacheWriter != null) {
+				blockCacheWriter.commit(ZipRecord.DEFLATED, blockCrc, blockSize);
+				blockCacheWriter = null;
+			}
+
+			remember(block.record.getName(), blockCpuTime);
+		}
+	}
+}
@@ -0,0 +1,385 @@
+/**
+ * ZipEditor : Zip 파일을 제자리에서 고치는 클래스
+ */
+package com.github.seungwon0.JZip;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.ZipException;
+
+/**
+ * 임시 파일을 만들지 않고 Zip 파일을 제자리에서 고치는 클래스
+ * 
+ * 생성할 때 모든 항목이 차지하는 구간을 미리 계산하여 검사하므로, 생성자가 예외 없이 끝나면 Zip
+ * 파일을 제자리에서 고칠 수 있습니다.
+ * 
+ * @author Seungwon Jeong
+ * 
+ */
+public class ZipEditor {
+	private final File file; // Zip 파일
+
+	private final String encoding; // 항목 이름의 인코딩
+
+	private final Transfer transfer; // 데이터 전송
+
+	// 중앙 디렉토리 순서의 항목들
+	private final ArrayList<ZipRecord> records;
+
+	// 로컬 헤더 위치 순서의 항목들
+	private final ArrayList<ZipRecord> sortedRecords;
+
+	// 각 항목의 압축된 데이터 위치
+	private final HashMap<ZipRecord, Long> dataMap = new HashMap<ZipRecord, Long>();
+
+	// 각 항목이 차지하는 구간의 끝 위치
+	private final HashMap<ZipRecord, Long> endMap = new HashMap<ZipRecord, Long>();
+
+	private final long centralDirectoryOffset; // 중앙 디렉토리의 위치
+
+	private boolean modified; // 새로운 중앙 디렉토리를 디스크에 기록했는지의 여부
+
+	/**
+	 * {@link ZipEditor} 클래스의 생성자
+	 * 
+	 * @param file
+	 *            고칠 Zip {@link File}
+	 * @param encoding
+	 *            항목 이름의 인코딩
+	 * @param transfer
+	 *            데이터를 옮길 때 사용할 {@link Transfer}
+	 * @throws IOException
+	 *             Zip 파일을 읽을 수 없거나 항목들의 구간이 겹치는 경우
+	 */
+	public ZipEditor(File file, String encoding, Transfer transfer)
+			throws IOException {
+		this.file = file;
+		this.encoding = encoding;
+		this.transfer = transfer;
+
+		ZipReader reader = new ZipReader(file, encoding);
+
+		try {
+			records = new ArrayList<ZipRecord>(reader.getRecords());
+			centralDirectoryOffset = reader.getCentralDirectoryOffset();
+
+			for (ZipRecord record : records) {
+				dataMap.put(record, reader.getDataOffset(record));
+				endMap.put(record, reader.getEntryEnd(record));
+			}
+		} finally {
+			reader.close();
+		}
+
+		sortedRecords = new ArrayList<ZipRecord>(records);
+		Collections.sort(sortedRecords, new Comparator<ZipRecord>() {
+
+			public int compare(ZipRecord o1, ZipRecord o2) {
+				final long offset1 = o1.getLocalHeaderOffset();
+				final long offset2 = o2.getLocalHeaderOffset();
+
+				return (offset1 < offset2) ? -1 : ((offset1 == offset2) ? 0
+						: 1);
+			}
+
+		});
+
+		// 항목들의 구간이 겹치는지 검사
+		long previousEnd = 0;
+		for (ZipRecord record : sortedRecords) {
+			if (record.getLocalHeaderOffset() < previousEnd)
+				throw new ZipException(record.getName()
+						+ " 항목이 다른 항목과 겹쳐 있어서 제자리에서 고칠 수 없습니다.");
+
+			previousEnd = endMap.get(record);
+		}
+
+		if (previousEnd > centralDirectoryOffset)
+			throw new ZipException("항목이 중앙 디렉토리와 겹쳐 있어서 제자리에서 고칠 수 없습니다.");
+	}
+
+	/**
+	 * 항목들을 제자리에서 지울 수 있는지 확인하는 메소드
+	 * 
+	 * 남은 항목들을 옮기는 도중에 멈추면 어느 중앙 디렉토리도 Zip 파일의 내용과 맞지 않게 되므로,
+	 * 지울 항목들이 모두 남는 항목들보다 뒤에 있어서 아무 항목도 옮길 필요가 없는 경우에만 제자리에서
+	 * 지웁니다.
+	 * 
+	 * @param offsets
+	 *            지울 항목들의 로컬 헤더 위치
+	 * @return 제자리에서 지울 수 있으면 true
+	 */
+	public boolean canDelete(Collection<Long> offsets) {
+		boolean deleted = false; // 앞에서 지울 항목을 만났는지의 여부
+
+		for (ZipRecord record : sortedRecords) {
+			if (offsets.contains(record.getLocalHeaderOffset()))
+				deleted = true;
+			else if (deleted)
+				// 지울 항목 뒤에 남는 항목이 있는 경우
+				return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Zip 파일 끝 부분의 항목들을 지우는 메소드
+	 * 
+	 * 남는 항목은 전혀 옮기지 않고 중앙 디렉토리만 새로 씁니다. 새로운 중앙 디렉토리를 Zip 파일 끝에
+	 * 먼저 쓴 뒤에 지운 항목들의 자리로 옮기고 Zip 파일을 자르므로, 도중에 멈추더라도 Zip 파일에는
+	 * 항상 올바른 중앙 디렉토리가 남습니다. 이름이 같은 항목이 여러 개 있어도 고른 항목만 지우도록
+	 * 항목은 로컬 헤더 위치로 구별합니다.
+	 * 
+	 * @param offsets
+	 *            지울 항목들의 로컬 헤더 위치
+	 * @throws IOException
+	 *             {@link #canDelete(Collection)}가 false인 경우, {@link #isModified()}가
+	 *             false이면 Zip 파일은 그대로임
+	 */
+	public void delete(Collection<Long> offsets) throws IOException {
+		if (!canDelete(offsets))
+			throw new ZipException("지울 항목 뒤에 남는 항목이 있어서 제자리에서 지울 수 없습니다.");
+
+		// 새로운 중앙 디렉토리를 쓸 위치 (남는 항목들이 끝나는 위치)
+		long position = sortedRecords.isEmpty() ? centralDirectoryOffset
+				: sortedRecords.get(0).getLocalHeaderOffset();
+
+		ArrayList<ZipRecord> remainingRecords = new ArrayList<ZipRecord>(
+				records.size());
+		for (ZipRecord record : records) {
+			if (offsets.contains(record.getLocalHeaderOffset()))
+				continue;
+
+			remainingRecords.add(record);
+
+			position = Math.max(position, endMap.get(record));
+		}
+
+		ZipWriter writer = new ZipWriter(file, encoding, remainingRecords,
+				position, transfer);
+
+		try {
+			writer.finish();
+		} finally {
+			modified = writer.isCommitted();
+		}
+	}
+
+	/**
+	 * 항목들의 이름을 바꾸는 메소드
+	 * 
+	 * 로컬 헤더는 길이를 바꾸지 않고 제자리에서 고쳐 쓰므로 압축된 데이터는 전혀 옮기지 않습니다.
+	 * 새로운 이름이 길어서 원래 로컬 헤더 자리에 들어가지 않는 항목이 하나라도 있으면 Zip 파일을
+	 * 고치기 전에 실패하므로, 그런 경우에는 임시 파일로 새로 만들어야 합니다.
+	 * 
+	 * 새로운 중앙 디렉토리는 Zip 파일 끝에 먼저 쓴 뒤에 예전 중앙 디렉토리 자리로 옮기므로 도중에
+	 * 멈추더라도 Zip 파일에는 항상 올바른 중앙 디렉토리가 남습니다. 새로운 중앙 디렉토리를 디스크에
+	 * 기록하기 전에 실패하면 고쳐 쓴 로컬 헤더를 되돌립니다. 이름이 같은 항목이 여러 개 있어도 고른
+	 * 항목만 바꾸도록 항목은 로컬 헤더 위치로 구별합니다.
+	 * 
+	 * @param nameMap
+	 *            로컬 헤더 위치를 키로, 바뀐 이름을 값으로 하는 {@link Map}
+	 * @throws IOException
+	 *             {@link #isModified()}가 false이면 Zip 파일은 원래대로 되돌려짐
+	 */
+	public void rename(Map<Long, String> nameMap) throws IOException {
+		HashMap<ZipRecord, ZipRecord> renamedMap = new HashMap<ZipRecord, ZipRecord>();
+
+		// 고쳐 쓸 로컬 헤더의 위치와 원래 내용, 새로운 내용
+		HashMap<Long, byte[]> originalMap = new HashMap<Long, byte[]>();
+		HashMap<Long, byte[]> newHeaderMap = new HashMap<Long, byte[]>();
+
+		// 고쳐 쓴 로컬 헤더의 위치와 원래 내용
+		HashMap<Long, byte[]> headerMap = new HashMap<Long, byte[]>();
+
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+
+		try {
+			FileChannel channel = raf.getChannel();
+
+			// 모든 로컬 헤더가 제자리에 들어가는지 먼저 확인함
+			for (ZipRecord record : sortedRecords) {
+				final long offset = record.getLocalHeaderOffset();
+
+				final String newName = nameMap.get(offset);
+				if (newName == null)
+					continue;
+
+				final byte[] name = newName.getBytes(encoding);
+
+				// 원래 로컬 헤더
+				byte[] header = new byte[(int) (dataMap.get(record) - offset)];
+				readFully(channel, header, offset);
+
+				final int nameLength = ZipReader.getShort(header, 26);
+				final int extraLength = ZipReader.getShort(header, 28);
+				final int extraOff = ZipReader.LOCAL_HEADER_LENGTH + nameLength;
+
+				byte[] extra = new byte[extraLength];
+				System.arraycopy(header, extraOff, extra, 0, extraLength);
+
+				// 로컬 헤더의 길이가 바뀌지 않도록 추가 필드를 맞춤
+				final boolean zip64 = (ZipReader.findExtraField(extra,
+						ZipReader.ZIP64_HEADER_ID) != -1);
+				extra = ZipWriter.padExtra(extra, header.length
+						- ZipReader.LOCAL_HEADER_LENGTH - name.length);
+
+				// Zip64 추가 필드는 버릴 수 없음
+				if (extra == null
+						|| (zip64 && ZipReader.findExtraField(extra,
+								ZipReader.ZIP64_HEADER_ID) == -1))
+					throw new ZipException(newName
+							+ " 항목의 이름이 원래 로컬 헤더에 들어가지 않아서 제자리에서 바꿀 수 없습니다.");
+
+				byte[] b = new byte[header.length];
+				System.arraycopy(header, 0, b, 0, 26);
+				ZipWriter.putShort(b, 26, name.length);
+				ZipWriter.putShort(b, 28, extra.length);
+				System.arraycopy(name, 0, b, ZipReader.LOCAL_HEADER_LENGTH,
+						name.length);
+				System.arraycopy(extra, 0, b, ZipReader.LOCAL_HEADER_LENGTH
+						+ name.length, extra.length);
+
+				originalMap.put(offset, header);
+				newHeaderMap.put(offset, b);
+				renamedMap.put(record, new ZipRecord(record, newName));
+			}
+
+			// 원래 자리에 로컬 헤더를 고쳐 씀
+			for (Map.Entry<Long, byte[]> entry : newHeaderMap.entrySet()) {
+				final long offset = entry.getKey();
+
+				headerMap.put(offset, originalMap.get(offset));
+				writeFully(channel, entry.getValue(), offset);
+			}
+		} catch (IOException e) {
+			restore(raf.getChannel(), headerMap);
+
+			throw e;
+		} finally {
+			raf.close();
+		}
+
+		ArrayList<ZipRecord> newRecords = new ArrayList<ZipRecord>(records
+				.size());
+		for (ZipRecord record : records) {
+			ZipRecord renamed = renamedMap.get(record);
+
+			newRecords.add((renamed == null) ? record : renamed);
+		}
+
+		// 중앙 디렉토리를 새로 씀
+		ZipWriter writer = new ZipWriter(file, encoding, newRecords,
+				centralDirectoryOffset, transfer);
+
+		try {
+			writer.finish();
+		} catch (IOException e) {
+			if (!writer.isCommitted())
+				restore(headerMap);
+
+			throw e;
+		} finally {
+			modified = writer.isCommitted();
+		}
+	}
+
+	/**
+	 * 이름을 바꾸다가 실패한 Zip 파일의 로컬 헤더를 원래대로 되돌리는 메소드
+	 * 
+	 * @param headerMap
+	 *            고쳐 쓴 로컬 헤더의 위치와 원래 내용
+	 */
+	private void restore(Map<Long, byte[]> headerMap) {
+		try {
+			RandomAccessFile raf = new RandomAccessFile(file, "rw");
+
+			try {
+				restore(raf.getChannel(), headerMap);
+			} finally {
+				raf.close();
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * 이름을 바꾸다가 실패한 Zip 파일의 로컬 헤더를 원래대로 되돌리는 메소드
+	 * 
+	 * @param channel
+	 *            Zip 파일의 {@link FileChannel}
+	 * @param headerMap
+	 *            고쳐 쓴 로컬 헤더의 위치와 원래 내용
+	 */
+	private static void restore(FileChannel channel, Map<Long, byte[]> headerMap) {
+		try {
+			for (Map.Entry<Long, byte[]> entry : headerMap.entrySet())
+				writeFully(channel, entry.getValue(), entry.getKey());
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Zip 파일이 바뀌었는지의 여부를 반환하는 메소드
+	 * 
+	 * 고치다가 실패했을 때 false이면 Zip 파일은 원래대로 남아 있으므로 임시 파일로 새로 만들 수
+	 * 있습니다. true이면 새로운 중앙 디렉토리가 디스크에 기록된 것입니다.
+	 * 
+	 * @return Zip 파일이 바뀌었으면 true
+	 */
+	public boolean isModified() {
+		return modified;
+	}
+
+	/**
+	 * 주어진 위치에서 바이트 배열을 가득 채워 읽는 메소드
+	 * 
+	 * @param channel
+	 *            {@link FileChannel}
+	 * @param b
+	 *            읽은 데이터를 담을 바이트 배열
+	 * @param position
+	 *            읽을 위치
+	 * @throws IOException
+	 */
+	private static void readFully(FileChannel channel, byte[] b,
+			long position) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(b);
+
+		while (buffer.hasRemaining())
+			if (channel.read(buffer, position + buffer.position()) == -1)
+				throw new EOFException();
+	}
+
+	/**
+	 * 주어진 위치에 바이트 배열을 모두 쓰는 메소드
+	 * 
+	 * @param channel
+	 *            {@link FileChannel}
+	 * @param b
+	 *            쓸 바이트 배열
+	 * @param position
+	 *            쓸 위치
+	 * @throws IOException
+	 */
+	private static void writeFully(FileChannel channel, byte[] b,
+			long position) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(b);
+
+		while (buffer.hasRemaining())
+			channel.write(buffer, position + buffer.position());
+	}
+}
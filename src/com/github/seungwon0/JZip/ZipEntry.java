@@ -0,0 +1,134 @@
+/**
+ * ZipEntry : Zip 파일 내의 항목
+ */
+package com.github.seungwon0.JZip;
+
+/**
+ * Zip 파일 내의 항목 하나를 가리키는 가벼운 클래스
+ * 
+ * 항목 정보를 복사해 두지 않고 메모리에 읽어 둔 중앙 디렉토리에서의 위치만 가지고 있다가 이름이나
+ * 크기가 필요할 때마다 {@link ZipReader}에서 읽어옵니다. 중앙 디렉토리에 없는(빠진) 디렉토리
+ * 항목은 이름만 가지고 있습니다.
+ * 
+ * @author Seungwon Jeong
+ * 
+ */
+public class ZipEntry {
+	private final ZipReader reader; // 중앙 디렉토리를 가진 ZipReader
+
+	private final int offset; // 중앙 디렉토리 헤더의 위치
+
+	private final String name; // 빠진 디렉토리 항목의 이름
+
+	/**
+	 * 중앙 디렉토리에 있는 항목에 대한 {@link ZipEntry} 클래스의 생성자
+	 * 
+	 * @param reader
+	 *            {@link ZipReader}
+	 * @param offset
+	 *            중앙 디렉토리 헤더의 위치
+	 */
+	ZipEntry(ZipReader reader, int offset) {
+		this.reader = reader;
+		this.offset = offset;
+
+		name = null;
+	}
+
+	/**
+	 * 중앙 디렉토리에 없는 디렉토리 항목에 대한 {@link ZipEntry} 클래스의 생성자
+	 * 
+	 * @param name
+	 *            디렉토리 항목 이름
+	 */
+	public ZipEntry(String name) {
+		this.name = name;
+
+		reader = null;
+		offset = -1;
+	}
+
+	/**
+	 * 항목 이름을 반환하는 메소드
+	 * 
+	 * @return 항목 이름
+	 */
+	public String getName() {
+		if (reader == null)
+			return name;
+
+		return reader.getName(offset);
+	}
+
+	/**
+	 * 항목의 모든 정보를 담은 {@link ZipRecord}를 반환하는 메소드
+	 * 
+	 * @return {@link ZipRecord}, 중앙 디렉토리에 없는 항목이면 null
+	 */
+	public ZipRecord getRecord() {
+		if (reader == null)
+			return null;
+
+		return reader.getRecord(offset);
+	}
+
+	/**
+	 * 항목의 압축된 크기를 반환하는 메소드
+	 * 
+	 * @return 압축된 크기
+	 */
+	public long getCompressedSize() {
+		if (reader == null)
+			return 0;
+
+		return reader.getCompressedSize(offset);
+	}
+
+	/**
+	 * 항목의 실제 크기를 반환하는 메소드
+	 * 
+	 * @return 실제 크기
+	 */
+	public long getSize() {
+		if (reader == null)
+			return 0;
+
+		return reader.getSize(offset);
+	}
+
+	/**
+	 * 항목의 바뀐 시간을 반환하는 메소드
+	 * 
+	 * @return 바뀐 시간, 알 수 없으면 -1
+	 */
+	public long getTime() {
+		if (reader == null)
+			return -1;
+
+		return reader.getTime(offset);
+	}
+
+	/**
+	 * 항목의 DOS 형식의 바뀐 시간을 반환하는 메소드
+	 * 
+	 * @return DOS 형식의 바뀐 시간, 알 수 없으면 0
+	 */
+	long getDosTime() {
+		if (reader == null)
+			return 0;
+
+		return reader.getDosTime(offset);
+	}
+
+	/**
+	 * 디렉토리 항목인지의 여부를 반환하는 메소드
+	 * 
+	 * @return 디렉토리 여부
+	 */
+	public boolean isDirectory() {
+		if (reader == null)
+			return true;
+
+		return reader.isDirectory(offset);
+	}
+}
@@ -0,0 +1,835 @@
+/**
+ * ZipReader : Zip 파일의 중앙 디렉토리를 읽는 클래스
+ */
+package com.github.seungwon0.JZip;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * Zip 파일의 중앙 디렉토리를 읽어서 각 항목의 {@link ZipRecord}와 압축된 데이터를 제공하는 클래스
+ * 
+ * 중앙 디렉토리 끝 레코드와 중앙 디렉토리는 한 번에 읽어 두고 항목 정보는 필요할 때 그 버퍼에서
+ * 바로 해석합니다. 메모리에 매핑하면 매핑이 풀릴 때까지 Windows에서 Zip 파일을 자르거나 바꿀 수
+ * 없으므로 매핑하지 않습니다. 압축된 데이터는 위치 지정 읽기로 읽으므로 여러 스트림을 동시에 열
+ * 수 있습니다.
+ * 
+ * 항목이 65535개보다 많거나 크기와 위치가 4 GB를 넘는 Zip64 파일도 읽습니다. 중앙 디렉토리는
+ * 한 번에 읽으므로 2 GB까지만 읽을 수 있습니다.
+ * 
+ * @author Seungwon Jeong
+ * 
+ */
+public class ZipReader {
+
+	/**
+	 * {@link FileChannel}의 일정 구간을 위치 지정 읽기로 읽는 {@link InputStream}
+	 * 
+	 * @author Seungwon Jeong
+	 * 
+	 */
+	private static class ChannelInputStream extends InputStream {
+		private final FileChannel channel;
+
+		private long position; // 다음에 읽을 위치
+
+		private long remaining; // 남은 바이트 수
+
+		public ChannelInputStream(FileChannel channel, long position,
+				long length) {
+			this.channel = channel;
+			this.position = position;
+			this.remaining = length;
+		}
+
+		@Override
+		public int read() throws IOException {
+			byte[] b = new byte[1];
+
+			return (read(b, 0, 1) == -1) ? -1 : (b[0] & 0xff);
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (remaining <= 0)
+				return -1;
+
+			if (len > remaining)
+				len = (int) remaining;
+
+			final int n = channel.read(ByteBuffer.wrap(b, off, len), position);
+			if (n == -1)
+				throw new EOFException("압축된 데이터가 잘려 있습니다.");
+
+			position += n;
+			remaining -= n;
+
+			return n;
+		}
+	}
+
+	/**
+	 * 항목의 압축을 풀면서 읽는 {@link InputStream}
+	 * 
+	 * {@link Inflater}와 입력 버퍼는 {@link CodecPool}에서 빌리고 닫을 때 돌려줍니다.
+	 * 
+	 * @author Seungwon Jeong
+	 * 
+	 */
+	private static class EntryInputStream extends InflaterInputStream {
+		private boolean eof; // 압축된 데이터를 모두 읽었는지 여부
+
+		private boolean closed; // 닫혔는지 여부
+
+		public EntryInputStream(InputStream in) {
+			super(in, CodecPool.get().getInflater(), 1);
+
+			buf = CodecPool.get().getBuffer();
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (closed)
+				return;
+
+			closed = true;
+
+			try {
+				super.close();
+			} finally {
+				CodecPool pool = CodecPool.get();
+				pool.release(inf);
+				pool.release(buf);
+			}
+		}
+
+		@Override
+		protected void fill() throws IOException {
+			if (eof)
+				throw new EOFException("압축된 데이터가 잘려 있습니다.");
+
+			len = in.read(buf, 0, buf.length);
+
+			if (len == -1) {
+				// nowrap 모드의 Inflater에는 끝에 더미 바이트가 필요할 수 있음
+				buf[0] = 0;
+				len = 1;
+				eof = true;
+			}
+
+			inf.setInput(buf, 0, len);
+		}
+	}
+
+	static final long LOCAL_HEADER_SIGNATURE = 0x04034b50L;
+
+	static final long CENTRAL_HEADER_SIGNATURE = 0x02014b50L;
+
+	static final long END_SIGNATURE = 0x06054b50L;
+
+	static final long DATA_DESCRIPTOR_SIGNATURE = 0x08074b50L;
+
+	static final long ZIP64_END_SIGNATURE = 0x06064b50L;
+
+	static final long ZIP64_LOCATOR_SIGNATURE = 0x07064b50L;
+
+	static final int ZIP64_HEADER_ID = 0x0001; // Zip64 추가 필드의 ID
+
+	// 실제 값이 Zip64 추가 필드에 있음을 뜻하는 4바이트 값
+	static final long ZIP64_MAGIC = 0xffffffffL;
+
+	static final int ZIP64_VERSION = 45; // Zip64를 읽는 데 필요한 버전
+
+	static final int LOCAL_HEADER_LENGTH = 30; // 로컬 헤더의 고정 길이
+
+	static final int CENTRAL_HEADER_LENGTH = 46; // 중앙 디렉토리 헤더의 고정 길이
+
+	static final int END_LENGTH = 22; // 중앙 디렉토리 끝 레코드의 고정 길이
+
+	static final int ZIP64_END_LENGTH = 56; // Zip64 중앙 디렉토리 끝 레코드의 고정 길이
+
+	static final int ZIP64_LOCATOR_LENGTH = 20; // Zip64 끝 레코드 위치 지정자의 길이
+
+	// Zip64 추가 필드에 값이 들어가는 순서 (중앙 디렉토리 헤더의 실제 크기, 압축된 크기, 로컬
+	// 헤더 위치)
+	private static final int[] ZIP64_FIELDS = { 24, 20, 42 };
+
+	/**
+	 * 추가 필드에서 주어진 ID의 필드를 찾는 메소드
+	 * 
+	 * @param extra
+	 *            추가 필드
+	 * @param headerId
+	 *            찾을 필드의 ID
+	 * @return 필드 데이터의 위치, 없으면 -1
+	 */
+	static int findExtraField(byte[] extra, int headerId) {
+		int off = 0;
+
+		while (off + 4 <= extra.length) {
+			final int length = getShort(extra, off + 2);
+
+			if (getShort(extra, off) == headerId)
+				return (off + 4 + length <= extra.length) ? off + 4 : -1;
+
+			off += 4 + length;
+		}
+
+		return -1;
+	}
+
+	/**
+	 * 바이트 배열에서 little-endian 2바이트 값을 읽는 메소드
+	 */
+	static int getShort(byte[] b, int off) {
+		return (b[off] & 0xff) | ((b[off + 1] & 0xff) << 8);
+	}
+
+	/**
+	 * 바이트 배열에서 little-endian 4바이트 값을 읽는 메소드
+	 */
+	static long getInt(byte[] b, int off) {
+		return (getShort(b, off) | ((long) getShort(b, off + 2) << 16));
+	}
+
+	/**
+	 * 바이트 배열에서 little-endian 8바이트 값을 읽는 메소드
+	 */
+	static long getLong(byte[] b, int off) {
+		return (getInt(b, off) | (getInt(b, off + 4) << 32));
+	}
+
+	private final File file; // Zip 파일
+
+	private final RandomAccessFile raf; // Zip 파일의 RandomAccessFile
+
+	private final FileChannel channel; // Zip 파일의 FileChannel
+
+	private String encoding; // 항목 이름의 인코딩
+
+	private int[] headerOffsets; // 항목마다 중앙 디렉토리 헤더의 위치
+
+	private int entryCount; // 항목의 숫자
+
+	private ByteBuffer centralDirectory; // 메모리에 읽어 둔 중앙 디렉토리
+
+	private long centralDirectoryOffset; // 중앙 디렉토리의 위치
+
+	/**
+	 * {@link ZipReader} 클래스의 생성자
+	 * 
+	 * @param file
+	 *            읽을 Zip {@link File}
+	 * @param encoding
+	 *            항목 이름의 인코딩
+	 * @throws IOException
+	 */
+	public ZipReader(File file, String encoding) throws IOException {
+		this.file = file;
+		this.encoding = encoding;
+
+		raf = new RandomAccessFile(file, "r");
+		channel = raf.getChannel();
+
+		try {
+			readCentralDirectory();
+		} catch (IOException e) {
+			raf.close();
+
+			throw e;
+		}
+	}
+
+	/**
+	 * 다른 {@link ZipReader}와 중앙 디렉토리를 같이 쓰고 Zip 파일만 따로 여는 생성자
+	 * 
+	 * 여러 스레드가 각자의 {@link ZipReader}로 같은 Zip 파일을 동시에 읽을 때 사용합니다.
+	 * 
+	 * @param reader
+	 *            원본 {@link ZipReader}
+	 * @throws IOException
+	 */
+	public ZipReader(ZipReader reader) throws IOException {
+		file = reader.file;
+		encoding = reader.encoding;
+		headerOffsets = reader.headerOffsets;
+		entryCount = reader.entryCount;
+		centralDirectory = reader.centralDirectory;
+		centralDirectoryOffset = reader.centralDirectoryOffset;
+
+		raf = new RandomAccessFile(file, "r");
+		channel = raf.getChannel();
+	}
+
+	/**
+	 * Zip 파일을 닫는 메소드
+	 */
+	public void close() {
+		try {
+			raf.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * 중앙 디렉토리의 위치를 반환하는 메소드
+	 * 
+	 * @return 중앙 디렉토리의 위치
+	 */
+	public long getCentralDirectoryOffset() {
+		return centralDirectoryOffset;
+	}
+
+	/**
+	 * 항목의 압축을 풀어서 {@link FileChannel}에 쓰는 메소드
+	 * 
+	 * 압축하지 않은(STORED) 항목은 Zip 파일에서 대상 파일로 커널 안에서 바로 복사하고, Deflate로
+	 * 압축된 항목만 압축을 풉니다. 어느 경우든 쓰는 동안 CRC-32를 계산하여 중앙 디렉토리의 값과
+	 * 비교합니다.
+	 * 
+	 * @param record
+	 *            {@link ZipRecord}
+	 * @param out
+	 *            대상 {@link FileChannel}
+	 * @param transfer
+	 *            데이터를 보낼 때 사용할 {@link Transfer}
+	 * @throws IOException
+	 *             압축을 풀 수 없거나 CRC-32 또는 크기가 맞지 않는 경우
+	 */
+	public void extract(ZipRecord record, FileChannel out, Transfer transfer)
+			throws IOException {
+		CRC32 crc = new CRC32();
+		long size = record.getSize();
+
+		if (record.getMethod() == ZipRecord.STORED) {
+			if (record.getCompressedSize() != size)
+				throw new ZipException(record.getName()
+						+ " 항목의 압축 크기와 실제 크기가 다릅니다.");
+
+			transfer.transfer(channel, getDataOffset(record), size, out, crc);
+		} else {
+			OutputStream os = new CheckedOutputStream(Channels
+					.newOutputStream(out), crc);
+
+			size = transfer.copy(getInputStream(record), os);
+		}
+
+		if (size != record.getSize())
+			throw new ZipException(record.getName() + " 항목의 크기가 맞지 않습니다.");
+
+		if (crc.getValue() != record.getCrc())
+			throw new ZipException(record.getName() + " 항목의 CRC-32가 맞지 않습니다.");
+	}
+
+	/**
+	 * 항목의 압축된 데이터가 시작하는 위치를 반환하는 메소드
+	 * 
+	 * @param record
+	 *            {@link ZipRecord}
+	 * @return 압축된 데이터의 위치
+	 * @throws IOException
+	 */
+	public long getDataOffset(ZipRecord record) throws IOException {
+		byte[] header = readLocalHeader(record);
+
+		return record.getLocalHeaderOffset() + LOCAL_HEADER_LENGTH
+				+ getShort(header, 26) + getShort(header, 28);
+	}
+
+	/**
+	 * 항목이 Zip 파일에서 차지하는 구간(로컬 헤더, 압축된 데이터, 데이터 설명자)의 끝 위치를
+	 * 반환하는 메소드
+	 * 
+	 * @param record
+	 *            {@link ZipRecord}
+	 * @return 항목 구간의 끝 위치
+	 * @throws IOException
+	 */
+	public long getEntryEnd(ZipRecord record) throws IOException {
+		byte[] header = readLocalHeader(record);
+
+		final int nameLength = getShort(header, 26);
+		final int extraLength = getShort(header, 28);
+
+		final long dataOffset = record.getLocalHeaderOffset()
+				+ LOCAL_HEADER_LENGTH + nameLength + extraLength;
+		long end = dataOffset + record.getCompressedSize();
+
+		if ((record.getFlags() & 0x0008) != 0) {
+			// 데이터 설명자가 있는 경우 (서명은 생략될 수 있음)
+			byte[] extra = new byte[extraLength];
+			readFully(extra, dataOffset - extraLength);
+
+			// 로컬 헤더에 Zip64 추가 필드가 있거나 4 GB를 넘으면 크기가 8바이트
+			final boolean zip64 = (findExtraField(extra, ZIP64_HEADER_ID) != -1)
+					|| record.getCompressedSize() >= ZIP64_MAGIC
+					|| record.getSize() >= ZIP64_MAGIC;
+
+			byte[] b = new byte[4];
+			readFully(b, end);
+
+			end += (getInt(b, 0) == DATA_DESCRIPTOR_SIGNATURE) ? 4 : 0;
+			end += zip64 ? 20 : 12;
+		}
+
+		return end;
+	}
+
+	/**
+	 * 항목 이름의 인코딩을 반환하는 메소드
+	 * 
+	 * @return 항목 이름의 인코딩
+	 */
+	public String getEncoding() {
+		return encoding;
+	}
+
+	/**
+	 * 항목 이름의 인코딩을 바꾸는 메소드
+	 * 
+	 * 중앙 디렉토리는 이미 메모리에 읽어 두었으므로 Zip 파일을 다시 읽지 않습니다.
+	 * 
+	 * @param encoding
+	 *            항목 이름의 인코딩
+	 * @throws UnsupportedEncodingException
+	 */
+	void setEncoding(String encoding) throws UnsupportedEncodingException {
+		// 인코딩 확인
+		new String(new byte[0], encoding);
+
+		this.encoding = encoding;
+	}
+
+	/**
+	 * 항목의 압축된 데이터를 그대로 읽는 {@link InputStream}을 반환하는 메소드
+	 * 
+	 * @param record
+	 *            {@link ZipRecord}
+	 * @return 압축된 데이터를 읽는 {@link InputStream}
+	 * @throws IOException
+	 */
+	public InputStream getRawInputStream(ZipRecord record) throws IOException {
+		return new ChannelInputStream(channel, getDataOffset(record), record
+				.getCompressedSize());
+	}
+
+	/**
+	 * 항목의 압축을 풀어서 읽는 {@link InputStream}을 반환하는 메소드
+	 * 
+	 * @param record
+	 *            {@link ZipRecord}
+	 * @return 압축을 푼 데이터를 읽는 {@link InputStream}
+	 * @throws IOException
+	 */
+	public InputStream getInputStream(ZipRecord record) throws IOException {
+		switch (record.getMethod()) {
+		case ZipRecord.STORED:
+			return getRawInputStream(record);
+
+		case ZipRecord.DEFLATED:
+			return new EntryInputStream(getRawInputStream(record));
+
+		default:
+			throw new ZipException(record.getName()
+					+ " 항목은 지원하지 않는 압축 방법(" + record.getMethod()
+					+ ")을 사용합니다.");
+		}
+	}
+
+	/**
+	 * 항목의 숫자를 반환하는 메소드
+	 * 
+	 * @return 항목의 숫자
+	 */
+	public int size() {
+		return entryCount;
+	}
+
+	/**
+	 * 중앙 디렉토리 순서로 index 번째 항목의 {@link ZipEntry}를 만들어 반환하는 메소드
+	 * 
+	 * @param index
+	 *            중앙 디렉토리에서의 순서
+	 * @return {@link ZipEntry}
+	 */
+	public ZipEntry getEntry(int index) {
+		return new ZipEntry(this, headerOffsets[index]);
+	}
+
+	/**
+	 * 중앙 디렉토리 순서로 index 번째 항목의 중앙 디렉토리 헤더 위치를 반환하는 메소드
+	 */
+	int getHeaderOffset(int index) {
+		return headerOffsets[index];
+	}
+
+	/**
+	 * 중앙 디렉토리 헤더에서 항목 이름을 읽는 메소드
+	 * 
+	 * @param off
+	 *            중앙 디렉토리 헤더의 위치
+	 * @return 항목 이름
+	 */
+	String getName(int off) {
+		byte[] name = getBytes(centralDirectory, off + CENTRAL_HEADER_LENGTH,
+				getShort(centralDirectory, off + 28));
+
+		try {
+			return new String(name, encoding);
+		} catch (UnsupportedEncodingException e) {
+			// 생성자에서 이미 확인한 인코딩이므로 일어나지 않음
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * 중앙 디렉토리 헤더의 모든 정보를 {@link ZipRecord}로 읽는 메소드
+	 * 
+	 * @param off
+	 *            중앙 디렉토리 헤더의 위치
+	 * @return {@link ZipRecord}
+	 */
+	ZipRecord getRecord(int off) {
+		final ByteBuffer cd = centralDirectory;
+
+		final int nameLength = getShort(cd, off + 28);
+		final int extraLength = getShort(cd, off + 30);
+		final int commentLength = getShort(cd, off + 32);
+
+		final int extraOff = off + CENTRAL_HEADER_LENGTH + nameLength;
+		final int commentOff = extraOff + extraLength;
+
+		ZipRecord record = new ZipRecord(getName(off));
+
+		record.setVersionMadeBy(getShort(cd, off + 4));
+		record.setVersionNeeded(getShort(cd, off + 6));
+		record.setFlags(getShort(cd, off + 8));
+		record.setMethod(getShort(cd, off + 10));
+		record.setDosTime(getInt(cd, off + 12));
+		record.setCrc(getInt(cd, off + 16));
+		record.setCompressedSize(getZip64Value(cd, off, 20));
+		record.setSize(getZip64Value(cd, off, 24));
+		record.setInternalAttributes(getShort(cd, off + 36));
+		record.setExternalAttributes(getInt(cd, off + 38));
+		record.setLocalHeaderOffset(getZip64Value(cd, off, 42));
+
+		if (extraLength != 0)
+			record.setExtra(getBytes(cd, extraOff, extraLength));
+
+		if (commentLength != 0)
+			record.setComment(getBytes(cd, commentOff, commentLength));
+
+		return record;
+	}
+
+	/**
+	 * 모든 항목의 {@link ZipRecord}를 중앙 디렉토리 순서대로 만들어 반환하는 메소드
+	 * 
+	 * @return {@link ZipRecord}의 {@link List}
+	 */
+	public List<ZipRecord> getRecords() {
+		ArrayList<ZipRecord> records = new ArrayList<ZipRecord>(entryCount);
+
+		for (int i = 0; i < entryCount; i++)
+			records.add(getRecord(headerOffsets[i]));
+
+		return records;
+	}
+
+	/**
+	 * 중앙 디렉토리 헤더에서 항목 이름의 바이트 수를 읽는 메소드
+	 */
+	int getNameLength(int off) {
+		return getShort(centralDirectory, off + 28);
+	}
+
+	/**
+	 * 중앙 디렉토리 헤더에서 항목 이름의 바이트들을 배열에 복사하는 메소드
+	 */
+	void getNameBytes(int off, byte[] b, int bOff) {
+		ByteBuffer slice = centralDirectory.duplicate();
+		slice.position(off + CENTRAL_HEADER_LENGTH);
+		slice.get(b, bOff, getNameLength(off));
+	}
+
+	/**
+	 * 중앙 디렉토리 헤더에서 DOS 형식의 바뀐 시간을 읽는 메소드
+	 */
+	long getDosTime(int off) {
+		return getInt(centralDirectory, off + 12);
+	}
+
+	/**
+	 * 중앙 디렉토리 헤더에서 압축된 크기를 읽는 메소드
+	 */
+	long getCompressedSize(int off) {
+		return getZip64Value(centralDirectory, off, 20);
+	}
+
+	/**
+	 * 중앙 디렉토리 헤더에서 실제 크기를 읽는 메소드
+	 */
+	long getSize(int off) {
+		return getZip64Value(centralDirectory, off, 24);
+	}
+
+	/**
+	 * 중앙 디렉토리 헤더에서 바뀐 시간을 읽는 메소드
+	 */
+	long getTime(int off) {
+		final long dosTime = getDosTime(off);
+
+		return (dosTime == 0) ? -1 : ZipRecord.fromDosTime(dosTime);
+	}
+
+	/**
+	 * 중앙 디렉토리 헤더의 항목 이름이 '/'로 끝나는지 확인하는 메소드
+	 */
+	boolean isDirectory(int off) {
+		final int nameLength = getShort(centralDirectory, off + 28);
+
+		return (nameLength != 0)
+				&& (centralDirectory.get(off + CENTRAL_HEADER_LENGTH
+						+ nameLength - 1) == '/');
+	}
+
+	/**
+	 * 중앙 디렉토리를 읽는 메소드
+	 * 
+	 * @throws IOException
+	 */
+	private void readCentralDirectory() throws IOException {
+		final long length = channel.size();
+
+		// 중앙 디렉토리 끝 레코드 찾기 (Zip 파일 설명은 최대 65535 바이트)
+		final int tailLength = (int) Math.min(length, END_LENGTH + 0xffff);
+		ByteBuffer tail = read(length - tailLength, tailLength);
+
+		int end = -1;
+		for (int i = tailLength - END_LENGTH; i >= 0; i--) {
+			if (getInt(tail, i) == END_SIGNATURE) {
+				end = i;
+
+				break;
+			}
+		}
+
+		if (end == -1)
+			throw new ZipException("중앙 디렉토리를 찾을 수 없습니다.");
+
+		long count = getShort(tail, end + 10);
+		long size = getInt(tail, end + 12);
+		centralDirectoryOffset = getInt(tail, end + 16);
+
+		// 바로 앞에 Zip64 끝 레코드 위치 지정자가 있으면 64비트 값을 읽음
+		final long endOffset = length - tailLength + end;
+		if (endOffset >= ZIP64_LOCATOR_LENGTH) {
+			byte[] locator = new byte[ZIP64_LOCATOR_LENGTH];
+			readFully(locator, endOffset - ZIP64_LOCATOR_LENGTH);
+
+			if (getInt(locator, 0) == ZIP64_LOCATOR_SIGNATURE) {
+				final long zip64EndOffset = getLong(locator, 8);
+
+				byte[] zip64End = new byte[ZIP64_END_LENGTH];
+				if (zip64EndOffset < 0
+						|| zip64EndOffset + ZIP64_END_LENGTH > endOffset)
+					throw new ZipException("Zip64 중앙 디렉토리 끝 레코드를 찾을 수 없습니다.");
+
+				readFully(zip64End, zip64EndOffset);
+
+				if (getInt(zip64End, 0) != ZIP64_END_SIGNATURE)
+					throw new ZipException("Zip64 중앙 디렉토리 끝 레코드가 올바르지 않습니다.");
+
+				count = getLong(zip64End, 32);
+				size = getLong(zip64End, 40);
+				centralDirectoryOffset = getLong(zip64End, 48);
+			}
+		}
+
+		if (count < 0 || size < 0 || centralDirectoryOffset < 0
+				|| centralDirectoryOffset + size > length)
+			throw new ZipException("중앙 디렉토리가 잘려 있습니다.");
+
+		if (size > Integer.MAX_VALUE)
+			throw new ZipException("중앙 디렉토리가 2 GB보다 커서 읽을 수 없습니다.");
+
+		// 인코딩 확인
+		new String(new byte[0], encoding);
+
+		ByteBuffer cd = read(centralDirectoryOffset, (int) size);
+
+		int[] offsets = new int[(int) Math.min(count, size
+				/ CENTRAL_HEADER_LENGTH)];
+
+		// 각 중앙 디렉토리 헤더의 위치만 기록함
+		int off = 0;
+		for (int i = 0; i < count; i++) {
+			if ((off + CENTRAL_HEADER_LENGTH > size)
+					|| (getInt(cd, off) != CENTRAL_HEADER_SIGNATURE))
+				throw new ZipException("중앙 디렉토리가 올바르지 않습니다.");
+
+			final int next = off + CENTRAL_HEADER_LENGTH
+					+ getShort(cd, off + 28) + getShort(cd, off + 30)
+					+ getShort(cd, off + 32);
+
+			if (next > size)
+				throw new ZipException("중앙 디렉토리가 올바르지 않습니다.");
+
+			for (int field : ZIP64_FIELDS)
+				if (getZip64Value(cd, off, field) == -1)
+					throw new ZipException("중앙 디렉토리의 Zip64 추가 필드가 올바르지 않습니다.");
+
+			offsets[i] = off;
+
+			off = next;
+		}
+
+		centralDirectory = cd;
+		headerOffsets = offsets;
+		entryCount = offsets.length;
+	}
+
+	/**
+	 * Zip 파일의 일정 구간을 메모리로 읽는 메소드
+	 * 
+	 * @param position
+	 *            읽을 위치
+	 * @param size
+	 *            읽을 바이트 수
+	 * @return little-endian으로 설정된 {@link ByteBuffer}
+	 * @throws IOException
+	 */
+	private ByteBuffer read(long position, int size) throws IOException {
+		byte[] b = new byte[size];
+		readFully(b, position);
+
+		return ByteBuffer.wrap(b).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	/**
+	 * {@link ByteBuffer}의 주어진 위치에서 바이트 배열을 꺼내는 메소드
+	 */
+	private static byte[] getBytes(ByteBuffer buffer, int off, int length) {
+		byte[] b = new byte[length];
+
+		ByteBuffer slice = buffer.duplicate();
+		slice.position(off);
+		slice.get(b);
+
+		return b;
+	}
+
+	/**
+	 * 중앙 디렉토리 헤더에서 크기나 위치를 읽는 메소드
+	 * 
+	 * 헤더의 값이 0xffffffff이면 Zip64 추가 필드에서 64비트 값을 읽습니다. Zip64 추가
+	 * 필드에는 헤더에서 0xffffffff인 값들만 실제 크기, 압축된 크기, 로컬 헤더 위치 순서로
+	 * 들어 있습니다.
+	 * 
+	 * @param cd
+	 *            중앙 디렉토리
+	 * @param off
+	 *            중앙 디렉토리 헤더의 위치
+	 * @param field
+	 *            헤더 안에서 값의 위치 (20 : 압축된 크기, 24 : 실제 크기, 42 : 로컬 헤더
+	 *            위치)
+	 * @return 크기나 위치, Zip64 추가 필드가 올바르지 않으면 -1
+	 */
+	private static long getZip64Value(ByteBuffer cd, int off, int field) {
+		final long value = getInt(cd, off + field);
+		if (value != ZIP64_MAGIC)
+			return value;
+
+		byte[] extra = getBytes(cd, off + CENTRAL_HEADER_LENGTH
+				+ getShort(cd, off + 28), getShort(cd, off + 30));
+
+		int p = findExtraField(extra, ZIP64_HEADER_ID);
+		if (p == -1)
+			return -1;
+
+		final int end = p + getShort(extra, p - 2);
+
+		for (int f : ZIP64_FIELDS) {
+			if (getInt(cd, off + f) != ZIP64_MAGIC)
+				continue;
+
+			if (p + 8 > end)
+				return -1;
+
+			if (f == field)
+				return getLong(extra, p);
+
+			p += 8;
+		}
+
+		return -1;
+	}
+
+	/**
+	 * little-endian {@link ByteBuffer}에서 2바이트 값을 읽는 메소드
+	 */
+	private static int getShort(ByteBuffer buffer, int off) {
+		return buffer.getShort(off) & 0xffff;
+	}
+
+	/**
+	 * little-endian {@link ByteBuffer}에서 4바이트 값을 읽는 메소드
+	 */
+	private static long getInt(ByteBuffer buffer, int off) {
+		return buffer.getInt(off) & 0xffffffffL;
+	}
+
+	/**
+	 * 항목의 로컬 헤더에서 고정 길이 부분을 읽는 메소드
+	 * 
+	 * @param record
+	 *            {@link ZipRecord}
+	 * @return 로컬 헤더의 고정 길이 부분
+	 * @throws IOException
+	 *             로컬 헤더가 올바르지 않은 경우
+	 */
+	private byte[] readLocalHeader(ZipRecord record) throws IOException {
+		byte[] header = new byte[LOCAL_HEADER_LENGTH];
+		readFully(header, record.getLocalHeaderOffset());
+
+		if (getInt(header, 0) != LOCAL_HEADER_SIGNATURE)
+			throw new ZipException(record.getName() + " 항목의 로컬 헤더가 올바르지 않습니다.");
+
+		return header;
+	}
+
+	/**
+	 * 주어진 위치에서 바이트 배열을 가득 채워 읽는 메소드
+	 * 
+	 * @param b
+	 *            읽은 데이터를 담을 바이트 배열
+	 * @param position
+	 *            읽을 위치
+	 * @throws IOException
+	 */
+	private void readFully(byte[] b, long position) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(b);
+
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) == -1)
+				throw new EOFException();
+		}
+	}
+}
@@ -0,0 +1,269 @@
+/**
+ * ZipRecord : 중앙 디렉토리 항목 정보
+ */
+package com.github.seungwon0.JZip;
+
+import java.util.Calendar;
+
+/**
+ * Zip 파일의 중앙 디렉토리에 기록된 항목 하나의 정보를 담고 있는 클래스
+ * 
+ * 압축된 데이터를 다시 압축하지 않고 그대로 옮길 수 있도록 CRC, 크기, 압축 방법 등을 원래 값
+ * 그대로 보관합니다.
+ * 
+ * @author Seungwon Jeong
+ * 
+ */
+public class ZipRecord {
+	public static final int STORED = 0; // 압축 안함
+
+	public static final int DEFLATED = 8; // Deflate 압축
+
+	private static final byte[] EMPTY = new byte[0];
+
+	/**
+	 * 자바 시간을 DOS 시간으로 바꾸는 메소드
+	 * 
+	 * @param time
+	 *            자바 시간
+	 * @return DOS 시간
+	 */
+	public static long toDosTime(long time) {
+		Calendar calendar = Calendar.getInstance();
+		calendar.setTimeInMillis(time);
+
+		final int year = calendar.get(Calendar.YEAR);
+		if (year < 1980)
+			// DOS 시간으로 표현할 수 없는 경우
+			return (1 << 21) | (1 << 16);
+
+		return ((long) (year - 1980) << 25)
+				| ((calendar.get(Calendar.MONTH) + 1) << 21)
+				| (calendar.get(Calendar.DAY_OF_MONTH) << 16)
+				| (calendar.get(Calendar.HOUR_OF_DAY) << 11)
+				| (calendar.get(Calendar.MINUTE) << 5)
+				| (calendar.get(Calendar.SECOND) >> 1);
+	}
+
+	/**
+	 * DOS 시간을 자바 시간으로 바꾸는 메소드
+	 * 
+	 * @param dosTime
+	 *            DOS 시간
+	 * @return 자바 시간
+	 */
+	public static long fromDosTime(long dosTime) {
+		Calendar calendar = Calendar.getInstance();
+		calendar.clear();
+		calendar.set((int) ((dosTime >> 25) & 0x7f) + 1980,
+				(int) ((dosTime >> 21) & 0x0f) - 1,
+				(int) (dosTime >> 16) & 0x1f, (int) (dosTime >> 11) & 0x1f,
+				(int) (dosTime >> 5) & 0x3f, (int) (dosTime << 1) & 0x3e);
+
+		return calendar.getTimeInMillis();
+	}
+
+	private String name; // 항목 이름
+
+	private int versionMadeBy = 20; // 만든 버전
+
+	private int versionNeeded = 20; // 필요한 버전
+
+	private int flags; // 일반 목적 비트 플래그
+
+	private int method = DEFLATED; // 압축 방법
+
+	private long dosTime; // DOS 형식의 바뀐 시간
+
+	private long crc; // CRC-32
+
+	private long compressedSize; // 압축 크기
+
+	private long size; // 실제 크기
+
+	private int internalAttributes; // 내부 속성
+
+	private long externalAttributes; // 외부 속성
+
+	private long localHeaderOffset; // 로컬 헤더 위치
+
+	private byte[] extra = EMPTY; // 중앙 디렉토리의 추가 필드
+
+	private byte[] comment = EMPTY; // 항목 설명
+
+	/**
+	 * {@link ZipRecord} 클래스의 생성자
+	 * 
+	 * @param name
+	 *            항목 이름
+	 */
+	public ZipRecord(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * 다른 {@link ZipRecord}의 정보를 복사하여 이름만 바꾸는 생성자
+	 * 
+	 * @param record
+	 *            원본 {@link ZipRecord}
+	 * @param name
+	 *            새로운 항목 이름
+	 */
+	public ZipRecord(ZipRecord record, String name) {
+		this.name = name;
+
+		versionMadeBy = record.versionMadeBy;
+		versionNeeded = record.versionNeeded;
+		flags = record.flags;
+		method = record.method;
+		dosTime = record.dosTime;
+		crc = record.crc;
+		compressedSize = record.compressedSize;
+		size = record.size;
+		internalAttributes = record.internalAttributes;
+		externalAttributes = record.externalAttributes;
+		localHeaderOffset = record.localHeaderOffset;
+		extra = record.extra;
+		comment = record.comment;
+	}
+
+	public byte[] getComment() {
+		return comment;
+	}
+
+	public long getCompressedSize() {
+		return compressedSize;
+	}
+
+	public long getCrc() {
+		return crc;
+	}
+
+	public long getDosTime() {
+		return dosTime;
+	}
+
+	public long getExternalAttributes() {
+		return externalAttributes;
+	}
+
+	public byte[] getExtra() {
+		return extra;
+	}
+
+	public int getFlags() {
+		return flags;
+	}
+
+	public int getInternalAttributes() {
+		return internalAttributes;
+	}
+
+	public long getLocalHeaderOffset() {
+		return localHeaderOffset;
+	}
+
+	public int getMethod() {
+		return method;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public long getSize() {
+		return size;
+	}
+
+	/**
+	 * 바뀐 시간을 자바 시간으로 반환하는 메소드
+	 * 
+	 * @return 바뀐 시간, 알 수 없으면 -1
+	 */
+	public long getTime() {
+		if (dosTime == 0)
+			// 바뀐 시간이 기록되지 않은 경우
+			return -1;
+
+		return fromDosTime(dosTime);
+	}
+
+	public int getVersionMadeBy() {
+		return versionMadeBy;
+	}
+
+	public int getVersionNeeded() {
+		return versionNeeded;
+	}
+
+	/**
+	 * 디렉토리 항목인지의 여부를 반환하는 메소드
+	 * 
+	 * @return 디렉토리 여부
+	 */
+	public boolean isDirectory() {
+		return name.endsWith("/");
+	}
+
+	public void setComment(byte[] comment) {
+		this.comment = comment;
+	}
+
+	public void setCompressedSize(long compressedSize) {
+		this.compressedSize = compressedSize;
+	}
+
+	public void setCrc(long crc) {
+		this.crc = crc;
+	}
+
+	public void setDosTime(long dosTime) {
+		this.dosTime = dosTime;
+	}
+
+	public void setExternalAttributes(long externalAttributes) {
+		this.externalAttributes = externalAttributes;
+	}
+
+	public void setExtra(byte[] extra) {
+		this.extra = extra;
+	}
+
+	public void setFlags(int flags) {
+		this.flags = flags;
+	}
+
+	public void setInternalAttributes(int internalAttributes) {
+		this.internalAttributes = internalAttributes;
+	}
+
+	public void setLocalHeaderOffset(long localHeaderOffset) {
+		this.localHeaderOffset = localHeaderOffset;
+	}
+
+	public void setMethod(int method) {
+		this.method = method;
+	}
+
+	public void setSize(long size) {
+		this.size = size;
+	}
+
+	/**
+	 * 바뀐 시간을 자바 시간으로 설정하는 메소드
+	 * 
+	 * @param time
+	 *            바뀐 시간
+	 */
+	public void setTime(long time) {
+		dosTime = toDosTime(time);
+	}
+
+	public void setVersionMadeBy(int versionMadeBy) {
+		this.versionMadeBy = versionMadeBy;
+	}
+
+	public void setVersionNeeded(int versionNeeded) {
+		this.versionNeeded = versionNeeded;
+	}
+}
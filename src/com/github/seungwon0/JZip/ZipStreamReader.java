@@ -0,0 +1,479 @@
+/**
+ * ZipStreamReader : Zip 파일을 앞에서부터 차례대로 읽는 클래스
+ */
+package com.github.seungwon0.JZip;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * 파이프나 표준 입력처럼 되돌아갈 수 없는 {@link InputStream}에서 Zip 파일을 읽는 클래스
+ * 
+ * 중앙 디렉토리를 읽지 않고 로컬 헤더를 앞에서부터 차례대로 따라갑니다.
+ * {@link #getNextEntry()}로 다음 항목으로 넘어가고, 항목의 압축을 푼 데이터는
+ * {@link InputStream}의 read 메소드로 읽습니다. 데이터 설명자를 쓰는 Deflate 항목은 압축된
+ * 데이터가 끝나는 곳을 {@link Inflater}로 찾습니다. 읽기 버퍼 하나와 {@link Inflater} 하나만
+ * 사용하므로 Zip 파일의 크기와 관계없이 메모리 사용량이 일정합니다.
+ * 
+ * @author Seungwon Jeong
+ * 
+ */
+public class ZipStreamReader extends InputStream {
+	private final InputStream in; // Zip 파일을 읽는 스트림
+
+	private final String encoding; // 항목 이름의 인코딩
+
+	private byte[] buffer = CodecPool.get().getBuffer(); // 읽기 버퍼
+
+	private int pos; // 읽기 버퍼에서 다음에 읽을 위치
+
+	private int limit; // 읽기 버퍼에 담긴 데이터의 끝
+
+	private Inflater inflater; // Deflate 항목의 압축을 푸는 Inflater
+
+	private ZipRecord current; // 현재 항목
+
+	private boolean entryEof; // 현재 항목의 데이터를 모두 읽었는지의 여부
+
+	private boolean zip64; // 현재 항목의 로컬 헤더에 Zip64 추가 필드가 있는지의 여부
+
+	private long remaining; // 압축하지 않은 항목의 남은 바이트 수
+
+	private long compressedSize; // 현재 항목에서 읽은 압축된 데이터의 크기
+
+	private long size; // 현재 항목에서 압축을 푼 데이터의 크기
+
+	private final CRC32 crc = new CRC32(); // 현재 항목의 CRC-32
+
+	/**
+	 * {@link ZipStreamReader} 클래스의 생성자
+	 * 
+	 * @param in
+	 *            Zip 파일을 읽는 {@link InputStream}
+	 * @param encoding
+	 *            항목 이름의 인코딩
+	 * @throws UnsupportedEncodingException
+	 */
+	public ZipStreamReader(InputStream in, String encoding)
+			throws UnsupportedEncodingException {
+		// 지원하는 인코딩인지 미리 확인
+		new String(new byte[0], encoding);
+
+		this.in = in;
+		this.encoding = encoding;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (buffer == null)
+			return;
+
+		try {
+			in.close();
+		} finally {
+			CodecPool pool = CodecPool.get();
+
+			if (inflater != null)
+				pool.release(inflater);
+
+			pool.release(buffer);
+
+			inflater = null;
+			buffer = null;
+			current = null;
+		}
+	}
+
+	/**
+	 * 현재 항목의 남은 데이터를 건너뛰는 메소드
+	 * 
+	 * 건너뛴 데이터의 CRC-32도 확인합니다. 데이터 설명자가 있는 항목은 이 메소드를 호출한 뒤에야
+	 * 현재 항목의 {@link ZipRecord}에 CRC-32와 크기가 채워집니다.
+	 * 
+	 * @throws IOException
+	 */
+	public void closeEntry() throws IOException {
+		if (current == null || entryEof)
+			return;
+
+		if (current.getMethod() != ZipRecord.STORED
+				&& current.getMethod() != ZipRecord.DEFLATED) {
+			// 지원하지 않는 압축 방법은 압축된 데이터를 그대로 건너뜀
+			while (remaining > 0) {
+				if (pos == limit && !fill())
+					throw new EOFException(current.getName()
+							+ " 항목의 데이터가 잘려 있습니다.");
+
+				final int n = (int) Math.min(remaining, limit - pos);
+				pos += n;
+				remaining -= n;
+			}
+
+			entryEof = true;
+
+			return;
+		}
+
+		byte[] b = CodecPool.get().getBuffer();
+		try {
+			while (read(b, 0, b.length) != -1)
+				;
+		} finally {
+			CodecPool.get().release(b);
+		}
+	}
+
+	/**
+	 * 읽기 버퍼가 비었을 때 새로 채우는 메소드
+	 * 
+	 * @return 채웠으면 true, 스트림이 끝났으면 false
+	 * @throws IOException
+	 */
+	private boolean fill() throws IOException {
+		final int n = in.read(buffer, 0, buffer.length);
+		if (n == -1)
+			return false;
+
+		pos = 0;
+		limit = n;
+
+		return true;
+	}
+
+	/**
+	 * 읽기 버퍼에 적어도 주어진 바이트 수만큼 담기도록 채우는 메소드
+	 * 
+	 * 남은 데이터는 읽기 버퍼의 앞으로 옮깁니다.
+	 * 
+	 * @param n
+	 *            필요한 바이트 수
+	 * @return 채웠으면 true, 그 전에 스트림이 끝났으면 false
+	 * @throws IOException
+	 */
+	private boolean ensure(int n) throws IOException {
+		if (limit - pos >= n)
+			return true;
+
+		System.arraycopy(buffer, pos, buffer, 0, limit - pos);
+		limit -= pos;
+		pos = 0;
+
+		while (limit < n) {
+			final int m = in.read(buffer, limit, buffer.length - limit);
+			if (m == -1)
+				return false;
+
+			limit += m;
+		}
+
+		return true;
+	}
+
+	/**
+	 * 바로 뒤에 데이터 설명자가 있어서 현재 항목이 빈 항목인지 확인하는 메소드
+	 * 
+	 * 압축하지 않고 데이터 설명자를 쓰는 항목은 크기를 알 수 없지만, 빈 파일은 흔히 이렇게
+	 * 기록되므로 읽기 버퍼에서 뒤따르는 데이터를 미리 보고 판단합니다.
+	 * 
+	 * @return 빈 항목이면 true
+	 * @throws IOException
+	 */
+	private boolean isEmptyDescriptor() throws IOException {
+		if (!ensure(12))
+			return false;
+
+		if (ZipReader.getInt(buffer, pos) == ZipReader.DATA_DESCRIPTOR_SIGNATURE)
+			return true;
+
+		// 서명이 생략된 경우 CRC-32와 크기가 모두 0
+		for (int i = 0; i < 12; i++)
+			if (buffer[pos + i] != 0)
+				return false;
+
+		return true;
+	}
+
+	/**
+	 * 현재 항목의 데이터를 모두 읽은 뒤 데이터 설명자를 읽고 CRC-32와 크기를 확인하는 메소드
+	 * 
+	 * 데이터 설명자의 크기는 로컬 헤더에 Zip64 추가 필드가 있으면 8바이트로 봅니다. Zip64 추가
+	 * 필드 없이 4 GB를 넘는 크기를 8바이트로 쓰는 프로그램도 있으므로, 그렇게 읽은 크기가 실제로
+	 * 읽은 데이터와 맞지 않고 다른 크기로 읽은 값이 맞는 경우에만 다른 크기로 읽습니다.
+	 * 
+	 * @throws IOException
+	 */
+	private void finishEntry() throws IOException {
+		entryEof = true;
+
+		if ((current.getFlags() & 0x0008) != 0) {
+			// 데이터 설명자 (서명은 생략될 수 있음)
+			if (!ensure(4))
+				throw new EOFException("Zip 파일이 잘려 있습니다.");
+
+			final int off = (ZipReader.getInt(buffer, pos) == ZipReader.DATA_DESCRIPTOR_SIGNATURE) ? 4
+					: 0;
+
+			boolean zip64Descriptor = zip64;
+			if (!matchDescriptor(off, zip64Descriptor)
+					&& matchDescriptor(off, !zip64Descriptor))
+				zip64Descriptor = !zip64Descriptor;
+
+			byte[] b = new byte[off + (zip64Descriptor ? 20 : 12)];
+			readFully(b, 0, b.length);
+
+			current.setCrc(ZipReader.getInt(b, off));
+
+			if (zip64Descriptor) {
+				current.setCompressedSize(ZipReader.getLong(b, off + 4));
+				current.setSize(ZipReader.getLong(b, off + 12));
+			} else {
+				current.setCompressedSize(ZipReader.getInt(b, off + 4));
+				current.setSize(ZipReader.getInt(b, off + 8));
+			}
+		}
+
+		if (current.getMethod() == ZipRecord.DEFLATED
+				&& compressedSize != current.getCompressedSize())
+			throw new ZipException(current.getName()
+					+ " 항목의 압축된 데이터 크기가 맞지 않습니다.");
+
+		if (size != current.getSize())
+			throw new ZipException(current.getName() + " 항목의 크기가 맞지 않습니다.");
+
+		if (crc.getValue() != current.getCrc())
+			throw new ZipException(current.getName() + " 항목의 CRC-32가 맞지 않습니다.");
+	}
+
+	/**
+	 * 읽기 버퍼에 있는 데이터 설명자의 크기가 실제로 읽은 데이터와 맞는지 확인하는 메소드
+	 * 
+	 * @param off
+	 *            읽기 버퍼에서 데이터 설명자의 CRC-32가 시작하는 위치 (서명이 있으면 4)
+	 * @param zip64Descriptor
+	 *            크기를 8바이트로 읽을지의 여부
+	 * @return 크기가 맞으면 true
+	 * @throws IOException
+	 */
+	private boolean matchDescriptor(int off, boolean zip64Descriptor)
+			throws IOException {
+		if (!ensure(off + (zip64Descriptor ? 20 : 12)))
+			return false;
+
+		final int p = pos + off + 4;
+
+		if (zip64Descriptor)
+			return ZipReader.getLong(buffer, p) == compressedSize
+					&& ZipReader.getLong(buffer, p + 8) == size;
+		else
+			return ZipReader.getInt(buffer, p) == compressedSize
+					&& ZipReader.getInt(buffer, p + 4) == size;
+	}
+
+	/**
+	 * 다음 항목으로 넘어가는 메소드
+	 * 
+	 * 현재 항목의 남은 데이터는 건너뜁니다.
+	 * 
+	 * @return 다음 항목의 {@link ZipRecord}, 항목이 더 없으면 null
+	 * @throws IOException
+	 */
+	public ZipRecord getNextEntry() throws IOException {
+		closeEntry();
+
+		current = null;
+
+		byte[] header = new byte[ZipReader.LOCAL_HEADER_LENGTH];
+
+		if (pos == limit && !fill())
+			// 빈 스트림
+			return null;
+
+		readFully(header, 0, 4);
+
+		final long signature = ZipReader.getInt(header, 0);
+		if (signature == ZipReader.CENTRAL_HEADER_SIGNATURE
+				|| signature == ZipReader.END_SIGNATURE)
+			// 중앙 디렉토리에 이른 경우
+			return null;
+
+		if (signature != ZipReader.LOCAL_HEADER_SIGNATURE)
+			throw new ZipException("로컬 헤더가 올바르지 않습니다.");
+
+		readFully(header, 4, header.length - 4);
+
+		final int flags = ZipReader.getShort(header, 6);
+		final int method = ZipReader.getShort(header, 8);
+
+		byte[] name = new byte[ZipReader.getShort(header, 26)];
+		readFully(name, 0, name.length);
+
+		byte[] extra = new byte[ZipReader.getShort(header, 28)];
+		readFully(extra, 0, extra.length);
+
+		// 플래그 11번 비트가 켜져 있으면 이름은 UTF-8
+		ZipRecord record = new ZipRecord(new String(name,
+				((flags & 0x0800) != 0) ? "UTF-8" : encoding));
+		record.setVersionNeeded(ZipReader.getShort(header, 4));
+		record.setFlags(flags);
+		record.setMethod(method);
+		record.setDosTime(ZipReader.getInt(header, 10));
+		record.setCrc(ZipReader.getInt(header, 14));
+		record.setCompressedSize(ZipReader.getInt(header, 18));
+		record.setSize(ZipReader.getInt(header, 22));
+		record.setExtra(extra);
+
+		// 4 GB를 넘는 크기는 Zip64 추가 필드에 실제 크기, 압축된 크기 순서로 있음
+		int p = ZipReader.findExtraField(extra, ZipReader.ZIP64_HEADER_ID);
+		zip64 = (p != -1);
+		if (zip64) {
+			final int end = p + ZipReader.getShort(extra, p - 2);
+
+			if (record.getSize() == ZipReader.ZIP64_MAGIC && p + 8 <= end) {
+				record.setSize(ZipReader.getLong(extra, p));
+				p += 8;
+			}
+
+			if (record.getCompressedSize() == ZipReader.ZIP64_MAGIC
+					&& p + 8 <= end)
+				record.setCompressedSize(ZipReader.getLong(extra, p));
+		}
+
+		if ((flags & 0x0008) != 0 && method != ZipRecord.DEFLATED
+				&& record.getCompressedSize() == 0 && !isEmptyDescriptor())
+			// 압축된 데이터가 끝나는 곳을 알 수 없음
+			throw new ZipException(record.getName()
+					+ " 항목은 데이터 설명자를 쓰는 Deflate가 아닌 항목이라 차례대로 읽을 수 없습니다.");
+
+		if (method == ZipRecord.DEFLATED) {
+			if (inflater == null)
+				inflater = CodecPool.get().getInflater();
+			else
+				inflater.reset();
+		} else {
+			remaining = record.getCompressedSize();
+		}
+
+		current = record;
+		entryEof = false;
+		compressedSize = 0;
+		size = 0;
+		crc.reset();
+
+		return record;
+	}
+
+	@Override
+	public int read() throws IOException {
+		byte[] b = new byte[1];
+
+		return (read(b, 0, 1) == -1) ? -1 : b[0] & 0xff;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (current == null || entryEof)
+			return -1;
+
+		if (len == 0)
+			return 0;
+
+		switch (current.getMethod()) {
+		case ZipRecord.STORED:
+			if (remaining == 0) {
+				finishEntry();
+
+				return -1;
+			}
+
+			if (pos == limit && !fill())
+				throw new EOFException(current.getName()
+						+ " 항목의 데이터가 잘려 있습니다.");
+
+			final int n = (int) Math.min(Math.min(len, limit - pos), remaining);
+			System.arraycopy(buffer, pos, b, off, n);
+			pos += n;
+			remaining -= n;
+
+			compressedSize += n;
+			size += n;
+			crc.update(b, off, n);
+
+			return n;
+
+		case ZipRecord.DEFLATED:
+			try {
+				while (true) {
+					final int m = inflater.inflate(b, off, len);
+
+					if (m > 0) {
+						size += m;
+						crc.update(b, off, m);
+
+						return m;
+					}
+
+					if (inflater.finished()) {
+						// 뒤따르는 데이터는 읽기 버퍼로 되돌림
+						pos = limit - inflater.getRemaining();
+						compressedSize -= inflater.getRemaining();
+
+						finishEntry();
+
+						return -1;
+					}
+
+					if (inflater.needsDictionary())
+						throw new ZipException(current.getName()
+								+ " 항목의 압축된 데이터가 올바르지 않습니다.");
+
+					if (inflater.needsInput()) {
+						if (pos == limit && !fill())
+							throw new EOFException(current.getName()
+									+ " 항목의 압축된 데이터가 잘려 있습니다.");
+
+						inflater.setInput(buffer, pos, limit - pos);
+						compressedSize += limit - pos;
+						pos = limit;
+					}
+				}
+			} catch (DataFormatException e) {
+				throw new ZipException(current.getName()
+						+ " 항목의 압축된 데이터가 올바르지 않습니다.");
+			}
+
+		default:
+			throw new ZipException(current.getName() + " 항목은 지원하지 않는 압축 방법("
+					+ current.getMethod() + ")을 사용합니다.");
+		}
+	}
+
+	/**
+	 * 읽기 버퍼를 거쳐 정해진 바이트 수만큼 읽는 메소드
+	 * 
+	 * @param b
+	 *            읽은 데이터를 담을 바이트 배열
+	 * @param off
+	 *            바이트 배열의 위치
+	 * @param len
+	 *            읽을 바이트 수
+	 * @throws IOException
+	 */
+	private void readFully(byte[] b, int off, int len) throws IOException {
+		while (len > 0) {
+			if (pos == limit && !fill())
+				throw new EOFException("Zip 파일이 잘려 있습니다.");
+
+			final int n = Math.min(len, limit - pos);
+			System.arraycopy(buffer, pos, b, off, n);
+			pos += n;
+			off += n;
+			len -= n;
+		}
+	}
+}
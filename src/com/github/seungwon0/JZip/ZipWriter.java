@@ -0,0 +1,1070 @@
+/**
+ * ZipWriter : Zip 파일을 쓰는 클래스
+ */
+package com.github.seungwon0.JZip;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipException;
+
+/**
+ * Zip 파일을 쓰는 클래스
+ * 
+ * 새로운 항목은 {@link #putNextEntry(String, long)}로 시작하여 압축하고, 기존 Zip 파일의
+ * 항목은 {@link #putRawEntry(ZipRecord, String)}로 시작하여 압축된 데이터를 다시 압축하지
+ * 않고 그대로 씁니다. 항목의 데이터는 {@link OutputStream}의 write 메소드로 씁니다.
+ * 
+ * 파일에 쓸 때는 항목을 끝낸 뒤 로컬 헤더의 CRC-32와 크기를 고칩니다. 소켓이나 파이프 같은
+ * {@link OutputStream}에 쓸 때는 되돌아갈 수 없으므로 로컬 헤더에 데이터 설명자 플래그를
+ * 켜고 항목 데이터 뒤에 데이터 설명자를 씁니다. 이때는 항목이 얼마나 커질지 모르므로 로컬 헤더에
+ * 항상 Zip64 추가 필드를 쓰고, 데이터 설명자의 크기도 항상 8바이트로 씁니다.
+ * 
+ * 크기나 위치가 4 GB를 넘는 항목은 Zip64 추가 필드에, 항목이 65535개 이상이거나 중앙
+ * 디렉토리가 4 GB를 넘는 위치에 있으면 Zip64 중앙 디렉토리 끝 레코드에 64비트 값을 씁니다.
+ * 로컬 헤더의 Zip64 추가 필드는 항목을 시작할 때 써야 하므로 압축 후 크기를 모르는 항목은
+ * 예상 크기를 받아서 정합니다.
+ * 
+ * @author Seungwon Jeong
+ * 
+ */
+public class ZipWriter extends OutputStream {
+	private static final int BUFFER_SIZE = 64 * 1024; // 버퍼 크기 : 64 KB
+
+	static final int PADDING_HEADER_ID = 0x4a5a; // 패딩 추가 필드의 ID ("JZ")
+
+	// 로컬 헤더에 Zip64 추가 필드를 미리 쓰는 예상 크기 : 3.75 GB (압축하면 조금 커질 수 있음)
+	private static final long ZIP64_EXPECTED_SIZE = 0xf0000000L;
+
+	private final RandomAccessFile raf; // Zip 파일, 스트림에 쓰면 null
+
+	private final FileChannel channel; // Zip 파일의 FileChannel, 스트림에 쓰면 null
+
+	private final OutputStream out; // 버퍼를 사용하는 출력 스트림
+
+	private final String encoding; // 항목 이름의 인코딩
+
+	private final boolean utf8; // UTF-8 인코딩 여부
+
+	private long position; // 다음에 쓸 위치
+
+	private final long baseOffset; // 항목들이 끝나고 중앙 디렉토리가 놓일 위치
+
+	private final long appendOffset; // 새로운 항목을 쓰기 시작한 위치 (기존 파일의 끝)
+
+	// 새로운 항목을 옮길 때 사용할 Transfer, 새로운 Zip 파일이면 null
+	private final Transfer transfer;
+
+	private boolean committed; // 새로운 중앙 디렉토리를 디스크에 기록했는지의 여부
+
+	// 중앙 디렉토리에 기록할 항목들
+	private final ArrayList<ZipRecord> records = new ArrayList<ZipRecord>();
+
+	private ZipRecord current; // 현재 쓰고 있는 항목
+
+	private boolean raw; // 압축된 데이터를 그대로 쓰는 중인지의 여부
+
+	private boolean sizeKnown; // 로컬 헤더에 CRC-32와 크기를 미리 썼는지의 여부
+
+	private boolean zip64; // 로컬 헤더에 Zip64 추가 필드를 썼는지의 여부
+
+	private long dataOffset; // 현재 항목의 데이터 시작 위치
+
+	private final CRC32 crc = new CRC32(); // 현재 항목의 CRC-32
+
+	private long size; // 현재 항목의 실제 크기
+
+	// CodecPool에서 빌린 Deflater
+	private final Deflater deflater = CodecPool.get().getDeflater(
+			Deflater.DEFAULT_COMPRESSION);
+
+	// CodecPool에서 빌린 압축 버퍼
+	private final byte[] deflateBuffer = CodecPool.get().getBuffer();
+
+	/**
+	 * 새로운 Zip 파일을 만드는 {@link ZipWriter} 클래스의 생성자
+	 * 
+	 * @param file
+	 *            새로 만들 Zip {@link File}
+	 * @param encoding
+	 *            항목 이름의 인코딩
+	 * @throws IOException
+	 */
+	public ZipWriter(File file, String encoding) throws IOException {
+		this.encoding = encoding;
+		utf8 = Charset.forName(encoding).name().equals("UTF-8");
+
+		raf = new RandomAccessFile(file, "rw");
+		raf.setLength(0);
+		channel = raf.getChannel();
+
+		out = new BufferedOutputStream(Channels.newOutputStream(channel),
+				BUFFER_SIZE);
+
+		baseOffset = 0;
+		appendOffset = 0;
+		transfer = null;
+	}
+
+	/**
+	 * 기존 Zip 파일에 항목을 덧붙이는 {@link ZipWriter} 클래스의 생성자
+	 * 
+	 * 기존 중앙 디렉토리는 새로운 중앙 디렉토리가 완성될 때까지 그대로 두어야 하므로 새로운 항목은
+	 * 기존 Zip 파일의 끝부터 씁니다. {@link #finish()}에서 새로운 중앙 디렉토리를 파일 끝에
+	 * 쓴 뒤에야 새로운 항목을 기존 중앙 디렉토리 위치로 옮기고 Zip 파일을 잘라냅니다. 기존 항목들은
+	 * 새로 쓰는 중앙 디렉토리에 그대로 다시 기록됩니다.
+	 * 
+	 * @param file
+	 *            Zip {@link File}
+	 * @param encoding
+	 *            항목 이름의 인코딩
+	 * @param records
+	 *            기존 항목들의 {@link ZipRecord}
+	 * @param offset
+	 *            기존 중앙 디렉토리의 위치
+	 * @param transfer
+	 *            새로운 항목을 옮길 때 사용할 {@link Transfer}
+	 * @throws IOException
+	 */
+	public ZipWriter(File file, String encoding, List<ZipRecord> records,
+			long offset, Transfer transfer) throws IOException {
+		this.encoding = encoding;
+		utf8 = Charset.forName(encoding).name().equals("UTF-8");
+
+		raf = new RandomAccessFile(file, "rw");
+		channel = raf.getChannel();
+
+		baseOffset = offset;
+		appendOffset = raf.length();
+		this.transfer = transfer;
+
+		if (offset > appendOffset) {
+			raf.close();
+
+			throw new ZipException("중앙 디렉토리의 위치가 올바르지 않습니다.");
+		}
+
+		channel.position(appendOffset);
+
+		out = new BufferedOutputStream(Channels.newOutputStream(channel),
+				BUFFER_SIZE);
+
+		position = appendOffset;
+
+		this.records.addAll(records);
+	}
+
+	/**
+	 * {@link OutputStream}에 새로운 Zip 파일을 쓰는 {@link ZipWriter} 클래스의 생성자
+	 * 
+	 * @param os
+	 *            Zip 파일을 쓸 {@link OutputStream}
+	 * @param encoding
+	 *            항목 이름의 인코딩
+	 */
+	public ZipWriter(OutputStream os, String encoding) {
+		this.encoding = encoding;
+		utf8 = Charset.forName(encoding).name().equals("UTF-8");
+
+		raf = null;
+		channel = null;
+
+		out = new BufferedOutputStream(os, BUFFER_SIZE);
+
+		baseOffset = 0;
+		appendOffset = 0;
+		transfer = null;
+	}
+
+	/**
+	 * 현재 항목을 끝내는 메소드
+	 * 
+	 * @throws IOException
+	 */
+	public void closeEntry() throws IOException {
+		if (current == null)
+			return;
+
+		if (raw) {
+			// 압축된 데이터를 그대로 쓴 경우
+			if (position - dataOffset != current.getCompressedSize())
+				throw new ZipException(current.getName()
+						+ " 항목의 압축된 데이터 크기가 맞지 않습니다.");
+		} else {
+			if (current.getMethod() == ZipRecord.DEFLATED) {
+				deflater.finish();
+
+				while (!deflater.finished())
+					deflate();
+
+				deflater.reset();
+			}
+
+			if (sizeKnown) {
+				// 로컬 헤더에 미리 쓴 값과 비교
+				if (crc.getValue() != current.getCrc()
+						|| size != current.getSize())
+					throw new ZipException(current.getName()
+							+ " 항목의 데이터가 쓰는 동안 바뀌었습니다.");
+
+				current.setCompressedSize(position - dataOffset);
+			} else {
+				current.setCrc(crc.getValue());
+				current.setSize(size);
+				current.setCompressedSize(position - dataOffset);
+
+				finishLocalHeader();
+			}
+		}
+
+		records.add(current);
+
+		current = null;
+	}
+
+	/**
+	 * {@link #putDeflatedEntry(String, long, long)}로 시작한 항목을 끝내는 메소드
+	 * 
+	 * 압축된 크기는 지금까지 쓴 데이터의 크기로 정합니다.
+	 * 
+	 * @param crc
+	 *            압축하기 전 데이터의 CRC-32
+	 * @param size
+	 *            압축하기 전 데이터의 크기
+	 * @throws IOException
+	 */
+	public void closeEntry(long crc, long size) throws IOException {
+		if (current == null)
+			throw new ZipException("시작된 항목이 없습니다.");
+
+		current.setCrc(crc);
+		current.setSize(size);
+		current.setCompressedSize(position - dataOffset);
+
+		finishLocalHeader();
+
+		records.add(current);
+
+		current = null;
+	}
+
+	/**
+	 * 이 Zip 파일에 이미 쓴 항목의 압축된 데이터를 새로운 이름의 항목으로 다시 쓰는 메소드
+	 * 
+	 * 압축된 데이터는 Zip 파일 안에서 그대로 복사하므로 다시 압축하지 않습니다. 스트림에 쓰는
+	 * 경우에는 이미 쓴 데이터를 다시 읽을 수 없으므로 사용할 수 없습니다.
+	 * 
+	 * @param original
+	 *            이 Zip 파일에 이미 쓴 항목의 {@link ZipRecord}
+	 * @param name
+	 *            새로운 항목 이름
+	 * @param time
+	 *            새로운 항목의 바뀐 시간
+	 * @param transfer
+	 *            데이터를 복사할 때 사용할 {@link Transfer}
+	 * @throws IOException
+	 */
+	public void copyEntry(ZipRecord original, String name, long time,
+			Transfer transfer) throws IOException {
+		if (raf == null)
+			throw new ZipException("스트림에 쓰는 중에는 " + original.getName()
+					+ " 항목을 복사할 수 없습니다.");
+
+		ZipRecord record = new ZipRecord(original, name);
+		record.setTime(time);
+
+		putRawEntry(record, name);
+
+		out.flush();
+
+		// 원본 항목의 압축된 데이터 위치
+		byte[] header = new byte[ZipReader.LOCAL_HEADER_LENGTH];
+		ByteBuffer buffer = ByteBuffer.wrap(header);
+		while (buffer.hasRemaining())
+			if (channel.read(buffer, original.getLocalHeaderOffset()
+					+ buffer.position()) == -1)
+				throw new ZipException(original.getName()
+						+ " 항목의 로컬 헤더가 잘려 있습니다.");
+
+		final long from = original.getLocalHeaderOffset()
+				+ ZipReader.LOCAL_HEADER_LENGTH
+				+ ZipReader.getShort(header, 26)
+				+ ZipReader.getShort(header, 28);
+
+		final long length = original.getCompressedSize();
+
+		transfer.move(channel, from, position, length);
+
+		position += length;
+		channel.position(position);
+
+		closeEntry();
+	}
+
+	/**
+	 * 현재 항목을 취소하는 메소드
+	 * 
+	 * 현재 항목의 로컬 헤더 위치로 되돌아가므로 그동안 쓴 데이터는 다음 항목이나 중앙 디렉토리로
+	 * 덮어쓰여집니다.
+	 * 
+	 * @throws IOException
+	 */
+	public void abortEntry() throws IOException {
+		if (current == null)
+			return;
+
+		if (raf == null)
+			throw new ZipException("스트림에 쓰는 중에는 " + current.getName()
+					+ " 항목을 취소할 수 없습니다.");
+
+		if (!raw && current.getMethod() == ZipRecord.DEFLATED)
+			deflater.reset();
+
+		out.flush();
+
+		position = current.getLocalHeaderOffset();
+		channel.position(position);
+
+		current = null;
+	}
+
+	/**
+	 * 현재 항목의 CRC-32와 크기를 기록하는 메소드
+	 * 
+	 * 데이터 설명자 플래그가 켜져 있으면 데이터 설명자를 쓰고, 아니면 로컬 헤더를 고칩니다.
+	 * 데이터 설명자의 크기는 로컬 헤더에 Zip64 추가 필드를 썼으면 8바이트로 씁니다.
+	 * 
+	 * @throws IOException
+	 */
+	private void finishLocalHeader() throws IOException {
+		if ((current.getFlags() & 0x0008) == 0) {
+			fixLocalHeader();
+
+			return;
+		}
+
+		if (zip64) {
+			byte[] b = new byte[24];
+			putInt(b, 0, ZipReader.DATA_DESCRIPTOR_SIGNATURE);
+			putInt(b, 4, current.getCrc());
+			putLong(b, 8, current.getCompressedSize());
+			putLong(b, 16, current.getSize());
+			writeOut(b);
+
+			return;
+		}
+
+		byte[] b = new byte[16];
+		putInt(b, 0, ZipReader.DATA_DESCRIPTOR_SIGNATURE);
+		putInt(b, 4, current.getCrc());
+		putInt(b, 8, current.getCompressedSize());
+		putInt(b, 12, current.getSize());
+		writeOut(b);
+	}
+
+	/**
+	 * 현재 항목의 로컬 헤더에 있는 CRC-32와 크기를 고치는 메소드
+	 * 
+	 * Zip64 추가 필드를 쓴 항목은 추가 필드의 크기를 고칩니다.
+	 * 
+	 * @throws IOException
+	 *             Zip64 추가 필드 없이 크기가 4 GB를 넘는 경우
+	 */
+	private void fixLocalHeader() throws IOException {
+		if (!zip64 && isZip64(current))
+			throw new ZipException(current.getName()
+					+ " 항목이 예상보다 커서 로컬 헤더에 크기를 쓸 수 없습니다.");
+
+		out.flush();
+
+		if (zip64) {
+			byte[] b = new byte[4];
+			putInt(b, 0, current.getCrc());
+			channel.write(ByteBuffer.wrap(b),
+					current.getLocalHeaderOffset() + 14);
+
+			// Zip64 추가 필드는 로컬 헤더의 끝에 있음
+			b = new byte[16];
+			putLong(b, 0, current.getSize());
+			putLong(b, 8, current.getCompressedSize());
+			channel.write(ByteBuffer.wrap(b), dataOffset - b.length);
+
+			return;
+		}
+
+		byte[] b = new byte[12];
+		putInt(b, 0, current.getCrc());
+		putInt(b, 4, current.getCompressedSize());
+		putInt(b, 8, current.getSize());
+
+		channel.write(ByteBuffer.wrap(b), current.getLocalHeaderOffset() + 14);
+	}
+
+	/**
+	 * 압축된 데이터를 {@link Deflater}에서 꺼내어 쓰는 메소드
+	 * 
+	 * @throws IOException
+	 */
+	private void deflate() throws IOException {
+		final int n = deflater.deflate(deflateBuffer, 0, deflateBuffer.length);
+
+		if (n > 0) {
+			out.write(deflateBuffer, 0, n);
+			position += n;
+		}
+	}
+
+	/**
+	 * 중앙 디렉토리를 쓰고 Zip 파일을 닫는 메소드
+	 * 
+	 * 기존 Zip 파일에 덧붙인 경우에는 새로운 중앙 디렉토리를 먼저 파일 끝에 쓰고 디스크에 기록한
+	 * 뒤에 {@link #compact()}로 기존 중앙 디렉토리 자리를 메웁니다. 그 전에 실패하면 Zip 파일을
+	 * 원래 길이로 되돌립니다.
+	 * 
+	 * @throws IOException
+	 */
+	public void finish() throws IOException {
+		try {
+			closeEntry();
+
+			final long dataEnd = position;
+
+			writeCentralDirectory();
+
+			out.flush();
+
+			if (raf != null) {
+				if (appendOffset > baseOffset) {
+					channel.force(false);
+					committed = true;
+
+					compact(dataEnd);
+				} else {
+					raf.setLength(position);
+				}
+			}
+		} finally {
+			CodecPool pool = CodecPool.get();
+			pool.release(deflater, Deflater.DEFAULT_COMPRESSION);
+			pool.release(deflateBuffer);
+
+			if (raf != null) {
+				try {
+					if (!committed && appendOffset > baseOffset)
+						// 덧붙인 데이터를 버리고 기존 Zip 파일로 되돌림
+						raf.setLength(appendOffset);
+				} finally {
+					raf.close();
+				}
+			} else {
+				out.close();
+			}
+		}
+	}
+
+	/**
+	 * 기존 Zip 파일에 덧붙인 경우 새로운 중앙 디렉토리를 디스크에 기록했는지의 여부를 반환하는 메소드
+	 * 
+	 * {@link #finish()}가 실패했을 때 false이면 Zip 파일은 원래대로 되돌려져 있고, true이면
+	 * 새로운 중앙 디렉토리가 가리키는 내용으로 바뀌어 있습니다.
+	 * 
+	 * @return 새로운 중앙 디렉토리를 디스크에 기록했으면 true
+	 */
+	public boolean isCommitted() {
+		return committed;
+	}
+
+	/**
+	 * 파일 끝에 쓴 중앙 디렉토리를 기존 중앙 디렉토리 위치로 옮기고 Zip 파일을 잘라내는 메소드
+	 * 
+	 * 언제 멈추더라도 파일 끝에 올바른 중앙 디렉토리가 남도록 다음 순서로 씁니다.
+	 * 
+	 * 1. 새로운 항목을 기존 중앙 디렉토리 위치로 옮긴 뒤 옮긴 위치를 가리키는 중앙 디렉토리를 파일
+	 * 끝에 다시 씁니다. 기존 항목은 건드리지 않지만 두 구간이 겹치면 옮기는 동안 멈춘 경우 새로운
+	 * 항목이 깨질 수 있습니다.
+	 * 
+	 * 2. 최종 위치에 쓸 중앙 디렉토리가 파일 끝의 중앙 디렉토리와 겹치면 파일 끝에 한 번 더 씁니다.
+	 * 
+	 * 3. 최종 위치에 중앙 디렉토리를 쓰고 디스크에 기록한 뒤 그 뒤를 잘라냅니다.
+	 * 
+	 * @param dataEnd
+	 *            새로운 항목들이 끝나는 위치
+	 * @throws IOException
+	 */
+	private void compact(long dataEnd) throws IOException {
+		final long dataLength = dataEnd - appendOffset;
+		final long distance = appendOffset - baseOffset;
+
+		long centralDirectoryOffset = dataEnd;
+
+		if (dataLength > 0) {
+			transfer.move(channel, appendOffset, baseOffset, dataLength);
+
+			for (ZipRecord record : records)
+				if (record.getLocalHeaderOffset() >= appendOffset)
+					record.setLocalHeaderOffset(record.getLocalHeaderOffset()
+							- distance);
+
+			centralDirectoryOffset = writeCentralDirectoryAt(position);
+		}
+
+		final long target = baseOffset + dataLength;
+
+		if (target + (position - centralDirectoryOffset) > centralDirectoryOffset)
+			// 최종 위치에 쓰는 동안에도 파일 끝의 중앙 디렉토리가 남도록 함
+			writeCentralDirectoryAt(position);
+
+		writeCentralDirectoryAt(target);
+
+		raf.setLength(position);
+	}
+
+	/**
+	 * 주어진 위치에 중앙 디렉토리를 쓰고 디스크에 기록하는 메소드
+	 * 
+	 * @param offset
+	 *            중앙 디렉토리를 쓸 위치
+	 * @return 중앙 디렉토리를 쓴 위치
+	 * @throws IOException
+	 */
+	private long writeCentralDirectoryAt(long offset) throws IOException {
+		position = offset;
+		channel.position(offset);
+
+		writeCentralDirectory();
+
+		out.flush();
+		channel.force(false);
+
+		return offset;
+	}
+
+	/**
+	 * 현재 위치에 중앙 디렉토리와 중앙 디렉토리 끝 레코드를 쓰는 메소드
+	 * 
+	 * @throws IOException
+	 */
+	private void writeCentralDirectory() throws IOException {
+		final long centralDirectoryOffset = position;
+
+		for (ZipRecord record : records)
+			writeCentralHeader(record);
+
+		final long centralDirectorySize = position - centralDirectoryOffset;
+
+		final int count = records.size();
+
+		if (count >= 0xffff || centralDirectorySize >= ZipReader.ZIP64_MAGIC
+				|| centralDirectoryOffset >= ZipReader.ZIP64_MAGIC) {
+			final long zip64EndOffset = position;
+
+			// Zip64 중앙 디렉토리 끝 레코드
+			byte[] b = new byte[ZipReader.ZIP64_END_LENGTH];
+			putInt(b, 0, ZipReader.ZIP64_END_SIGNATURE);
+			putLong(b, 4, b.length - 12);
+			putShort(b, 12, ZipReader.ZIP64_VERSION);
+			putShort(b, 14, ZipReader.ZIP64_VERSION);
+			putLong(b, 24, count);
+			putLong(b, 32, count);
+			putLong(b, 40, centralDirectorySize);
+			putLong(b, 48, centralDirectoryOffset);
+			writeOut(b);
+
+			// Zip64 중앙 디렉토리 끝 레코드 위치 지정자
+			b = new byte[ZipReader.ZIP64_LOCATOR_LENGTH];
+			putInt(b, 0, ZipReader.ZIP64_LOCATOR_SIGNATURE);
+			putLong(b, 8, zip64EndOffset);
+			putInt(b, 16, 1);
+			writeOut(b);
+		}
+
+		// 중앙 디렉토리 끝 레코드 (넘치는 값은 Zip64 끝 레코드에 있음)
+		byte[] b = new byte[ZipReader.END_LENGTH];
+		putInt(b, 0, ZipReader.END_SIGNATURE);
+		putShort(b, 8, Math.min(count, 0xffff));
+		putShort(b, 10, Math.min(count, 0xffff));
+		putInt(b, 12, Math.min(centralDirectorySize, ZipReader.ZIP64_MAGIC));
+		putInt(b, 16, Math.min(centralDirectoryOffset, ZipReader.ZIP64_MAGIC));
+		writeOut(b);
+	}
+
+	/**
+	 * 새로운 항목을 시작하는 메소드
+	 * 
+	 * 이름이 '/'로 끝나면 디렉토리 항목으로 보고 압축하지 않습니다.
+	 * 
+	 * @param name
+	 *            항목 이름
+	 * @param time
+	 *            바뀐 시간, -1이면 현재 시간
+	 * @throws IOException
+	 */
+	public void putNextEntry(String name, long time) throws IOException {
+		putNextEntry(name, time, ZipRecord.DEFLATED);
+	}
+
+	/**
+	 * 주어진 압축 방법으로 새로운 항목을 시작하는 메소드
+	 * 
+	 * 이름이 '/'로 끝나면 디렉토리 항목으로 보고 압축하지 않습니다.
+	 * 
+	 * @param name
+	 *            항목 이름
+	 * @param time
+	 *            바뀐 시간, -1이면 현재 시간
+	 * @param method
+	 *            압축 방법 ({@link ZipRecord#STORED} 또는
+	 *            {@link ZipRecord#DEFLATED})
+	 * @throws IOException
+	 */
+	public void putNextEntry(String name, long time, int method)
+			throws IOException {
+		putNextEntry(name, time, method, 0);
+	}
+
+	/**
+	 * 주어진 압축 방법과 예상 크기로 새로운 항목을 시작하는 메소드
+	 * 
+	 * 예상 크기가 4 GB에 가까우면 로컬 헤더에 Zip64 추가 필드를 씁니다.
+	 * 
+	 * @param name
+	 *            항목 이름
+	 * @param time
+	 *            바뀐 시간, -1이면 현재 시간
+	 * @param method
+	 *            압축 방법 ({@link ZipRecord#STORED} 또는
+	 *            {@link ZipRecord#DEFLATED})
+	 * @param expectedSize
+	 *            압축하기 전 데이터의 예상 크기
+	 * @throws IOException
+	 */
+	public void putNextEntry(String name, long time, int method,
+			long expectedSize) throws IOException {
+		closeEntry();
+
+		ZipRecord record = new ZipRecord(name);
+		record.setTime((time == -1) ? System.currentTimeMillis() : time);
+		record.setMethod(method);
+
+		if (method == ZipRecord.STORED)
+			record.setVersionNeeded(10);
+
+		if (record.isDirectory()) {
+			record.setMethod(ZipRecord.STORED);
+			record.setVersionNeeded(10);
+			record.setExternalAttributes(0x10); // MS-DOS 디렉토리 속성
+		}
+
+		// 스트림에 쓰는 경우 디렉토리가 아니면 크기를 데이터 설명자로 알림
+		sizeKnown = (raf == null && record.isDirectory());
+		final boolean descriptor = (raf == null && !sizeKnown);
+		if (descriptor)
+			record.setFlags(record.getFlags() | 0x0008);
+
+		// 데이터 설명자의 크기가 8바이트임을 로컬 헤더의 Zip64 추가 필드로 알림
+		startEntry(record, descriptor || expectedSize >= ZIP64_EXPECTED_SIZE);
+	}
+
+	/**
+	 * 로컬 헤더를 쓰고 새로운 항목을 현재 항목으로 만드는 메소드
+	 * 
+	 * @param record
+	 *            새로운 항목
+	 * @param zip64
+	 *            로컬 헤더에 Zip64 추가 필드를 쓸지의 여부
+	 * @throws IOException
+	 */
+	private void startEntry(ZipRecord record, boolean zip64)
+			throws IOException {
+		record.setLocalHeaderOffset(position);
+
+		writeLocalHeader(record, zip64);
+
+		current = record;
+		raw = false;
+		dataOffset = position;
+		crc.reset();
+		size = 0;
+	}
+
+	/**
+	 * 마지막으로 끝낸 항목의 {@link ZipRecord}를 반환하는 메소드
+	 * 
+	 * @return 마지막으로 끝낸 항목, 없으면 null
+	 */
+	public ZipRecord getLastRecord() {
+		return records.isEmpty() ? null : records.get(records.size() - 1);
+	}
+
+	/**
+	 * 스트림에 쓰는지의 여부를 반환하는 메소드
+	 * 
+	 * @return {@link OutputStream}에 쓰면 true, 파일에 쓰면 false
+	 */
+	public boolean isStream() {
+		return raf == null;
+	}
+
+	/**
+	 * 다른 곳에서 Deflate로 압축한 데이터를 쓰는 항목을 시작하는 메소드
+	 * 
+	 * 압축된 데이터는 write 메소드로 그대로 쓰고, 항목은
+	 * {@link #closeEntry(long, long)}로 CRC-32와 원래 크기를 주어 끝냅니다. 예상 크기가
+	 * 4 GB에 가깝거나 스트림에 쓰는 경우 로컬 헤더에 Zip64 추가 필드를 씁니다.
+	 * 
+	 * @param name
+	 *            항목 이름
+	 * @param time
+	 *            바뀐 시간
+	 * @param expectedSize
+	 *            압축하기 전 데이터의 예상 크기
+	 * @throws IOException
+	 */
+	public void putDeflatedEntry(String name, long time, long expectedSize)
+			throws IOException {
+		closeEntry();
+
+		ZipRecord record = new ZipRecord(name);
+		record.setTime(time);
+		record.setMethod(ZipRecord.DEFLATED);
+		record.setLocalHeaderOffset(position);
+
+		if (raf == null)
+			// 스트림에 쓰는 경우 크기를 데이터 설명자로 알림
+			record.setFlags(record.getFlags() | 0x0008);
+
+		// 데이터 설명자의 크기가 8바이트임을 로컬 헤더의 Zip64 추가 필드로 알림
+		writeLocalHeader(record, raf == null
+				|| expectedSize >= ZIP64_EXPECTED_SIZE);
+
+		current = record;
+		raw = true;
+		dataOffset = position;
+	}
+
+	/**
+	 * 압축된 데이터를 그대로 쓰는 항목을 시작하는 메소드
+	 * 
+	 * CRC-32, 크기, 압축 방법 등은 원본 {@link ZipRecord}의 값을 그대로 사용합니다.
+	 * 
+	 * @param original
+	 *            원본 {@link ZipRecord}
+	 * @param name
+	 *            새로운 항목 이름
+	 * @throws IOException
+	 */
+	public void putRawEntry(ZipRecord original, String name) throws IOException {
+		closeEntry();
+
+		ZipRecord record = new ZipRecord(original, name);
+
+		// 데이터 설명자는 쓰지 않으므로 해당 플래그는 지움
+		int flags = record.getFlags() & ~0x0008;
+		if (!utf8)
+			flags &= ~0x0800;
+		record.setFlags(flags);
+
+		record.setLocalHeaderOffset(position);
+
+		writeLocalHeader(record, isZip64(record));
+
+		current = record;
+		raw = true;
+		dataOffset = position;
+	}
+
+	/**
+	 * 로컬 헤더를 바이트 배열로 만드는 메소드
+	 * 
+	 * Zip64 추가 필드를 쓰는 경우 실제 크기와 압축된 크기는 추가 필드의 끝에 씁니다.
+	 * 
+	 * @param record
+	 *            {@link ZipRecord}
+	 * @param name
+	 *            인코딩된 항목 이름
+	 * @param extra
+	 *            로컬 헤더의 추가 필드
+	 * @param zip64
+	 *            Zip64 추가 필드를 쓸지의 여부
+	 * @return 로컬 헤더
+	 */
+	static byte[] getLocalHeader(ZipRecord record, byte[] name, byte[] extra,
+			boolean zip64) {
+		final int length = ZipReader.LOCAL_HEADER_LENGTH;
+
+		if (zip64) {
+			extra = removeExtraField(extra, ZipReader.ZIP64_HEADER_ID);
+
+			byte[] b = new byte[extra.length + 20];
+			System.arraycopy(extra, 0, b, 0, extra.length);
+			putShort(b, extra.length, ZipReader.ZIP64_HEADER_ID);
+			putShort(b, extra.length + 2, 16);
+			putLong(b, extra.length + 4, record.getSize());
+			putLong(b, extra.length + 12, record.getCompressedSize());
+			extra = b;
+		}
+
+		byte[] b = new byte[length + name.length + extra.length];
+		putInt(b, 0, ZipReader.LOCAL_HEADER_SIGNATURE);
+		putShort(b, 4, record.getVersionNeeded());
+		putShort(b, 6, record.getFlags());
+		putShort(b, 8, record.getMethod());
+		putInt(b, 10, record.getDosTime());
+		putInt(b, 14, record.getCrc());
+		putInt(b, 18, zip64 ? ZipReader.ZIP64_MAGIC : record
+				.getCompressedSize());
+		putInt(b, 22, zip64 ? ZipReader.ZIP64_MAGIC : record.getSize());
+		putShort(b, 26, name.length);
+		putShort(b, 28, extra.length);
+		System.arraycopy(name, 0, b, length, name.length);
+		System.arraycopy(extra, 0, b, length + name.length, extra.length);
+
+		return b;
+	}
+
+	/**
+	 * 항목의 크기가 4 GB를 넘어서 Zip64 추가 필드가 필요한지 확인하는 메소드
+	 * 
+	 * @param record
+	 *            {@link ZipRecord}
+	 * @return Zip64 추가 필드가 필요하면 true
+	 */
+	static boolean isZip64(ZipRecord record) {
+		return record.getCompressedSize() >= ZipReader.ZIP64_MAGIC
+				|| record.getSize() >= ZipReader.ZIP64_MAGIC;
+	}
+
+	/**
+	 * 추가 필드에서 주어진 ID의 필드를 모두 지우는 메소드
+	 * 
+	 * @param extra
+	 *            원래 추가 필드
+	 * @param headerId
+	 *            지울 필드의 ID
+	 * @return 필드를 지운 추가 필드
+	 */
+	static byte[] removeExtraField(byte[] extra, int headerId) {
+		byte[] b = new byte[extra.length];
+		int length = 0;
+
+		int off = 0;
+		while (off + 4 <= extra.length) {
+			final int next = off + 4 + ZipReader.getShort(extra, off + 2);
+
+			if (next > extra.length)
+				break;
+
+			if (ZipReader.getShort(extra, off) != headerId) {
+				System.arraycopy(extra, off, b, length, next - off);
+				length += next - off;
+			}
+
+			off = next;
+		}
+
+		// 해석할 수 없는 나머지는 그대로 둠
+		System.arraycopy(extra, off, b, length, extra.length - off);
+		length += extra.length - off;
+
+		if (length == extra.length)
+			return extra;
+
+		byte[] result = new byte[length];
+		System.arraycopy(b, 0, result, 0, length);
+
+		return result;
+	}
+
+	/**
+	 * 추가 필드를 주어진 길이에 맞추는 메소드
+	 * 
+	 * 남는 공간은 읽는 쪽에서 무시하는 패딩 필드로 채웁니다. 추가 필드는 4바이트 머리를 가지므로
+	 * 1~3바이트는 채울 수 없습니다.
+	 * 
+	 * @param extra
+	 *            원래 추가 필드
+	 * @param length
+	 *            맞출 길이
+	 * @return 길이를 맞춘 추가 필드, 맞출 수 없으면 null
+	 */
+	static byte[] padExtra(byte[] extra, int length) {
+		if (length == extra.length)
+			return extra;
+
+		if (length - extra.length < 4) {
+			// 원래 추가 필드를 유지할 수 없는 경우
+			if (length == 0)
+				return new byte[0];
+			else if (length < 4)
+				return null;
+
+			extra = new byte[0];
+		}
+
+		byte[] b = new byte[length];
+		System.arraycopy(extra, 0, b, 0, extra.length);
+		putShort(b, extra.length, PADDING_HEADER_ID);
+		putShort(b, extra.length + 2, length - extra.length - 4);
+
+		return b;
+	}
+
+	/**
+	 * 바이트 배열에 little-endian 2바이트 값을 쓰는 메소드
+	 */
+	static void putShort(byte[] b, int off, int value) {
+		b[off] = (byte) value;
+		b[off + 1] = (byte) (value >> 8);
+	}
+
+	/**
+	 * 바이트 배열에 little-endian 4바이트 값을 쓰는 메소드
+	 */
+	static void putInt(byte[] b, int off, long value) {
+		putShort(b, off, (int) value);
+		putShort(b, off + 2, (int) (value >> 16));
+	}
+
+	/**
+	 * 바이트 배열에 little-endian 8바이트 값을 쓰는 메소드
+	 */
+	static void putLong(byte[] b, int off, long value) {
+		putInt(b, off, value);
+		putInt(b, off + 4, value >>> 32);
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		write(new byte[] { (byte) b }, 0, 1);
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		if (current == null)
+			throw new ZipException("시작된 항목이 없습니다.");
+
+		if (raw || current.getMethod() == ZipRecord.STORED) {
+			out.write(b, off, len);
+			position += len;
+		} else {
+			deflater.setInput(b, off, len);
+
+			while (!deflater.needsInput())
+				deflate();
+		}
+
+		if (!raw) {
+			crc.update(b, off, len);
+			size += len;
+		}
+	}
+
+	/**
+	 * 중앙 디렉토리 헤더를 쓰는 메소드
+	 * 
+	 * 4 GB를 넘는 크기와 위치는 헤더에 0xffffffff를 쓰고 Zip64 추가 필드에 씁니다. 기존
+	 * 추가 필드에 있던 Zip64 추가 필드는 새로 만듭니다.
+	 * 
+	 * @param record
+	 *            {@link ZipRecord}
+	 * @throws IOException
+	 */
+	private void writeCentralHeader(ZipRecord record) throws IOException {
+		final byte[] name = record.getName().getBytes(encoding);
+		final byte[] comment = record.getComment();
+
+		final long size = record.getSize();
+		final long compressedSize = record.getCompressedSize();
+		final long offset = record.getLocalHeaderOffset();
+
+		// Zip64 추가 필드에 넣을 값들 (실제 크기, 압축된 크기, 로컬 헤더 위치 순서)
+		long[] values = new long[3];
+		int count = 0;
+		if (size >= ZipReader.ZIP64_MAGIC)
+			values[count++] = size;
+		if (compressedSize >= ZipReader.ZIP64_MAGIC)
+			values[count++] = compressedSize;
+		if (offset >= ZipReader.ZIP64_MAGIC)
+			values[count++] = offset;
+
+		byte[] extra = removeExtraField(record.getExtra(),
+				ZipReader.ZIP64_HEADER_ID);
+
+		if (count > 0) {
+			byte[] zip64Extra = new byte[4 + count * 8 + extra.length];
+			putShort(zip64Extra, 0, ZipReader.ZIP64_HEADER_ID);
+			putShort(zip64Extra, 2, count * 8);
+			for (int i = 0; i < count; i++)
+				putLong(zip64Extra, 4 + i * 8, values[i]);
+			System.arraycopy(extra, 0, zip64Extra, 4 + count * 8,
+					extra.length);
+			extra = zip64Extra;
+		}
+
+		byte[] b = new byte[ZipReader.CENTRAL_HEADER_LENGTH];
+		putInt(b, 0, ZipReader.CENTRAL_HEADER_SIGNATURE);
+		putShort(b, 4, record.getVersionMadeBy());
+		putShort(b, 6, (count > 0) ? Math.max(record.getVersionNeeded(),
+				ZipReader.ZIP64_VERSION) : record.getVersionNeeded());
+		putShort(b, 8, record.getFlags());
+		putShort(b, 10, record.getMethod());
+		putInt(b, 12, record.getDosTime());
+		putInt(b, 16, record.getCrc());
+		putInt(b, 20, Math.min(compressedSize, ZipReader.ZIP64_MAGIC));
+		putInt(b, 24, Math.min(size, ZipReader.ZIP64_MAGIC));
+		putShort(b, 28, name.length);
+		putShort(b, 30, extra.length);
+		putShort(b, 32, comment.length);
+		putShort(b, 36, record.getInternalAttributes());
+		putInt(b, 38, record.getExternalAttributes());
+		putInt(b, 42, Math.min(offset, ZipReader.ZIP64_MAGIC));
+
+		writeOut(b);
+		writeOut(name);
+		writeOut(extra);
+		writeOut(comment);
+	}
+
+	/**
+	 * 로컬 헤더를 쓰는 메소드
+	 * 
+	 * @param record
+	 *            {@link ZipRecord}
+	 * @param zip64
+	 *            Zip64 추가 필드를 쓸지의 여부
+	 * @throws IOException
+	 */
+	private void writeLocalHeader(ZipRecord record, boolean zip64)
+			throws IOException {
+		if (zip64)
+			record.setVersionNeeded(Math.max(record.getVersionNeeded(),
+					ZipReader.ZIP64_VERSION));
+
+		this.zip64 = zip64;
+
+		writeOut(getLocalHeader(record, record.getName().getBytes(encoding),
+				new byte[0], zip64));
+	}
+
+	/**
+	 * 바이트 배열을 그대로 쓰는 메소드
+	 * 
+	 * @param b
+	 *            쓸 바이트 배열
+	 * @throws IOException
+	 */
+	private void writeOut(byte[] b) throws IOException {
+		out.write(b);
+		position += b.length;
+	}
+}
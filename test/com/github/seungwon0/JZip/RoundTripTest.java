@@ -0,0 +1,773 @@
+/**
+ * RoundTripTest : JZip이 읽고 쓴 Zip 파일을 java.util.zip과 비교하는 시험
+ */
+package com.github.seungwon0.JZip;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * JZip이 제자리에서 고치거나 새로 쓴 Zip 파일을 java.util.zip으로 다시 읽어 내용을 비교하는 시험
+ *
+ * 중앙 디렉토리로 읽는 {@link ZipFile}과 앞에서부터 차례대로 읽는 {@link ZipInputStream}이 모두
+ * 같은 항목과 내용을 읽어야 합니다. 반대로 java.util.zip이 쓴 Zip 파일은 {@link ZipReader}와
+ * {@link ZipStreamReader}로 읽어 비교합니다. 창을 띄우지 않으므로 명령행에서 실행합니다.
+ *
+ * <pre>
+ * java -cp swt.jar:classes:test-classes com.github.seungwon0.JZip.RoundTripTest
+ * </pre>
+ *
+ * @author Seungwon Jeong
+ *
+ */
+public class RoundTripTest {
+	private static final String UTF8 = "UTF-8"; // 시험에 쓰는 기본 인코딩
+
+	private static final long TIME = 1262304000000L; // 항목의 바뀐 시간 (2010-01-01)
+
+	private static int failures; // 실패한 확인의 숫자
+
+	private static File directory; // 시험 파일을 만드는 임시 디렉토리
+
+	/**
+	 * 모든 시험을 실행하는 메소드
+	 *
+	 * @param args
+	 *            사용하지 않음
+	 * @throws IOException
+	 */
+	public static void main(String[] args) throws IOException {
+		directory = File.createTempFile("jzip-test-", "");
+		directory.delete();
+		directory.mkdir();
+
+		try {
+			testAppend();
+			testDelete();
+			testRename();
+			testZip64Read();
+			testZip64Write();
+			testStreamDescriptor();
+			testStreamBlocks(Deflater.DEFAULT_COMPRESSION);
+			testStreamBlocks(Deflater.NO_COMPRESSION);
+			testEncoding(true);
+			testEncoding(false);
+		} finally {
+			for (File file : directory.listFiles())
+				file.delete();
+
+			directory.delete();
+		}
+
+		if (failures == 0) {
+			System.out.println("모든 시험을 통과했습니다.");
+		} else {
+			System.out.println(failures + "개의 확인이 실패했습니다.");
+
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * 제자리에서 새로운 항목을 덧붙이는 시험
+	 *
+	 * 덧붙인 뒤에도 기존 중앙 디렉토리 자리에 빈 공간이 남지 않아야 앞에서부터 읽을 수 있습니다.
+	 */
+	private static void testAppend() throws IOException {
+		final File zipFile = new File(directory, "append.zip");
+
+		Map<String, byte[]> expected = new LinkedHashMap<String, byte[]>();
+		expected.put("a.txt", data(3000, 1));
+		expected.put("dir/", new byte[0]);
+		expected.put("dir/b.bin", data(70000, 2));
+		writeZip(zipFile, expected, Charset.forName(UTF8));
+
+		Map<String, byte[]> added = new LinkedHashMap<String, byte[]>();
+		added.put("dir/c.txt", data(5000, 3));
+		added.put("d.txt", data(120000, 4));
+		added.put("copy.txt", data(5000, 3)); // 내용이 같은 파일
+		added.put("empty.txt", new byte[0]);
+
+		ZipReader reader = new ZipReader(zipFile, UTF8);
+		ZipWriter writer;
+		try {
+			writer = new ZipWriter(zipFile, UTF8, reader.getRecords(), reader
+					.getCentralDirectoryOffset(), new Transfer());
+		} finally {
+			reader.close();
+		}
+
+		compress(writer, added);
+		expected.putAll(added);
+
+		checkEntries("덧붙이기 (ZipFile)", expected, readZipFile(zipFile,
+				Charset.forName(UTF8)));
+		checkEntries("덧붙이기 (ZipInputStream)", expected,
+				readZipInputStream(zipFile));
+
+		// 아무 것도 덧붙이지 않으면 Zip 파일이 그대로여야 함
+		final byte[] before = readFile(zipFile);
+
+		reader = new ZipReader(zipFile, UTF8);
+		try {
+			writer = new ZipWriter(zipFile, UTF8, reader.getRecords(), reader
+					.getCentralDirectoryOffset(), new Transfer());
+		} finally {
+			reader.close();
+		}
+		writer.finish();
+
+		check(Arrays.equals(before, readFile(zipFile)),
+				"빈 덧붙이기가 Zip 파일을 바꾸었습니다.");
+	}
+
+	/**
+	 * 제자리에서 Zip 파일 끝의 항목들을 지우는 시험
+	 */
+	private static void testDelete() throws IOException {
+		final File zipFile = new File(directory, "delete.zip");
+
+		Map<String, byte[]> expected = new LinkedHashMap<String, byte[]>();
+		for (int i = 0; i < 6; i++)
+			expected.put("e" + i + ".txt", data(1000 * (i + 1), 10 + i));
+		writeZip(zipFile, expected, Charset.forName(UTF8));
+
+		final List<ZipRecord> records = readRecords(zipFile);
+
+		// 중간 항목은 제자리에서 지울 수 없고 Zip 파일도 그대로여야 함
+		final byte[] before = readFile(zipFile);
+
+		ZipEditor editor = new ZipEditor(zipFile, UTF8, new Transfer());
+		final List<Long> middle = Collections.singletonList(records.get(2)
+				.getLocalHeaderOffset());
+
+		check(!editor.canDelete(middle), "중간 항목을 제자리에서 지울 수 있다고 합니다.");
+
+		try {
+			editor.delete(middle);
+
+			check(false, "중간 항목을 제자리에서 지웠습니다.");
+		} catch (ZipException e) {
+			// 거절해야 함
+		}
+
+		check(!editor.isModified(), "거절한 삭제가 Zip 파일을 고쳤다고 합니다.");
+		check(Arrays.equals(before, readFile(zipFile)),
+				"거절한 삭제가 Zip 파일을 바꾸었습니다.");
+
+		// 끝의 두 항목 지우기
+		List<Long> tail = new ArrayList<Long>();
+		for (int i = 4; i < 6; i++) {
+			tail.add(records.get(i).getLocalHeaderOffset());
+			expected.remove(records.get(i).getName());
+		}
+
+		editor = new ZipEditor(zipFile, UTF8, new Transfer());
+		check(editor.canDelete(tail), "끝의 항목들을 제자리에서 지울 수 없다고 합니다.");
+
+		editor.delete(tail);
+		check(editor.isModified(), "끝의 항목들을 지운 뒤 고쳤다고 하지 않습니다.");
+
+		checkEntries("지우기 (ZipFile)", expected, readZipFile(zipFile, Charset
+				.forName(UTF8)));
+		checkEntries("지우기 (ZipInputStream)", expected,
+				readZipInputStream(zipFile));
+	}
+
+	/**
+	 * 제자리에서 로컬 헤더 위치로 항목의 이름을 바꾸는 시험
+	 *
+	 * 이름이 같은 항목이 둘 있어도 고른 항목만 바뀌어야 하고, 자리가 모자라는 이름은 Zip 파일을
+	 * 고치기 전에 거절해야 합니다.
+	 */
+	private static void testRename() throws IOException {
+		final File zipFile = new File(directory, "rename.zip");
+
+		final byte[] first = data(2000, 20);
+		final byte[] second = data(3000, 21);
+		final byte[] other = data(4000, 22);
+
+		// java.util.zip은 이름이 같은 항목을 쓰지 않으므로 ZipWriter로 만듦
+		ZipWriter writer = new ZipWriter(zipFile, UTF8);
+		try {
+			writeEntry(writer, "same.txt", first);
+			writeEntry(writer, "same.txt", second);
+			writeEntry(writer, "x/other.txt", other);
+		} finally {
+			writer.finish();
+		}
+
+		final List<ZipRecord> records = readRecords(zipFile);
+
+		HashMap<Long, String> nameMap = new HashMap<Long, String>();
+		nameMap.put(records.get(1).getLocalHeaderOffset(), "next.txt");
+
+		ZipEditor editor = new ZipEditor(zipFile, UTF8, new Transfer());
+		editor.rename(nameMap);
+		check(editor.isModified(), "이름을 바꾼 뒤 고쳤다고 하지 않습니다.");
+
+		Map<String, byte[]> expected = new LinkedHashMap<String, byte[]>();
+		expected.put("same.txt", first);
+		expected.put("next.txt", second);
+		expected.put("x/other.txt", other);
+
+		checkEntries("이름 바꾸기 (ZipFile)", expected, readZipFile(zipFile,
+				Charset.forName(UTF8)));
+		checkEntries("이름 바꾸기 (ZipInputStream)", expected,
+				readZipInputStream(zipFile));
+
+		// 로컬 헤더에 자리가 없는 긴 이름
+		final byte[] before = readFile(zipFile);
+
+		nameMap.clear();
+		nameMap.put(records.get(2).getLocalHeaderOffset(),
+				"x/a-much-longer-name-than-before.txt");
+
+		editor = new ZipEditor(zipFile, UTF8, new Transfer());
+		try {
+			editor.rename(nameMap);
+
+			check(false, "자리가 모자라는 이름으로 바꾸었습니다.");
+		} catch (ZipException e) {
+			// 거절해야 함
+		}
+
+		check(!editor.isModified(), "거절한 이름 바꾸기가 Zip 파일을 고쳤다고 합니다.");
+		check(Arrays.equals(before, readFile(zipFile)),
+				"거절한 이름 바꾸기가 Zip 파일을 바꾸었습니다.");
+	}
+
+	/**
+	 * java.util.zip이 쓴 Zip64 Zip 파일(항목이 65535개보다 많음)을 읽는 시험
+	 */
+	private static void testZip64Read() throws IOException {
+		final File zipFile = new File(directory, "zip64-read.zip");
+		final int count = 70000;
+
+		ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(
+				zipFile), Charset.forName(UTF8));
+		try {
+			for (int i = 0; i < count; i++) {
+				java.util.zip.ZipEntry entry = new java.util.zip.ZipEntry("f"
+						+ i);
+				entry.setTime(TIME);
+
+				zos.putNextEntry(entry);
+				zos.write(Integer.toString(i).getBytes(UTF8));
+				zos.closeEntry();
+			}
+		} finally {
+			zos.close();
+		}
+
+		final List<ZipRecord> records = readRecords(zipFile);
+		check(records.size() == count, "Zip64 항목의 숫자가 다릅니다: "
+				+ records.size());
+
+		ZipReader reader = new ZipReader(zipFile, UTF8);
+		try {
+			for (int i = 0; i < count; i += 9999) {
+				final ZipRecord record = records.get(i);
+
+				check(record.getName().equals("f" + i), "Zip64 항목 이름이 다릅니다: "
+						+ record.getName());
+				check(Arrays.equals(readAll(reader.getInputStream(record)),
+						Integer.toString(i).getBytes(UTF8)),
+						"Zip64 항목의 내용이 다릅니다: " + record.getName());
+			}
+		} finally {
+			reader.close();
+		}
+
+		check(readZipStream(zipFile, UTF8).size() == count,
+				"Zip64 Zip 파일을 앞에서부터 읽은 항목의 숫자가 다릅니다.");
+	}
+
+	/**
+	 * ZipWriter로 Zip64 Zip 파일(항목이 65535개보다 많음)을 쓰는 시험
+	 */
+	private static void testZip64Write() throws IOException {
+		final File zipFile = new File(directory, "zip64-write.zip");
+		final int count = 70000;
+
+		ZipWriter writer = new ZipWriter(zipFile, UTF8);
+		try {
+			for (int i = 0; i < count; i++)
+				writeEntry(writer, "f" + i, Integer.toString(i).getBytes(UTF8));
+		} finally {
+			writer.finish();
+		}
+
+		ZipFile zf = new ZipFile(zipFile);
+		try {
+			check(zf.size() == count, "ZipFile이 읽은 Zip64 항목의 숫자가 다릅니다: "
+					+ zf.size());
+
+			for (int i = 0; i < count; i += 9999) {
+				java.util.zip.ZipEntry entry = zf.getEntry("f" + i);
+
+				check(entry != null
+						&& Arrays.equals(readAll(zf.getInputStream(entry)),
+								Integer.toString(i).getBytes(UTF8)),
+						"ZipFile이 읽은 Zip64 항목의 내용이 다릅니다: f" + i);
+			}
+		} finally {
+			zf.close();
+		}
+	}
+
+	/**
+	 * 크기를 모르고 스트림에 쓴 항목의 Zip64 데이터 설명자를 읽는 시험
+	 *
+	 * 크기를 모르는 항목은 로컬 헤더에 항상 Zip64 추가 필드를 쓰고 24바이트 데이터 설명자를
+	 * 붙이므로, 작은 항목이라도 중앙 디렉토리와 앞에서부터 읽은 결과가 같아야 합니다.
+	 */
+	private static void testStreamDescriptor() throws IOException {
+		final File zipFile = new File(directory, "descriptor.zip");
+
+		Map<String, byte[]> expected = new LinkedHashMap<String, byte[]>();
+		expected.put("small.txt", data(100, 30));
+		expected.put("dir/", new byte[0]);
+		expected.put("empty.txt", new byte[0]);
+		expected.put("dir/large.bin", data(300000, 31));
+
+		ZipWriter writer = new ZipWriter(new FileOutputStream(zipFile), UTF8);
+		try {
+			for (Map.Entry<String, byte[]> entry : expected.entrySet())
+				writeEntry(writer, entry.getKey(), entry.getValue());
+		} finally {
+			writer.finish();
+		}
+
+		// 첫 번째 항목의 로컬 헤더에 Zip64 추가 필드가 있어야 함
+		final byte[] b = readFile(zipFile);
+		final int nameLength = (b[26] & 0xff) | ((b[27] & 0xff) << 8);
+		final int extraLength = (b[28] & 0xff) | ((b[29] & 0xff) << 8);
+		final int headerId = (extraLength < 4) ? -1
+				: (b[30 + nameLength] & 0xff)
+						| ((b[31 + nameLength] & 0xff) << 8);
+
+		check(headerId == 0x0001, "크기를 모르는 항목의 로컬 헤더에 Zip64 추가 필드가 없습니다.");
+
+		checkEntries("데이터 설명자 (ZipFile)", expected, readZipFile(zipFile,
+				Charset.forName(UTF8)));
+		checkEntries("데이터 설명자 (ZipStreamReader)", expected, readZipStream(
+				zipFile, UTF8));
+	}
+
+	/**
+	 * 스트림에 쓸 때 큰 파일을 블록마다 나누어 압축하는 시험
+	 *
+	 * 블록마다 계산한 CRC-32를 합친 값이 파일 전체의 CRC-32와 같아야 합니다.
+	 *
+	 * @param level
+	 *            압축 수준 (0이면 압축하지 않는 블록)
+	 */
+	private static void testStreamBlocks(int level) throws IOException {
+		final File zipFile = new File(directory, "blocks.zip");
+
+		Map<String, byte[]> expected = new LinkedHashMap<String, byte[]>();
+		expected.put("medium.bin", data(5 * 1024 * 1024 + 123, 40));
+		expected.put("large.bin", data(17 * 1024 * 1024 + 7, 41));
+		expected.put("small.txt", data(1000, 42));
+
+		ZipWriter writer = new ZipWriter(new FileOutputStream(zipFile), UTF8);
+		try {
+			compress(new ZipCompressor(writer, new Transfer(), level),
+					expected);
+		} finally {
+			writer.finish();
+		}
+
+		final String test = "블록 압축 (수준 " + level + ")";
+
+		checkEntries(test + " (ZipFile)", expected, readZipFile(zipFile,
+				Charset.forName(UTF8)));
+		checkEntries(test + " (ZipStreamReader)", expected, readZipStream(
+				zipFile, UTF8));
+
+		ZipFile zf = new ZipFile(zipFile);
+		try {
+			for (Map.Entry<String, byte[]> entry : expected.entrySet()) {
+				CRC32 crc = new CRC32();
+				crc.update(entry.getValue());
+
+				check(zf.getEntry(entry.getKey()).getCrc() == crc.getValue(),
+						test + "의 CRC-32가 다릅니다: " + entry.getKey());
+			}
+		} finally {
+			zf.close();
+		}
+	}
+
+	/**
+	 * 항목 이름의 인코딩을 바꾸는 시험
+	 *
+	 * 인코딩을 바꾼 결과는 새 인코딩으로 처음부터 읽은 결과와 같아야 하고, 디렉토리로 보기의 현재
+	 * 경로는 새 인코딩의 이름으로 남아야 합니다.
+	 *
+	 * @param dir
+	 *            디렉토리로 보기 여부
+	 */
+	private static void testEncoding(boolean dir) throws IOException {
+		final File zipFile = new File(directory, "encoding.zip");
+		final String ms949 = "MS949";
+
+		Map<String, byte[]> entries = new LinkedHashMap<String, byte[]>();
+		entries.put("한글/", new byte[0]);
+		entries.put("한글/하위/", new byte[0]);
+		entries.put("한글/하위/파일.txt", data(30, 50));
+		entries.put("없는/깊은/a.txt", data(50, 51));
+		entries.put("b.txt", data(100, 52));
+		writeZip(zipFile, entries, Charset.forName(ms949));
+
+		Zip zip = new Zip(zipFile, new ZipReader(zipFile, ms949), dir);
+		try {
+			final String test = "인코딩 바꾸기 (" + (dir ? "디렉토리로 보기" : "모든 파일 보기")
+					+ ")";
+
+			if (dir)
+				zip.setPath("/한글/하위");
+
+			zip.setEncoding(UTF8);
+
+			Zip fresh = new Zip(zipFile, new ZipReader(zipFile, UTF8), dir);
+			try {
+				if (dir) {
+					check(!zip.getPath().equals("/"), test
+							+ ": 현재 경로가 최상위 디렉토리로 바뀌었습니다.");
+
+					fresh.setPath(zip.getPath());
+				}
+
+				check(getNames(zip).equals(getNames(fresh)), test
+						+ ": 새 인코딩으로 읽은 결과와 다릅니다.");
+			} finally {
+				fresh.close();
+			}
+
+			zip.setEncoding(ms949);
+
+			if (dir)
+				check(zip.getPath().equals("/한글/하위"), test
+						+ ": 현재 경로가 돌아오지 않았습니다: " + zip.getPath());
+
+			// java.util.zip이 같은 인코딩으로 읽은 이름과 비교
+			List<String> expected = new ArrayList<String>();
+			if (dir) {
+				expected.add("파일.txt");
+			} else {
+				ZipFile zf = new ZipFile(zipFile, Charset.forName(ms949));
+				try {
+					Enumeration<? extends java.util.zip.ZipEntry> e = zf
+							.entries();
+					while (e.hasMoreElements()) {
+						String name = e.nextElement().getName();
+
+						// 모든 파일 보기는 항목의 이름(경로 포함 안함)만 보임
+						if (name.endsWith("/"))
+							name = name.substring(0, name.length() - 1);
+
+						expected.add(name.substring(name.lastIndexOf('/') + 1));
+					}
+				} finally {
+					zf.close();
+				}
+
+				Collections.sort(expected);
+			}
+
+			check(getNames(zip).equals(expected), test
+					+ ": 원래 인코딩으로 돌아온 이름이 다릅니다: " + getNames(zip));
+		} finally {
+			zip.close();
+		}
+	}
+
+	/**
+	 * 테이블에 보이는 항목들의 이름(경로 포함 안함)을 정렬하여 반환하는 메소드
+	 */
+	private static List<String> getNames(Zip zip) {
+		List<String> names = new ArrayList<String>();
+
+		for (int i = 0; i < zip.getSize(); i++)
+			names.add(zip.getEntryName(i));
+
+		Collections.sort(names);
+
+		return names;
+	}
+
+	/**
+	 * 항목들을 {@link ZipCompressor}로 압축하여 쓰는 메소드
+	 *
+	 * 내용은 임시 파일로 만들어 더하고, 이름이 '/'로 끝나면 디렉토리로 더합니다.
+	 */
+	private static void compress(ZipWriter writer, Map<String, byte[]> entries)
+			throws IOException {
+		try {
+			compress(new ZipCompressor(writer, new Transfer(),
+					Deflater.DEFAULT_COMPRESSION), entries);
+		} finally {
+			writer.finish();
+		}
+	}
+
+	/**
+	 * 항목들을 {@link ZipCompressor}로 압축하는 메소드
+	 */
+	private static void compress(ZipCompressor compressor,
+			Map<String, byte[]> entries) throws IOException {
+		List<File> files = new ArrayList<File>();
+
+		try {
+			for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+				final String name = entry.getKey();
+
+				if (name.endsWith("/")) {
+					compressor.addDirectory(name, TIME);
+
+					continue;
+				}
+
+				File file = new File(directory, "input-" + files.size());
+				writeFile(file, entry.getValue());
+				files.add(file);
+
+				compressor.addFile(file, name);
+			}
+		} finally {
+			compressor.finish();
+
+			for (File file : files)
+				file.delete();
+		}
+	}
+
+	/**
+	 * java.util.zip으로 Zip 파일을 만드는 메소드
+	 */
+	private static void writeZip(File zipFile, Map<String, byte[]> entries,
+			Charset charset) throws IOException {
+		ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(
+				zipFile), charset);
+
+		try {
+			for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+				java.util.zip.ZipEntry zipEntry = new java.util.zip.ZipEntry(
+						entry.getKey());
+				zipEntry.setTime(TIME);
+
+				zos.putNextEntry(zipEntry);
+				zos.write(entry.getValue());
+				zos.closeEntry();
+			}
+		} finally {
+			zos.close();
+		}
+	}
+
+	/**
+	 * {@link ZipWriter}에 항목 하나를 쓰는 메소드
+	 */
+	private static void writeEntry(ZipWriter writer, String name, byte[] b)
+			throws IOException {
+		writer.putNextEntry(name, TIME);
+		writer.write(b, 0, b.length);
+		writer.closeEntry();
+	}
+
+	/**
+	 * {@link ZipReader}로 모든 항목의 {@link ZipRecord}를 읽는 메소드
+	 */
+	private static List<ZipRecord> readRecords(File zipFile)
+			throws IOException {
+		ZipReader reader = new ZipReader(zipFile, UTF8);
+
+		try {
+			return reader.getRecords();
+		} finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * {@link ZipFile}로 중앙 디렉토리의 모든 항목과 내용을 읽는 메소드
+	 */
+	private static Map<String, byte[]> readZipFile(File zipFile,
+			Charset charset) throws IOException {
+		Map<String, byte[]> entries = new LinkedHashMap<String, byte[]>();
+
+		ZipFile zf = new ZipFile(zipFile, charset);
+		try {
+			Enumeration<? extends java.util.zip.ZipEntry> e = zf.entries();
+
+			while (e.hasMoreElements()) {
+				java.util.zip.ZipEntry entry = e.nextElement();
+
+				entries.put(entry.getName(), readAll(zf.getInputStream(entry)));
+			}
+		} finally {
+			zf.close();
+		}
+
+		return entries;
+	}
+
+	/**
+	 * {@link ZipInputStream}으로 앞에서부터 모든 항목과 내용을 읽는 메소드
+	 */
+	private static Map<String, byte[]> readZipInputStream(File zipFile)
+			throws IOException {
+		Map<String, byte[]> entries = new LinkedHashMap<String, byte[]>();
+
+		ZipInputStream zis = new ZipInputStream(new FileInputStream(zipFile));
+		try {
+			java.util.zip.ZipEntry entry;
+
+			while ((entry = zis.getNextEntry()) != null)
+				entries.put(entry.getName(), readAll(zis));
+		} finally {
+			zis.close();
+		}
+
+		return entries;
+	}
+
+	/**
+	 * {@link ZipStreamReader}로 앞에서부터 모든 항목과 내용을 읽는 메소드
+	 */
+	private static Map<String, byte[]> readZipStream(File zipFile,
+			String encoding) throws IOException {
+		Map<String, byte[]> entries = new LinkedHashMap<String, byte[]>();
+
+		ZipStreamReader reader = new ZipStreamReader(new FileInputStream(
+				zipFile), encoding);
+		try {
+			ZipRecord record;
+
+			while ((record = reader.getNextEntry()) != null)
+				entries.put(record.getName(), readAll(reader));
+		} finally {
+			reader.close();
+		}
+
+		return entries;
+	}
+
+	/**
+	 * 기대한 항목들과 읽은 항목들의 이름, 순서, 내용을 비교하는 메소드
+	 */
+	private static void checkEntries(String test,
+			Map<String, byte[]> expected, Map<String, byte[]> actual) {
+		if (!new ArrayList<String>(expected.keySet())
+				.equals(new ArrayList<String>(actual.keySet()))) {
+			check(false, test + ": 항목이 다릅니다: " + actual.keySet());
+
+			return;
+		}
+
+		for (Map.Entry<String, byte[]> entry : expected.entrySet())
+			check(Arrays.equals(entry.getValue(), actual.get(entry.getKey())),
+					test + ": 내용이 다릅니다: " + entry.getKey());
+	}
+
+	/**
+	 * 조건을 확인하고 틀리면 실패로 세는 메소드
+	 */
+	private static void check(boolean condition, String message) {
+		if (!condition) {
+			failures++;
+
+			System.out.println("실패: " + message);
+		}
+	}
+
+	/**
+	 * 어느 정도 압축되는 시험용 데이터를 만드는 메소드
+	 */
+	private static byte[] data(int length, long seed) {
+		final Random random = new Random(seed);
+		final byte[] words = "JZip Zip64 deflate 압축 블록 중앙 디렉토리 "
+				.getBytes(Charset.forName(UTF8));
+
+		byte[] b = new byte[length];
+		for (int i = 0; i < length; i++)
+			b[i] = (random.nextInt(4) == 0) ? (byte) random.nextInt(256)
+					: words[random.nextInt(words.length)];
+
+		return b;
+	}
+
+	/**
+	 * {@link InputStream}을 끝까지 읽고 닫는 메소드
+	 */
+	private static byte[] readAll(InputStream is) throws IOException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+
+		try {
+			byte[] b = new byte[8192];
+			int n;
+
+			while ((n = is.read(b)) != -1)
+				bos.write(b, 0, n);
+		} finally {
+			if (!(is instanceof ZipInputStream)
+					&& !(is instanceof ZipStreamReader))
+				is.close();
+		}
+
+		return bos.toByteArray();
+	}
+
+	/**
+	 * 파일의 모든 바이트를 읽는 메소드
+	 */
+	private static byte[] readFile(File file) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+
+		try {
+			byte[] b = new byte[(int) raf.length()];
+			raf.readFully(b);
+
+			return b;
+		} finally {
+			raf.close();
+		}
+	}
+
+	/**
+	 * 파일에 바이트들을 쓰는 메소드
+	 */
+	private static void writeFile(File file, byte[] b) throws IOException {
+		OutputStream os = new FileOutputStream(file);
+
+		try {
+			os.write(b);
+		} finally {
+			os.close();
+		}
+	}
+}